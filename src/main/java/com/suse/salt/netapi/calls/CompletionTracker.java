@@ -0,0 +1,311 @@
+package com.suse.salt.netapi.calls;
+
+import com.suse.salt.netapi.datatypes.target.MinionIdRegistry;
+import com.suse.salt.netapi.datatypes.target.MinionSet;
+import com.suse.salt.netapi.results.Result;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks the results of the minions targeted by an asynchronous call. The minion ids are
+ * kept in a sorted array and the results in an array of the same size, so tracking a
+ * job costs a few objects no matter how many minions it targets. Given a
+ * {@link MinionIdRegistry}, the tracker shares the registered instances of the ids. A
+ * single stage completes once all minions are done, and a stage for the result of a
+ * single minion is only created when it is asked for.
+ *
+ * @param <R> the return type of the called function
+ */
+public class CompletionTracker<R> {
+
+    /**
+     * Stands in for a result that failed with an exception.
+     */
+    private static final class Failure {
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    private final Optional<MinionIdRegistry> registry;
+    private final String[] minions;
+    private final AtomicReferenceArray<Object> results;
+    private final AtomicInteger remaining;
+    private final CompletableFuture<Void> allDone = new CompletableFuture<>();
+    private final Map<Integer, CompletableFuture<Result<R>>> stages = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tracker for the given minions, ignoring duplicates.
+     *
+     * @param minionIds the ids of the targeted minions
+     */
+    public CompletionTracker(Collection<String> minionIds) {
+        this(minionIds, Optional.empty());
+    }
+
+    /**
+     * Creates a tracker for the given minions, ignoring duplicates, that holds the
+     * instances of the minion ids registered with the given registry.
+     *
+     * @param minionIds the ids of the targeted minions
+     * @param registry the registry of the minion ids
+     */
+    public CompletionTracker(Collection<String> minionIds, MinionIdRegistry registry) {
+        this(minionIds, Optional.of(registry));
+    }
+
+    private CompletionTracker(Collection<String> minionIds,
+            Optional<MinionIdRegistry> registry) {
+        this.registry = registry;
+        String[] sorted = registry.isPresent() ?
+                minionIds.stream().map(registry.get()::intern).toArray(String[]::new) :
+                minionIds.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || !sorted[i].equals(sorted[size - 1])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        this.minions = size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+        this.results = new AtomicReferenceArray<>(size);
+        this.remaining = new AtomicInteger(size);
+        if (size == 0) {
+            allDone.complete(null);
+        }
+    }
+
+    private int indexOf(Object minionId) {
+        return minionId instanceof String ? Arrays.binarySearch(minions, minionId) : -1;
+    }
+
+    /**
+     * Completes the result of a minion unless it is done already.
+     *
+     * @param minionId the minion id
+     * @param result the result
+     * @return true if the result of the minion was completed by this call
+     */
+    public boolean complete(String minionId, Result<R> result) {
+        int index = indexOf(minionId);
+        return index >= 0 && complete(index, result);
+    }
+
+    /**
+     * Completes the results of all minions that are not done yet.
+     *
+     * @param result the result
+     * @return the number of minions completed by this call
+     */
+    public int completeAll(Result<R> result) {
+        return completeAll((Object) result);
+    }
+
+    /**
+     * Completes the results of all minions that are not done yet with an exception.
+     *
+     * @param throwable the exception
+     * @return the number of minions completed by this call
+     */
+    public int completeAllExceptionally(Throwable throwable) {
+        return completeAll(new Failure(throwable));
+    }
+
+    private int completeAll(Object value) {
+        int completed = 0;
+        for (int i = 0; i < minions.length && remaining.get() > 0; i++) {
+            if (complete(i, value)) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    private boolean complete(int index, Object value) {
+        if (!results.compareAndSet(index, null, value)) {
+            return false;
+        }
+        CompletableFuture<Result<R>> stage = stages.get(index);
+        if (stage != null) {
+            settle(stage, value);
+        }
+        if (remaining.decrementAndGet() == 0) {
+            allDone.complete(null);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void settle(CompletableFuture<Result<R>> stage, Object value) {
+        if (value instanceof Failure) {
+            stage.completeExceptionally(((Failure) value).throwable);
+        } else {
+            stage.complete((Result<R>) value);
+        }
+    }
+
+    /**
+     * Returns the stage of the result of a minion, creating it on the first request.
+     *
+     * @param minionId the minion id
+     * @return the stage or empty if the minion is not tracked
+     */
+    public Optional<CompletionStage<Result<R>>> getStage(String minionId) {
+        int index = indexOf(minionId);
+        return index < 0 ? Optional.empty() : Optional.of(stage(index));
+    }
+
+    private CompletableFuture<Result<R>> stage(int index) {
+        CompletableFuture<Result<R>> stage =
+                stages.computeIfAbsent(index, i -> new CompletableFuture<>());
+        // the result may have been completed before the stage was registered
+        Object value = results.get(index);
+        if (value != null) {
+            settle(stage, value);
+        }
+        return stage;
+    }
+
+    /**
+     * Returns the result of a minion if it is done and did not fail with an exception.
+     *
+     * @param minionId the minion id
+     * @return the result or empty if it is not available
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Result<R>> getResult(String minionId) {
+        int index = indexOf(minionId);
+        Object value = index < 0 ? null : results.get(index);
+        return value instanceof Result ? Optional.of((Result<R>) value) : Optional.empty();
+    }
+
+    /**
+     * Returns whether the result of a minion is done.
+     *
+     * @param minionId the minion id
+     * @return true if the minion is tracked and done
+     */
+    public boolean isDone(String minionId) {
+        int index = indexOf(minionId);
+        return index >= 0 && results.get(index) != null;
+    }
+
+    /**
+     * Returns the minions whose results are not done yet, as a {@link MinionSet} if the
+     * tracker was given a registry.
+     *
+     * @return the pending minions
+     */
+    public Set<String> getPendingMinions() {
+        List<String> pending = new ArrayList<>();
+        for (int i = 0; i < minions.length && pending.size() < remaining.get(); i++) {
+            if (results.get(i) == null) {
+                pending.add(minions[i]);
+            }
+        }
+        return registry.<Set<String>>map(r -> MinionSet.of(r, pending))
+                .orElseGet(() -> new HashSet<>(pending));
+    }
+
+    /**
+     * Returns a stage that completes once the results of all minions are done.
+     *
+     * @return the stage
+     */
+    public CompletionStage<Void> allDone() {
+        return allDone.minimalCompletionStage();
+    }
+
+    /**
+     * Returns the number of tracked minions.
+     *
+     * @return the number of minions
+     */
+    public int getTotal() {
+        return minions.length;
+    }
+
+    /**
+     * Returns the number of minions whose results are done.
+     *
+     * @return the number of completed minions
+     */
+    public int getCompleted() {
+        return minions.length - remaining.get();
+    }
+
+    /**
+     * Returns an unmodifiable map view from minion id to the stage of its result. Stages
+     * are only created for the minions that are looked up or iterated over.
+     *
+     * @return the map view
+     */
+    public Map<String, CompletionStage<Result<R>>> asMap() {
+        return new AbstractMap<String, CompletionStage<Result<R>>>() {
+            @Override
+            public CompletionStage<Result<R>> get(Object key) {
+                int index = indexOf(key);
+                return index < 0 ? null : stage(index);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return indexOf(key) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return minions.length;
+            }
+
+            @Override
+            public Set<Entry<String, CompletionStage<Result<R>>>> entrySet() {
+                return new AbstractSet<Entry<String, CompletionStage<Result<R>>>>() {
+                    @Override
+                    public int size() {
+                        return minions.length;
+                    }
+
+                    @Override
+                    public Iterator<Entry<String, CompletionStage<Result<R>>>> iterator() {
+                        return new Iterator<Entry<String, CompletionStage<Result<R>>>>() {
+                            private int next = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < minions.length;
+                            }
+
+                            @Override
+                            public Entry<String, CompletionStage<Result<R>>> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                int index = next++;
+                                return new SimpleImmutableEntry<>(minions[index], stage(index));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+}
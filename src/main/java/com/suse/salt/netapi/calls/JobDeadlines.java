@@ -0,0 +1,166 @@
+package com.suse.salt.netapi.calls;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Deadlines for the results of the minions targeted by an asynchronous call, after which
+ * the results of the minions that did not return yet are completed with a
+ * {@link com.suse.salt.netapi.errors.TimeoutError}. Deadlines are measured from the
+ * moment the job has been published.
+ */
+public class JobDeadlines {
+
+    /**
+     * Salt's default for the time to wait for minions to confirm a running job.
+     */
+    private static final int DEFAULT_GATHER_JOB_TIMEOUT = 10;
+
+    /**
+     * No deadlines, results are waited for until the event stream is closed.
+     */
+    public static final JobDeadlines NONE = custom().build();
+
+    private final Optional<Duration> minionTimeout;
+    private final Map<String, Duration> minionTimeouts;
+    private final Optional<Duration> jobTimeout;
+
+    private JobDeadlines(JobDeadlinesBuilder builder) {
+        this.minionTimeout = builder.minionTimeout;
+        this.minionTimeouts = new HashMap<>(builder.minionTimeouts);
+        this.jobTimeout = builder.jobTimeout;
+    }
+
+    /**
+     * Derives the deadlines from the timeouts of a call: a minion is given up on when
+     * Salt would stop waiting for it, after the timeout and the time to gather the jobs
+     * running on the minions have elapsed.
+     *
+     * @param timeout the timeout of the call in seconds
+     * @param gatherJobTimeout the gather job timeout of the call in seconds
+     * @return the deadlines, or no deadlines if there is no timeout
+     */
+    public static JobDeadlines fromTimeouts(Optional<Integer> timeout,
+            Optional<Integer> gatherJobTimeout) {
+        return timeout.filter(t -> t > 0)
+                .map(t -> custom().withMinionTimeout(Duration.ofSeconds(t +
+                        gatherJobTimeout.orElse(DEFAULT_GATHER_JOB_TIMEOUT))).build())
+                .orElse(NONE);
+    }
+
+    /**
+     * Derives the deadlines from the timeouts set on the given call.
+     *
+     * @param call the call
+     * @return the deadlines, or no deadlines if the call has no timeout
+     */
+    public static JobDeadlines fromTimeouts(LocalCall<?> call) {
+        return fromTimeouts(call.getTimeout(), call.getGatherJobTimeout());
+    }
+
+    /**
+     * Returns the time a minion is given to return, which is the shorter of the timeout
+     * of the minion and the timeout of the whole job.
+     *
+     * @param minionId the minion id
+     * @return the timeout or empty if the minion is waited for without a deadline
+     */
+    public Optional<Duration> getTimeout(String minionId) {
+        Optional<Duration> minion = Optional.ofNullable(minionTimeouts.get(minionId))
+                .or(() -> minionTimeout);
+        if (minion.isEmpty()) {
+            return jobTimeout;
+        } else if (jobTimeout.isEmpty()) {
+            return minion;
+        }
+        return jobTimeout.get().compareTo(minion.get()) < 0 ? jobTimeout : minion;
+    }
+
+    public Optional<Duration> getMinionTimeout() {
+        return minionTimeout;
+    }
+
+    public Map<String, Duration> getMinionTimeouts() {
+        return minionTimeouts;
+    }
+
+    public Optional<Duration> getJobTimeout() {
+        return jobTimeout;
+    }
+
+    /**
+     * Returns a JobDeadlinesBuilder for instantiating custom deadlines.
+     *
+     * @return a JobDeadlinesBuilder instance.
+     */
+    public static JobDeadlinesBuilder custom() {
+        return new JobDeadlinesBuilder();
+    }
+
+    /**
+     * Helper class for building JobDeadlines.
+     */
+    public static class JobDeadlinesBuilder {
+        private Optional<Duration> minionTimeout = Optional.empty();
+        private final Map<String, Duration> minionTimeouts = new HashMap<>();
+        private Optional<Duration> jobTimeout = Optional.empty();
+
+        private JobDeadlinesBuilder() {
+        }
+
+        /**
+         * Sets the time every minion is given to return its result.
+         *
+         * @param value the timeout, which must be greater than 0
+         * @return the builder
+         */
+        public JobDeadlinesBuilder withMinionTimeout(Duration value) {
+            this.minionTimeout = Optional.of(validate(value));
+            return this;
+        }
+
+        /**
+         * Sets the time a single minion is given to return its result, for example a
+         * minion known to be slow.
+         *
+         * @param minionId the minion id
+         * @param value the timeout, which must be greater than 0
+         * @return the builder
+         */
+        public JobDeadlinesBuilder withMinionTimeout(String minionId, Duration value) {
+            this.minionTimeouts.put(minionId, validate(value));
+            return this;
+        }
+
+        /**
+         * Sets the time after which the results of all minions that did not return yet
+         * are completed, overriding longer minion timeouts.
+         *
+         * @param value the timeout, which must be greater than 0
+         * @return the builder
+         */
+        public JobDeadlinesBuilder withJobTimeout(Duration value) {
+            this.jobTimeout = Optional.of(validate(value));
+            return this;
+        }
+
+        private static Duration validate(Duration value) {
+            if (value.isNegative() || value.isZero()) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid timeout");
+            }
+            return value;
+        }
+
+        /**
+         * Builds the JobDeadlines.
+         *
+         * @return the JobDeadlines
+         */
+        public JobDeadlines build() {
+            return new JobDeadlines(this);
+        }
+    }
+}
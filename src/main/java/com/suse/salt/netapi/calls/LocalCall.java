@@ -2,33 +2,40 @@ package com.suse.salt.netapi.calls;
 
 import static com.suse.salt.netapi.utils.ClientUtils.parameterizedType;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import com.suse.salt.netapi.calls.runner.Jobs;
 import com.suse.salt.netapi.client.SaltClient;
 import com.suse.salt.netapi.datatypes.AuthMethod;
 import com.suse.salt.netapi.datatypes.Batch;
-import com.suse.salt.netapi.datatypes.Event;
 import com.suse.salt.netapi.datatypes.target.SSHTarget;
 import com.suse.salt.netapi.datatypes.target.Target;
 import com.suse.salt.netapi.errors.GenericError;
-import com.suse.salt.netapi.event.EventListener;
+import com.suse.salt.netapi.errors.TimeoutError;
 import com.suse.salt.netapi.event.EventStream;
 import com.suse.salt.netapi.event.JobReturnEvent;
+import com.suse.salt.netapi.event.JobReturnRouter;
 import com.suse.salt.netapi.event.RunnerReturnEvent;
 import com.suse.salt.netapi.parser.JsonParser;
+import com.suse.salt.netapi.parser.MinionResultsParser;
 import com.suse.salt.netapi.results.Result;
 import com.suse.salt.netapi.results.Return;
 import com.suse.salt.netapi.results.SSHResult;
 import com.suse.salt.netapi.utils.ClientUtils;
+import com.suse.salt.netapi.utils.HashedWheelTimer;
 
 import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -110,6 +117,14 @@ public class LocalCall<R> extends AbstractCall<R> {
                 Optional.empty(), Optional.empty(), executors, executorOptions);
     }
 
+    public Optional<Integer> getTimeout() {
+        return timeout;
+    }
+
+    public Optional<Integer> getGatherJobTimeout() {
+        return gatherJobTimeout;
+    }
+
     public LocalCall<R> withExecutors(Optional<List<String>> executors,
                                      Optional<Map<String, ?>> executorOptions) {
         return new LocalCall<>(getFunction(), arg, kwarg, getReturnType(), metadata,
@@ -245,11 +260,39 @@ public class LocalCall<R> extends AbstractCall<R> {
             EventStream events,
             CompletionStage<GenericError> cancel,
             Optional<Batch> batch) {
+        return callAsync(client, target, auth, events, cancel, batch, JobDeadlines.NONE);
+    }
+
+    /**
+     * Calls this salt call via the async client and returns the results
+     * as they come in via the event stream. The results of minions that do not return
+     * before their deadline are completed with a {@link TimeoutError}, like the deadlines
+     * {@link JobDeadlines#fromTimeouts(LocalCall)} derives from the timeouts of this call. The
+     * overloads without deadlines wait for the results until the event stream is closed.
+     *
+     * @param client SaltClient instance
+     * @param target the target for the function
+     * @param events the event stream to use
+     * @param cancel future to cancel the action
+     * @param auth authentication credentials to use
+     * @param batch parameter for enabling and configuring batching
+     * @param deadlines the deadlines of the minions
+     * @return a map from minion id to future of the result.
+     */
+    public CompletionStage<Optional<Map<String, CompletionStage<Result<R>>>>> callAsync(
+            SaltClient client,
+            Target<?> target,
+            AuthMethod auth,
+            EventStream events,
+            CompletionStage<GenericError> cancel,
+            Optional<Batch> batch,
+            JobDeadlines deadlines) {
         return callAsync(
                 localCall -> localCall.callAsync(client, target, auth, batch),
                 runnerCall -> runnerCall.callAsync(client, auth),
                 events,
-                cancel
+                cancel,
+                deadlines
         );
     }
 
@@ -269,6 +312,55 @@ public class LocalCall<R> extends AbstractCall<R> {
                                 CompletionStage<RunnerAsyncResult<Map<String, R>>>> runnerAsync,
             EventStream events,
             CompletionStage<GenericError> cancel) {
+        return callAsync(localAsync, runnerAsync, events, cancel, JobDeadlines.NONE);
+    }
+
+    /**
+     * Calls this salt call via the async client and returns the results
+     * as they come in via the event stream. The results of minions that do not return
+     * before their deadline are completed with a {@link TimeoutError}, like the deadlines
+     * {@link JobDeadlines#fromTimeouts(LocalCall)} derives from the timeouts of this call. The
+     * overloads without deadlines wait for the results until the event stream is closed.
+     *
+     * @param localAsync function providing callAsync for LocalCalls
+     * @param runnerAsync function providing callAsync for RunnerCalls
+     * @param events the event stream to use
+     * @param cancel future to cancel the action
+     * @param deadlines the deadlines of the minions
+     * @return a map from minion id to future of the result.
+     */
+    public CompletionStage<Optional<Map<String, CompletionStage<Result<R>>>>> callAsync(
+            Function<LocalCall<R>, CompletionStage<Optional<LocalAsyncResult<R>>>> localAsync,
+            Function<RunnerCall<Map<String, R>>,
+                                CompletionStage<RunnerAsyncResult<Map<String, R>>>> runnerAsync,
+            EventStream events,
+            CompletionStage<GenericError> cancel,
+            JobDeadlines deadlines) {
+        return callAsyncTracked(localAsync, runnerAsync, events, cancel, deadlines)
+                .thenApply(tracker -> tracker.map(t -> new HashMap<>(t.asMap())));
+    }
+
+    /**
+     * Calls this salt call via the async client and tracks the results as they come in
+     * via the event stream. Unlike a map of futures, the tracker keeps the results of
+     * large numbers of minions compactly and tells when all of them are done. The
+     * results of minions that do not return before their deadline are completed with a
+     * {@link TimeoutError}.
+     *
+     * @param localAsync function providing callAsync for LocalCalls
+     * @param runnerAsync function providing callAsync for RunnerCalls
+     * @param events the event stream to use
+     * @param cancel future to cancel the action
+     * @param deadlines the deadlines of the minions
+     * @return the tracker of the results of the targeted minions.
+     */
+    public CompletionStage<Optional<CompletionTracker<R>>> callAsyncTracked(
+            Function<LocalCall<R>, CompletionStage<Optional<LocalAsyncResult<R>>>> localAsync,
+            Function<RunnerCall<Map<String, R>>,
+                                CompletionStage<RunnerAsyncResult<Map<String, R>>>> runnerAsync,
+            EventStream events,
+            CompletionStage<GenericError> cancel,
+            JobDeadlines deadlines) {
 
         return localAsync.apply(this).thenApply(optLar -> {
             TypeToken<R> returnTypeToken = this.getReturnType();
@@ -278,26 +370,18 @@ public class LocalCall<R> extends AbstractCall<R> {
             TypeToken<Result<R>> typeToken = (TypeToken<Result<R>>) TypeToken.get(result);
 
             return optLar.map(lar -> {
-                Map<String, CompletableFuture<Result<R>>> futures =
-                        lar.getMinions().stream().collect(Collectors.toMap(
-                                mid -> mid,
-                                mid -> new CompletableFuture<>()
-                                )
-                        );
-
-                EventListener listener = new EventListener() {
+                CompletionTracker<R> tracker = new CompletionTracker<>(lar.getMinions());
+
+                JobReturnRouter router = events.getJobReturnRouter();
+                JobReturnRouter.JobListener listener = new JobReturnRouter.JobListener() {
                     @Override
-                    public void notify(Event event) {
-                        Optional<JobReturnEvent> jobReturnEvent = JobReturnEvent.parse(event);
-                        if (jobReturnEvent.isPresent()) {
-                            jobReturnEvent.ifPresent(e ->
-                                    onJobReturn(lar.getJid(), e, typeToken, futures)
-                            );
-                        } else {
-                            RunnerReturnEvent.parse(event).ifPresent(e ->
-                                    onRunnerReturn(lar.getJid(), e, typeToken, futures)
-                            );
-                        }
+                    public void onJobReturn(JobReturnEvent event) {
+                        LocalCall.onJobReturn(event, typeToken, tracker);
+                    }
+
+                    @Override
+                    public void onLookupReturn(RunnerReturnEvent event) {
+                        LocalCall.onRunnerReturn(lar.getJid(), event, typeToken, tracker);
                     }
 
                     @Override
@@ -306,40 +390,37 @@ public class LocalCall<R> extends AbstractCall<R> {
                                 new GenericError(
                                         "EventStream closed with reason "
                                                 + phrase));
-                        futures.values().forEach(f -> f.complete(error));
+                        tracker.completeAll(error);
+                    }
+
+                    @Override
+                    public Optional<Set<String>> getPendingMinions() {
+                        return Optional.of(tracker.getPendingMinions());
                     }
                 };
+                router.addJobListener(lar.getJid(), listener);
 
-                CompletableFuture<Void> allResolves = CompletableFuture.allOf(
-                        futures.entrySet().stream().map(entry ->
-                                // mask errors since CompletableFuture.allOf resolves on first error
-                                entry.getValue().<Integer>handle((v, e) -> 0)
-                        ).toArray(CompletableFuture[]::new)
-                );
+                List<HashedWheelTimer.Timeout> timeouts =
+                        scheduleDeadlines(lar.getJid(), deadlines, tracker);
 
-                allResolves.whenComplete((v, e) ->
-                        events.removeEventListener(listener)
-                );
+                tracker.allDone().whenComplete((v, e) -> {
+                    router.removeJobListener(lar.getJid(), listener);
+                    timeouts.forEach(HashedWheelTimer.Timeout::cancel);
+                });
 
                 cancel.whenComplete((v, e) -> {
                     if (v != null) {
-                        Result<R> error = Result.error(v);
-                        futures.values().forEach(f -> f.complete(error));
+                        tracker.completeAll(Result.error(v));
                     } else if (e != null) {
-                        futures.values().forEach(f -> f.completeExceptionally(e));
+                        tracker.completeAllExceptionally(e);
                     }
                 });
 
-                events.addEventListener(listener);
-
                 // fire off lookup to get a result event for minions that already finished
                 // before we installed the listeners
                 runnerAsync.apply(Jobs.lookupJid(lar));
 
-                return futures.entrySet().stream().collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> (CompletionStage<Result<R>>) e.getValue()
-                ));
+                return tracker;
             });
         });
     }
@@ -360,6 +441,34 @@ public class LocalCall<R> extends AbstractCall<R> {
                 .thenApply(r -> r.get(0));
     }
 
+    /**
+     * Calls a execution module function on the given target and synchronously
+     * waits for the result, passing the result of every minion to the given consumer
+     * as soon as it is parsed instead of collecting all results in a map. The consumer
+     * is called on the thread parsing the response.
+     * Authentication is done with the token therefore you have to login prior
+     * to using this function.
+     *
+     * @param client SaltClient instance
+     * @param target the target for the function
+     * @param auth authentication credentials to use
+     * @param consumer consumer accepting the minion id and result for every minion
+     * @return the number of minion results passed to the consumer
+     */
+    public CompletionStage<Integer> callSync(final SaltClient client, Target<?> target,
+            AuthMethod auth, BiConsumer<String, Result<R>> consumer) {
+        Type xor = parameterizedType(null, Result.class, getReturnType().getType());
+        @SuppressWarnings("unchecked")
+        TypeToken<Result<R>> resultType = (TypeToken<Result<R>>) TypeToken.get(xor);
+
+        return client.call(this,
+                Client.LOCAL,
+                Optional.of(target),
+                Map.of(),
+                new MinionResultsParser<>(resultType, consumer),
+                auth);
+    }
+
     /**
      * Calls a execution module function on the given target with batching and
      * synchronously waits for the result. Authentication is done with the token
@@ -402,22 +511,22 @@ public class LocalCall<R> extends AbstractCall<R> {
     //   unreliable in its meaning.
     // - its injected directly into the functions result object which mixes function result structure with metadata
     //   specific to how a function is dispatched.
-    private List<Map<String, Result<R>>> handleRetcodeBatchingHack(List<Map<String, Result<R>>> list, Type xor) {
+    //
+    // Batch results are therefore decoded from trees of their own, so that a result failing on the retcode can be
+    // decoded again without it.
+    private List<Map<String, Result<R>>> handleRetcodeBatchingHack(List<Map<String, JsonElement>> list, Type xor) {
         return list.stream().map(m -> {
             return m.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> {
-                return e.getValue().<Result<R>>fold(err -> {
+                Result<R> result = JsonParser.GSON.fromJson(e.getValue(), xor);
+                return result.<Result<R>>fold(err -> {
                     return err.<Result<R>>fold(
                             Result::error,
                             Result::error,
                             parsingError -> {
-                                if (parsingError.getJson().isJsonObject()) {
-                                    JsonObject jsonObject = parsingError.getJson().getAsJsonObject();
-                                    if (jsonObject.has("retcode")) {
-                                        jsonObject.remove("retcode");
-                                        return JsonParser.GSON.fromJson(jsonObject, xor);
-                                    } else {
-                                        return Result.error(parsingError);
-                                    }
+                                if (e.getValue().isJsonObject() && e.getValue().getAsJsonObject().has("retcode")) {
+                                    JsonObject jsonObject = e.getValue().getAsJsonObject().deepCopy();
+                                    jsonObject.remove("retcode");
+                                    return JsonParser.GSON.fromJson(jsonObject, xor);
                                 } else {
                                     return Result.error(parsingError);
                                 }
@@ -458,11 +567,14 @@ public class LocalCall<R> extends AbstractCall<R> {
                 (TypeToken<Return<List<Map<String, Result<R>>>>>) TypeToken.get(wrapperType);
 
         if (batch.isPresent()) {
+            Type jsonMap = parameterizedType(null, Map.class, String.class, JsonElement.class);
+            Type jsonWrapperType = parameterizedType(null, Return.class,
+                    parameterizedType(null, List.class, jsonMap));
             return client.call(this,
                     clientType,
                     Optional.of(target),
                     customArgs,
-                    typeToken,
+                    (TypeToken<Return<List<Map<String, JsonElement>>>>) TypeToken.get(jsonWrapperType),
                     auth)
                     .thenApply(Return::getResult)
                     .thenApply(results -> handleRetcodeBatchingHack(results, xor));
@@ -510,34 +622,52 @@ public class LocalCall<R> extends AbstractCall<R> {
                 .thenApply(wrapper -> wrapper.getResult().get(0));
     }
 
+    /**
+     * Schedules the deadlines of the minions on the shared timer. Minions with the same
+     * timeout share one timer entry, so a job needs as many entries as there are
+     * distinct timeouts rather than one per minion.
+     */
+    private static <R> List<HashedWheelTimer.Timeout> scheduleDeadlines(
+            String jid,
+            JobDeadlines deadlines,
+            CompletionTracker<R> tracker
+    ) {
+        Map<Duration, List<String>> minionsByTimeout = new HashMap<>();
+        tracker.getPendingMinions().forEach(mid -> deadlines.getTimeout(mid).ifPresent(timeout ->
+                minionsByTimeout.computeIfAbsent(timeout, t -> new ArrayList<>()).add(mid)));
+        return minionsByTimeout.entrySet().stream().map(entry -> {
+            Duration timeout = entry.getKey();
+            List<String> minions = entry.getValue();
+            return HashedWheelTimer.shared().schedule(() -> minions.forEach(mid ->
+                    tracker.complete(mid, Result.error(new TimeoutError(jid, mid, timeout)))
+            ), timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }).collect(Collectors.toList());
+    }
+
     private static <R> void onRunnerReturn(
             String jid,
             RunnerReturnEvent rre,
             TypeToken<Result<R>> tt,
-            Map<String, CompletableFuture<Result<R>>> targets
+            CompletionTracker<R> tracker
     ) {
         final RunnerReturnEvent.Data data = rre.getData();
         if (data.getFun().contentEquals("runner.jobs.list_job")) {
             Jobs.Info result = data.getResult(Jobs.Info.class);
             if (result.getJid().equals(jid)) {
-                targets.forEach((mid, f) -> {
-                    result.getResult(mid, tt).ifPresent(f::complete);
+                tracker.getPendingMinions().forEach(mid -> {
+                    result.getResult(mid, tt).ifPresent(r -> tracker.complete(mid, r));
                 });
             }
         }
     }
 
     private static <R> void onJobReturn(
-            String jid,
             JobReturnEvent jre,
             TypeToken<Result<R>> tt,
-            Map<String, CompletableFuture<Result<R>>> targets
+            CompletionTracker<R> tracker
     ) {
-        if (jre.getJobId().contentEquals(jid)) {
-            CompletableFuture<Result<R>> f = targets.get(jre.getMinionId());
-            if (f != null) {
-                f.complete(jre.getData().getResult(tt));
-            }
+        if (!tracker.isDone(jre.getMinionId())) {
+            tracker.complete(jre.getMinionId(), jre.getData().getResult(tt));
         }
     }
 }
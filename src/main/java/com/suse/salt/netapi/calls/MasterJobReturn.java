@@ -0,0 +1,103 @@
+package com.suse.salt.netapi.calls;
+
+import static com.suse.salt.netapi.utils.ClientUtils.parameterizedType;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.errors.GenericError;
+import com.suse.salt.netapi.event.EventListener;
+import com.suse.salt.netapi.event.EventStream;
+import com.suse.salt.netapi.results.Result;
+import com.suse.salt.netapi.results.Return;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+
+/**
+ * Waits for the return event of a job run on the master, like a runner or wheel job.
+ * The event is subscribed to by its exact tag and a single lookup of the job covers the
+ * case of a job that finished before the subscription, so the result of a long running
+ * job is received without polling the job cache.
+ */
+final class MasterJobReturn {
+
+    private MasterJobReturn() { }
+
+    /**
+     * Waits for the return event of the given job.
+     *
+     * @param <R> the return type of the called function
+     * @param client the client to look up the job with
+     * @param auth the authentication to look up the job with
+     * @param events the event stream to use
+     * @param cancel future to cancel the waiting
+     * @param job the scheduled job
+     * @param tag the tag of the return event of the job
+     * @param parser parses the result out of a return event, given the result type
+     * @return the future of the result
+     */
+    static <R> CompletionStage<Result<R>> await(SaltClient client, AuthMethod auth,
+            EventStream events, CompletionStage<GenericError> cancel, ScheduledJob<R> job,
+            String tag, BiFunction<Event, TypeToken<Result<R>>, Optional<Result<R>>> parser) {
+        @SuppressWarnings("unchecked")
+        TypeToken<Result<R>> resultType = (TypeToken<Result<R>>) TypeToken.get(
+                parameterizedType(null, Result.class, job.getType().getType()));
+        CompletableFuture<Result<R>> result = new CompletableFuture<>();
+
+        EventListener listener = new EventListener() {
+            @Override
+            public void notify(Event event) {
+                // the subscription also matches tags below the return tag
+                if (tag.equals(event.getTag())) {
+                    parser.apply(event, resultType).ifPresent(result::complete);
+                }
+            }
+
+            @Override
+            public void eventStreamClosed(int code, String phrase) {
+                result.complete(Result.error(
+                        new GenericError("EventStream closed with reason " + phrase)));
+            }
+        };
+        events.addEventListener(tag, listener);
+        result.whenComplete((v, e) -> events.removeEventListener(listener));
+
+        cancel.whenComplete((v, e) -> {
+            if (v != null) {
+                result.complete(Result.error(v));
+            } else if (e != null) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        // look up the job once in case it finished before the listener was installed,
+        // a failing lookup leaves the result to the event
+        Type dataType = parameterizedType(null, Data.class, resultType.getType());
+        Type mapType = parameterizedType(null, Map.class, String.class, dataType);
+        Type wrapperType = parameterizedType(null, Return.class,
+                parameterizedType(null, List.class, mapType));
+        @SuppressWarnings("unchecked")
+        TypeToken<Return<List<Map<String, Data<Result<R>>>>>> lookupType =
+                (TypeToken<Return<List<Map<String, Data<Result<R>>>>>>)
+                        TypeToken.get(wrapperType);
+        client.call(Jobs.lookupJid(job.getJid()), Client.RUNNER, Optional.empty(), Map.of(),
+                lookupType, auth)
+                .thenAccept(wrapper -> wrapper.getResult().stream()
+                        .flatMap(returns -> returns.values().stream())
+                        .map(Data::getResult)
+                        .filter(Objects::nonNull)
+                        .findFirst()
+                        .ifPresent(result::complete));
+
+        return result;
+    }
+}
@@ -5,6 +5,9 @@ import static com.suse.salt.netapi.utils.ClientUtils.parameterizedType;
 import com.google.gson.reflect.TypeToken;
 import com.suse.salt.netapi.client.SaltClient;
 import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.errors.GenericError;
+import com.suse.salt.netapi.event.EventStream;
+import com.suse.salt.netapi.event.WheelReturnEvent;
 import com.suse.salt.netapi.results.Result;
 import com.suse.salt.netapi.results.Return;
 
@@ -62,6 +65,29 @@ public class WheelCall<R> extends AbstractCall<R> {
                 });
     }
 
+    /**
+     * Calls a wheel module function on the master asynchronously and returns the
+     * result as it comes in via the event stream, instead of polling for it with
+     * {@link com.suse.salt.netapi.calls.runner.Jobs#lookupJid(WheelAsyncResult)}.
+     * The job is looked up once in case it finished before the return event was
+     * subscribed to. Authentication is done with the token therefore you have to
+     * login prior to using this function.
+     *
+     * @param client SaltClient instance
+     * @param auth authentication credentials to use
+     * @param events the event stream to use
+     * @param cancel future to cancel the action
+     * @return the future of the result of the called function
+     */
+    public CompletionStage<Result<R>> callAsync(final SaltClient client, AuthMethod auth,
+            EventStream events, CompletionStage<GenericError> cancel) {
+        return callAsync(client, auth).thenCompose(job ->
+                MasterJobReturn.await(client, auth, events, cancel, job,
+                        "salt/wheel/" + job.getJid() + "/ret",
+                        (event, type) -> WheelReturnEvent.parse(event)
+                                .map(ret -> ret.getData().getResult(type))));
+    }
+
     /**
      * Calls a wheel module function on the master and synchronously
      * waits for the result. Authentication is done with the token therefore you
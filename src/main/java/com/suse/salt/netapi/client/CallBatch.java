@@ -0,0 +1,203 @@
+package com.suse.salt.netapi.client;
+
+import static com.suse.salt.netapi.utils.ClientUtils.parameterizedType;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.calls.Call;
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.calls.LocalCall;
+import com.suse.salt.netapi.calls.RunnerCall;
+import com.suse.salt.netapi.calls.WheelCall;
+import com.suse.salt.netapi.calls.WheelResult;
+import com.suse.salt.netapi.datatypes.target.Target;
+import com.suse.salt.netapi.exception.SaltException;
+import com.suse.salt.netapi.results.Result;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A list of calls to be sent to the Salt API as lowstate chunks of a single request
+ * using {@link SaltClient#callBatch(CallBatch, com.suse.salt.netapi.datatypes.AuthMethod)}.
+ * Adding a call returns a CompletionStage that is completed with the result of that call
+ * once the response of the request has been parsed. Calls of any client type can be
+ * mixed in one batch.
+ * <p>
+ * The Salt API fails a request as a whole if one of its chunks fails, in which case
+ * the CompletionStages of all calls in the batch are completed exceptionally.
+ * A batch can only be sent once.
+ */
+public class CallBatch {
+
+    /**
+     * A call in the batch with the future for its result.
+     *
+     * @param <R> the type of the result
+     */
+    static final class Chunk<R> {
+
+        private final Call<?> call;
+        private final Client client;
+        private final Optional<Target<?>> target;
+        private final Map<String, Object> custom;
+        private final TypeToken<R> type;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Chunk(Call<?> call, Client client, Optional<Target<?>> target,
+                Map<String, Object> custom, TypeToken<R> type) {
+            this.call = call;
+            this.client = client;
+            this.target = target;
+            this.custom = custom;
+            this.type = type;
+        }
+
+        Call<?> getCall() {
+            return call;
+        }
+
+        Client getClient() {
+            return client;
+        }
+
+        Optional<Target<?>> getTarget() {
+            return target;
+        }
+
+        Map<String, Object> getCustom() {
+            return custom;
+        }
+
+        TypeToken<R> getType() {
+            return type;
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((R) result);
+        }
+
+        void completeExceptionally(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private final List<Chunk<?>> chunks = new ArrayList<>();
+    private boolean sent = false;
+
+    /**
+     * Adds a call with the given parameters to the batch.
+     *
+     * @param <R> the type of the result
+     * @param call the call to make
+     * @param client the client to use
+     * @param target the target of the call
+     * @param custom additional properties to send
+     * @param type the type of the element of the return list holding the result
+     * @return CompletionStage holding the result of the call
+     */
+    public synchronized <R> CompletionStage<R> add(Call<?> call, Client client,
+            Optional<Target<?>> target, Map<String, Object> custom, TypeToken<R> type) {
+        if (sent) {
+            throw new IllegalStateException("Batch has already been sent");
+        }
+        Chunk<R> chunk = new Chunk<>(call, client, target, custom, type);
+        chunks.add(chunk);
+        return chunk.future;
+    }
+
+    /**
+     * Adds a synchronous call of an execution module function on the given target.
+     *
+     * @param <R> the return type of the called function
+     * @param call the call to make
+     * @param target the target for the function
+     * @return CompletionStage holding a map containing the results with the minion name
+     * as key
+     */
+    @SuppressWarnings("unchecked")
+    public <R> CompletionStage<Map<String, Result<R>>> add(LocalCall<R> call,
+            Target<?> target) {
+        Type xor = parameterizedType(null, Result.class, call.getReturnType().getType());
+        Type map = parameterizedType(null, Map.class, String.class, xor);
+        return add(call, Client.LOCAL, Optional.of(target), Collections.emptyMap(),
+                (TypeToken<Map<String, Result<R>>>) TypeToken.get(map));
+    }
+
+    /**
+     * Adds a synchronous call of a runner module function.
+     *
+     * @param <R> the return type of the called function
+     * @param call the call to make
+     * @return CompletionStage holding the result of the called function
+     */
+    @SuppressWarnings("unchecked")
+    public <R> CompletionStage<Result<R>> add(RunnerCall<R> call) {
+        Type xor = parameterizedType(null, Result.class, call.getReturnType().getType());
+        return add(call, Client.RUNNER, Optional.empty(), Collections.emptyMap(),
+                (TypeToken<Result<R>>) TypeToken.get(xor));
+    }
+
+    /**
+     * Adds a synchronous call of a wheel module function.
+     *
+     * @param <R> the return type of the called function
+     * @param call the call to make
+     * @return CompletionStage holding the result of the called function
+     */
+    @SuppressWarnings("unchecked")
+    public <R> CompletionStage<WheelResult<Result<R>>> add(WheelCall<R> call) {
+        Type xor = parameterizedType(null, Result.class, call.getReturnType().getType());
+        Type wheelResult = parameterizedType(null, WheelResult.class, xor);
+        return add(call, Client.WHEEL, Optional.empty(), Collections.emptyMap(),
+                (TypeToken<WheelResult<Result<R>>>) TypeToken.get(wheelResult));
+    }
+
+    /**
+     * Returns the number of calls in the batch.
+     *
+     * @return the number of calls
+     */
+    public synchronized int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Marks the batch as sent and returns its calls.
+     *
+     * @return the calls in the batch
+     */
+    synchronized List<Chunk<?>> send() {
+        if (sent) {
+            throw new IllegalStateException("Batch has already been sent");
+        }
+        sent = true;
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * Completes the CompletionStages of the calls with the results of the request.
+     *
+     * @param results the parsed elements of the return list or null on error
+     * @param error the error of the request or null on success
+     */
+    void complete(List<Object> results, Throwable error) {
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk<?> chunk = chunks.get(i);
+            if (error != null) {
+                chunk.completeExceptionally(error);
+            } else if (i < results.size()) {
+                chunk.complete(results.get(i));
+            } else {
+                chunk.completeExceptionally(
+                        new SaltException("No result returned for chunk " + i));
+            }
+        }
+    }
+}
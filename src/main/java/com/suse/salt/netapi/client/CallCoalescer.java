@@ -0,0 +1,169 @@
+package com.suse.salt.netapi.client;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.calls.Call;
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.target.Target;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects calls using the same credentials into a {@link CallBatch} which is sent once
+ * the configured window has passed since its first call or it is full.
+ */
+class CallCoalescer {
+
+    /**
+     * Calls waiting to be sent together with the timer sending them.
+     */
+    private static final class Pending {
+        private final CallBatch batch = new CallBatch();
+        private final AuthMethod auth;
+        private ScheduledFuture<?> timer;
+
+        private Pending(AuthMethod auth) {
+            this.auth = auth;
+        }
+    }
+
+    private final CoalescingConfig config;
+    private final BiConsumer<CallBatch, AuthMethod> sender;
+    private final ScheduledExecutorService timer;
+    private final Map<String, Pending> pending = new HashMap<>();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param config the coalescing configuration
+     * @param sender the function sending a batch of calls
+     */
+    CallCoalescer(CoalescingConfig config, BiConsumer<CallBatch, AuthMethod> sender) {
+        this.config = config;
+        this.sender = sender;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "salt-call-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks whether calls using the given client type may be coalesced.
+     *
+     * @param client the client type
+     * @return true if calls using the client are coalesced
+     */
+    boolean accepts(Client client) {
+        return !closed && config.getClients().contains(client);
+    }
+
+    /**
+     * Adds a call to the batch of calls using the same credentials.
+     *
+     * @param <R> the type of the result
+     * @param call the call to make
+     * @param client the client to use
+     * @param target the target of the call
+     * @param custom additional properties to send
+     * @param type the type of the element of the return list holding the result
+     * @param auth authentication credentials to use
+     * @return CompletionStage holding the result of the call
+     */
+    <R> CompletionStage<R> submit(Call<?> call, Client client, Optional<Target<?>> target,
+            Map<String, Object> custom, TypeToken<R> type, AuthMethod auth) {
+        String key = key(auth);
+        Pending full = null;
+        CompletionStage<R> result;
+        synchronized (pending) {
+            // a call submitted while closing is sent on its own
+            Pending current = closed ? new Pending(auth) :
+                    pending.computeIfAbsent(key, k -> new Pending(auth));
+            result = current.batch.add(call, client, target, custom, type);
+            if (closed || current.batch.size() >= config.getMaxChunks()) {
+                pending.remove(key);
+                full = current;
+            } else if (current.timer == null) {
+                current.timer = timer.schedule(() -> flush(key, current),
+                        config.getWindowMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            if (full.timer != null) {
+                full.timer.cancel(false);
+            }
+            send(full);
+        }
+        return result;
+    }
+
+    private void flush(String key, Pending expected) {
+        synchronized (pending) {
+            if (!pending.remove(key, expected)) {
+                // sent already because it was full
+                return;
+            }
+        }
+        send(expected);
+    }
+
+    private void send(Pending calls) {
+        try {
+            sender.accept(calls.batch, calls.auth);
+        } catch (RuntimeException e) {
+            calls.batch.complete(null, e);
+        }
+    }
+
+    /**
+     * Stops coalescing calls: the calls waiting for their window are sent right away and
+     * the timer thread is stopped. Calls accepted afterwards are sent on their own.
+     */
+    void close() {
+        List<Pending> remaining;
+        synchronized (pending) {
+            closed = true;
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        timer.shutdownNow();
+        remaining.forEach(this::send);
+    }
+
+    /**
+     * Calls can only be sent in one request if they use the same credentials. The
+     * password is only kept as a digest.
+     */
+    private static String key(AuthMethod auth) {
+        return auth.getInternal().fold(
+                token -> "token:" + token.getToken(),
+                pass -> "pass:" + pass.getModule().getValue() + ":" + pass.getUsername() +
+                        ":" + digest(pass.getPassword()));
+    }
+
+    private static String digest(String value) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(
+                    sha.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.suse.salt.netapi.client;
+
+import com.suse.salt.netapi.calls.Client;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Configuration for coalescing calls made through a {@link SaltClient} within a short
+ * time window into a single request containing several lowstate chunks.
+ * <p>
+ * Since the Salt API fails a request as a whole if one of its chunks fails, a failing
+ * call also fails the calls it was coalesced with. Only calls of clients returning a
+ * single entry per chunk can be coalesced, which excludes {@link Client#LOCAL_BATCH}
+ * returning an entry per batch and {@link Client#SSH}.
+ * <p>
+ * The Salt API runs the chunks of a request one after the other, so the latencies of
+ * coalesced calls add up. This is why only the short {@link Client#RUNNER} and
+ * {@link Client#WHEEL} calls are coalesced by default.
+ */
+public class CoalescingConfig {
+
+    /**
+     * Clients whose calls can never be coalesced.
+     */
+    private static final Set<Client> UNSUPPORTED = EnumSet.of(Client.LOCAL_BATCH, Client.SSH);
+
+    private final long windowMillis;
+    private final int maxChunks;
+    private final Set<Client> clients;
+
+    private CoalescingConfig(CoalescingConfigBuilder builder) {
+        this.windowMillis = builder.windowMillis;
+        this.maxChunks = builder.maxChunks;
+        this.clients = builder.clients;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public Set<Client> getClients() {
+        return clients;
+    }
+
+    /**
+     * Returns a CoalescingConfigBuilder for instantiating a custom config.
+     *
+     * @return a CoalescingConfigBuilder instance.
+     */
+    public static CoalescingConfigBuilder custom() {
+        return new CoalescingConfigBuilder();
+    }
+
+    /**
+     * Helper class for building a CoalescingConfig.
+     */
+    public static class CoalescingConfigBuilder {
+        private long windowMillis = 2;
+        private int maxChunks = 64;
+        private Set<Client> clients = EnumSet.of(Client.RUNNER, Client.WHEEL);
+
+        private CoalescingConfigBuilder() {
+        }
+
+        /**
+         * Sets the time the first call of a request waits for further calls to join it.
+         *
+         * @param value the window in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public CoalescingConfigBuilder withWindowMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid window");
+            }
+            this.windowMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of calls after which a request is sent without waiting for the
+         * end of the window.
+         *
+         * @param value the maximum number of chunks, which must be greater than 0
+         * @return the builder
+         */
+        public CoalescingConfigBuilder withMaxChunks(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid number of chunks");
+            }
+            this.maxChunks = value;
+            return this;
+        }
+
+        /**
+         * Sets the client types of calls that may be coalesced, calls using other
+         * clients are always sent on their own. Defaults to {@link Client#RUNNER} and
+         * {@link Client#WHEEL}.
+         * <p>
+         * Synchronous {@link Client#LOCAL} calls can be coalesced too, but as the Salt
+         * API runs the chunks of a request one after the other, each of them waiting for
+         * its job to finish, the request takes as long as all calls together. If it
+         * exceeds the socket timeout of the http client, all coalesced calls fail.
+         *
+         * @param values the client types, which must not include
+         * {@link Client#LOCAL_BATCH} or {@link Client#SSH}
+         * @return the builder
+         */
+        public CoalescingConfigBuilder withClients(Client... values) {
+            Set<Client> result = values.length == 0 ? EnumSet.noneOf(Client.class) :
+                    EnumSet.copyOf(Arrays.asList(values));
+            for (Client client : result) {
+                if (UNSUPPORTED.contains(client)) {
+                    throw new IllegalArgumentException("Calls of the " + client.getValue() +
+                            " client can not be coalesced");
+                }
+            }
+            this.clients = result;
+            return this;
+        }
+
+        /**
+         * Builds the CoalescingConfig.
+         *
+         * @return the CoalescingConfig
+         */
+        public CoalescingConfig build() {
+            return new CoalescingConfig(this);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.suse.salt.netapi.client;
+
+/**
+ * Configuration for limiting the number of concurrent requests to the Salt API with a
+ * {@link LimitingAsyncHttpClient}. The limit adapts between the minimum and maximum:
+ * it grows additively while requests succeed and shrinks multiplicatively when requests
+ * fail with a server error, can not reach the server or time out. Optionally, requests
+ * taking longer than a latency threshold count as a sign of overload as well.
+ */
+public class ConcurrencyLimitConfig {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdMillis;
+    private final int queueCapacity;
+    private final long queueTimeoutMillis;
+
+    private ConcurrencyLimitConfig(ConcurrencyLimitConfigBuilder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyThresholdMillis = builder.latencyThresholdMillis;
+        this.queueCapacity = builder.queueCapacity;
+        this.queueTimeoutMillis = builder.queueTimeoutMillis;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public long getLatencyThresholdMillis() {
+        return latencyThresholdMillis;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getQueueTimeoutMillis() {
+        return queueTimeoutMillis;
+    }
+
+    /**
+     * Returns a ConcurrencyLimitConfigBuilder for instantiating a custom config.
+     *
+     * @return a ConcurrencyLimitConfigBuilder instance.
+     */
+    public static ConcurrencyLimitConfigBuilder custom() {
+        return new ConcurrencyLimitConfigBuilder();
+    }
+
+    /**
+     * Helper class for building a ConcurrencyLimitConfig.
+     */
+    public static class ConcurrencyLimitConfigBuilder {
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private double backoffRatio = 0.75;
+        private long latencyThresholdMillis = 0;
+        private int queueCapacity = 1000;
+        private long queueTimeoutMillis = 30000;
+
+        private ConcurrencyLimitConfigBuilder() {
+        }
+
+        /**
+         * Sets the limit to start with.
+         *
+         * @param value the initial limit, which must be greater than 0
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withInitialLimit(int value) {
+            this.initialLimit = requirePositive(value, "limit");
+            return this;
+        }
+
+        /**
+         * Sets the limit below which the limit is never reduced.
+         *
+         * @param value the minimum limit, which must be greater than 0
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withMinLimit(int value) {
+            this.minLimit = requirePositive(value, "limit");
+            return this;
+        }
+
+        /**
+         * Sets the limit above which the limit is never increased.
+         *
+         * @param value the maximum limit, which must be greater than 0
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withMaxLimit(int value) {
+            this.maxLimit = requirePositive(value, "limit");
+            return this;
+        }
+
+        /**
+         * Sets the factor the limit is multiplied with on overload.
+         *
+         * @param value the ratio, which must be greater than 0 and less than 1
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withBackoffRatio(double value) {
+            if (value <= 0 || value >= 1) {
+                throw new IllegalArgumentException("Expected value between 0 and 1 to make " +
+                        "a valid backoff ratio");
+            }
+            this.backoffRatio = value;
+            return this;
+        }
+
+        /**
+         * Sets the latency above which a successful request is considered a sign of
+         * overload. Disabled by default since the latency of a request depends on the
+         * called function, it should be set above the latency of the slowest calls.
+         *
+         * @param value the latency in milliseconds, 0 or less to disable
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withLatencyThresholdMillis(long value) {
+            this.latencyThresholdMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests waiting for the limit, further requests
+         * fail immediately.
+         *
+         * @param value the queue capacity
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withQueueCapacity(int value) {
+            this.queueCapacity = value;
+            return this;
+        }
+
+        /**
+         * Sets the time after which a request waiting for the limit fails.
+         *
+         * @param value the time in milliseconds
+         * @return the builder
+         */
+        public ConcurrencyLimitConfigBuilder withQueueTimeoutMillis(long value) {
+            this.queueTimeoutMillis = value;
+            return this;
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid " + name);
+            }
+            return value;
+        }
+
+        /**
+         * Builds the ConcurrencyLimitConfig.
+         *
+         * @return the ConcurrencyLimitConfig
+         */
+        public ConcurrencyLimitConfig build() {
+            if (minLimit > maxLimit) {
+                throw new IllegalArgumentException("Minimum limit is greater than the " +
+                        "maximum limit");
+            }
+            initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+            return new ConcurrencyLimitConfig(this);
+        }
+    }
+}
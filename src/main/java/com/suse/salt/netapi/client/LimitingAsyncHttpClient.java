@@ -0,0 +1,298 @@
+package com.suse.salt.netapi.client;
+
+import com.suse.salt.netapi.datatypes.cherrypy.HttpServer;
+import com.suse.salt.netapi.datatypes.cherrypy.Stats;
+import com.suse.salt.netapi.exception.RequestRejectedException;
+import com.suse.salt.netapi.exception.SaltResponseException;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * AsyncHttpClient limiting the number of concurrent requests sent through another
+ * AsyncHttpClient. Requests beyond the limit wait in a bounded queue until a request
+ * completes or their queue timeout expires. The limit adapts to the observed latency
+ * and failures as described in {@link ConcurrencyLimitConfig} and can additionally be
+ * lowered based on the statistics of the CherryPy server, see
+ * {@link #monitor(SaltClient, Duration)}.
+ */
+public class LimitingAsyncHttpClient implements AsyncHttpClient {
+
+    /**
+     * A request waiting for the limit.
+     */
+    private static final class Queued {
+        private final Runnable start;
+        private final CompletableFuture<?> future;
+        private ScheduledFuture<?> timeout;
+
+        private Queued(Runnable start, CompletableFuture<?> future) {
+            this.start = start;
+            this.future = future;
+        }
+    }
+
+    private final AsyncHttpClient delegate;
+    private final ConcurrencyLimitConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final Deque<Queued> queue = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a limiting client.
+     *
+     * @param delegate the client to send the requests with
+     * @param config the limit configuration
+     */
+    public LimitingAsyncHttpClient(AsyncHttpClient delegate, ConcurrencyLimitConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+        this.limit = config.getInitialLimit();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "salt-concurrency-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<T> get(URI uri, Map<String, String> headers, JsonParser<T> parser) {
+        return submit(() -> delegate.get(uri, headers, parser));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<T> post(URI uri, Map<String, String> headers, String data,
+            JsonParser<T> parser) {
+        return submit(() -> delegate.post(uri, headers, data, parser));
+    }
+
+    private <T> CompletionStage<T> submit(Supplier<CompletionStage<T>> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable start = () -> send(request, future);
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+            } else if (closed || queue.size() >= config.getQueueCapacity()) {
+                future.completeExceptionally(new RequestRejectedException(
+                        "Request queue exceeded the configured capacity (" +
+                        config.getQueueCapacity() + " requests)"));
+                return future;
+            } else {
+                Queued queued = new Queued(start, future);
+                queue.addLast(queued);
+                queued.timeout = scheduler.schedule(() -> expire(queued),
+                        config.getQueueTimeoutMillis(), TimeUnit.MILLISECONDS);
+                future.whenComplete((result, error) -> {
+                    if (future.isCancelled()) {
+                        dequeue(queued);
+                    }
+                });
+                return future;
+            }
+        }
+        start.run();
+        return future;
+    }
+
+    private <T> void send(Supplier<CompletionStage<T>> request, CompletableFuture<T> future) {
+        long started = System.nanoTime();
+        CompletionStage<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            release(true);
+            future.completeExceptionally(e);
+            return;
+        }
+        response.whenComplete((result, error) -> {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            long threshold = config.getLatencyThresholdMillis();
+            release(isOverload(error) || (threshold > 0 && latency > threshold));
+            if (error != null) {
+                future.completeExceptionally(unwrap(error));
+            } else {
+                future.complete(result);
+            }
+        });
+        // cancelling the returned future aborts the request
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                response.toCompletableFuture().cancel(true);
+            }
+        });
+    }
+
+    private void expire(Queued queued) {
+        if (dequeue(queued)) {
+            queued.future.completeExceptionally(new RequestRejectedException(
+                    "Request waited longer than " + config.getQueueTimeoutMillis() + " ms"));
+        }
+    }
+
+    /**
+     * Removes a request from the queue without starting it.
+     *
+     * @return true if the request was still queued
+     */
+    private boolean dequeue(Queued queued) {
+        synchronized (this) {
+            if (!queue.remove(queued)) {
+                return false;
+            }
+        }
+        queued.timeout.cancel(false);
+        return true;
+    }
+
+    /**
+     * Adapts the limit to the outcome of a completed request and starts queued
+     * requests as far as the limit allows.
+     *
+     * @param overload true if the request indicates an overloaded server
+     */
+    private void release(boolean overload) {
+        Deque<Queued> ready = new ArrayDeque<>();
+        synchronized (this) {
+            inFlight--;
+            if (overload) {
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+            } else {
+                limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+            }
+            ready.addAll(startable());
+        }
+        ready.forEach(this::start);
+    }
+
+    /**
+     * Removes the queued requests that can be started within the limit.
+     * Needs to be called holding the lock.
+     */
+    private Deque<Queued> startable() {
+        Deque<Queued> ready = new ArrayDeque<>();
+        while (inFlight < (int) limit && !queue.isEmpty()) {
+            ready.add(queue.removeFirst());
+            inFlight++;
+        }
+        return ready;
+    }
+
+    private void start(Queued queued) {
+        queued.timeout.cancel(false);
+        queued.start.run();
+    }
+
+    /**
+     * Only server errors and failures to reach the server or to get a response in time
+     * indicate an overloaded server, client errors like a failed authentication do not.
+     */
+    private static boolean isOverload(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof IOException || cause instanceof TimeoutException ||
+                (cause instanceof SaltResponseException &&
+                        ((SaltResponseException) cause).getStatusCode() >= 500);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ?
+                error.getCause() : error;
+    }
+
+    /**
+     * Lowers the limit if the given statistics show that the CherryPy server has no idle
+     * worker threads left or requests are queued on it.
+     *
+     * @param stats the server statistics
+     */
+    public void onStats(Stats stats) {
+        HttpServer server = stats.getHttpServer();
+        if (server == null) {
+            return;
+        }
+        if (server.getQueue() > 0 || (server.getThreads() > 0 && server.getThreadsIdle() == 0)) {
+            synchronized (this) {
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+            }
+        }
+    }
+
+    /**
+     * Periodically requests the statistics of the CherryPy server using the given client
+     * and lowers the limit when the server is saturated, see {@link #onStats(Stats)}.
+     * The statistics requests count against the limit as well.
+     *
+     * @param client the client to request the statistics with
+     * @param interval the time between two requests
+     */
+    public void monitor(SaltClient client, Duration interval) {
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> client.stats().thenAccept(this::onStats),
+                millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops monitoring and fails all queued requests. Requests beyond the limit fail
+     * immediately afterwards.
+     */
+    public void shutdown() {
+        Deque<Queued> rejected;
+        synchronized (this) {
+            closed = true;
+            rejected = new ArrayDeque<>(queue);
+            queue.clear();
+        }
+        scheduler.shutdownNow();
+        rejected.forEach(queued -> queued.future.completeExceptionally(
+                new RequestRejectedException("Concurrency limiter has been shut down")));
+    }
+
+    /**
+     * Helper method that returns the current limit of concurrent requests.
+     *
+     * @return the limit
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Helper method that returns the number of requests currently sent.
+     *
+     * @return the number of requests in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Helper method that returns the number of requests waiting for the limit.
+     *
+     * @return the number of queued requests
+     */
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+}
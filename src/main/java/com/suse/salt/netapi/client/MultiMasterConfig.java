@@ -0,0 +1,114 @@
+package com.suse.salt.netapi.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configuration for routing calls across the Salt API instances of several masters
+ * with a {@link MultiMasterSaltClient}.
+ */
+public class MultiMasterConfig {
+
+    private final long healthCheckIntervalMillis;
+    private final int maxPinnedJobs;
+    private final Set<String> idempotentFunctions;
+
+    private MultiMasterConfig(MultiMasterConfigBuilder builder) {
+        this.healthCheckIntervalMillis = builder.healthCheckIntervalMillis;
+        this.maxPinnedJobs = builder.maxPinnedJobs;
+        this.idempotentFunctions = builder.idempotentFunctions;
+    }
+
+    public long getHealthCheckIntervalMillis() {
+        return healthCheckIntervalMillis;
+    }
+
+    public int getMaxPinnedJobs() {
+        return maxPinnedJobs;
+    }
+
+    public Set<String> getIdempotentFunctions() {
+        return idempotentFunctions;
+    }
+
+    /**
+     * Returns a MultiMasterConfigBuilder for instantiating a custom config.
+     *
+     * @return a MultiMasterConfigBuilder instance.
+     */
+    public static MultiMasterConfigBuilder custom() {
+        return new MultiMasterConfigBuilder();
+    }
+
+    /**
+     * Helper class for building a MultiMasterConfig.
+     */
+    public static class MultiMasterConfigBuilder {
+        private long healthCheckIntervalMillis = 5000;
+        private int maxPinnedJobs = 10000;
+        private Set<String> idempotentFunctions = Collections.unmodifiableSet(new HashSet<>(
+                Arrays.asList("jobs.lookup_jid", "jobs.list_job", "jobs.list_jobs",
+                        "jobs.active", "jobs.print_job", "manage.status", "manage.up",
+                        "manage.down", "manage.present", "manage.not_present",
+                        "key.list", "key.list_all", "key.finger",
+                        "key.print", "key.name_match", "minions.connected")));
+
+        private MultiMasterConfigBuilder() {
+        }
+
+        /**
+         * Sets the interval at which the masters are probed for being reachable.
+         *
+         * @param value the interval in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public MultiMasterConfigBuilder withHealthCheckIntervalMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid health check interval");
+            }
+            this.healthCheckIntervalMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of jids for which the master that published the job is
+         * remembered. The least recently published jobs are forgotten first.
+         *
+         * @param value the maximum number of pinned jobs, which must be greater than 0
+         * @return the builder
+         */
+        public MultiMasterConfigBuilder withMaxPinnedJobs(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid number of pinned jobs");
+            }
+            this.maxPinnedJobs = value;
+            return this;
+        }
+
+        /**
+         * Sets the runner and wheel functions that only read state on the master and may
+         * therefore be sent to another master if the first one can not be reached.
+         *
+         * @param functions the names of the functions, e.g. "jobs.lookup_jid"
+         * @return the builder
+         */
+        public MultiMasterConfigBuilder withIdempotentFunctions(String... functions) {
+            this.idempotentFunctions = Collections.unmodifiableSet(
+                    new HashSet<>(Arrays.asList(functions)));
+            return this;
+        }
+
+        /**
+         * Builds a MultiMasterConfig.
+         *
+         * @return the config
+         */
+        public MultiMasterConfig build() {
+            return new MultiMasterConfig(this);
+        }
+    }
+}
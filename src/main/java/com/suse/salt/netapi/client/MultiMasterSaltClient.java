@@ -0,0 +1,512 @@
+package com.suse.salt.netapi.client;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.AuthModule;
+import com.suse.salt.netapi.calls.Call;
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.calls.SaltSSHConfig;
+import com.suse.salt.netapi.calls.ScheduledJob;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.datatypes.cherrypy.Stats;
+import com.suse.salt.netapi.datatypes.target.Target;
+import com.suse.salt.netapi.event.EventDispatchConfig;
+import com.suse.salt.netapi.event.EventListener;
+import com.suse.salt.netapi.event.MergedEventStream;
+import com.suse.salt.netapi.event.SseEventStream;
+import com.suse.salt.netapi.event.WebSocketEventStream;
+import com.suse.salt.netapi.exception.SaltException;
+import com.suse.salt.netapi.parser.JsonParser;
+import com.suse.salt.netapi.results.Result;
+import com.suse.salt.netapi.results.Return;
+import com.suse.salt.netapi.results.SSHRawResult;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Salt API client for a multi-master setup with a Salt API instance on every master.
+ * <p>
+ * Every request is sent to the reachable master with the fewest outstanding requests.
+ * A master that can not be connected to is taken out of the rotation until a periodic
+ * health check reaches it again. Calls of the functions configured as idempotent with
+ * {@link MultiMasterConfig.MultiMasterConfigBuilder#withIdempotentFunctions(String...)}
+ * are retried on the other masters if a master can not be reached, all other calls
+ * fail with the connection error since they might have been executed already.
+ * <p>
+ * The master that published a job is remembered by the jid returned from an
+ * asynchronous call, and later calls looking up the job by its jid, like
+ * {@code jobs.lookup_jid}, are sent to that master while it is reachable.
+ * <p>
+ * Tokens returned by {@link #login(String, String, AuthModule)} are only accepted by
+ * all masters if they share their token storage (see the {@code eauth_tokens} master
+ * option), otherwise calls should authenticate with a
+ * {@link com.suse.salt.netapi.datatypes.PasswordAuth}.
+ */
+public class MultiMasterSaltClient extends SaltClient {
+
+    /**
+     * A master with its client and the number of requests currently sent to it.
+     */
+    private static class Master {
+        private final URI uri;
+        private final SaltClient client;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean healthy = true;
+
+        private Master(URI uri, SaltClient client) {
+            this.uri = uri;
+            this.client = client;
+        }
+    }
+
+    private final AsyncHttpClient asyncHttpClient;
+    private final MultiMasterConfig config;
+    private final List<Master> masters;
+    private final Map<String, Master> jobMasters;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for connecting to the Salt API instances at the given URLs.
+     *
+     * @param urls the Salt API URLs of the masters
+     * @param asyncHttpClient http client to use for the salt api
+     */
+    public MultiMasterSaltClient(List<URI> urls, AsyncHttpClient asyncHttpClient) {
+        this(urls, asyncHttpClient, MultiMasterConfig.custom().build());
+    }
+
+    /**
+     * Constructor for connecting to the Salt API instances at the given URLs.
+     *
+     * @param urls the Salt API URLs of the masters
+     * @param asyncHttpClient http client to use for the salt api
+     * @param config configuration of the routing
+     */
+    public MultiMasterSaltClient(List<URI> urls, AsyncHttpClient asyncHttpClient,
+            MultiMasterConfig config) {
+        super(first(urls), asyncHttpClient);
+        this.asyncHttpClient = asyncHttpClient;
+        this.config = config;
+        this.masters = urls.stream()
+                .map(url -> new Master(url.resolve("/"), new SaltClient(url, asyncHttpClient)))
+                .collect(Collectors.toList());
+        this.jobMasters = Collections.synchronizedMap(
+                new LinkedHashMap<String, Master>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Master> eldest) {
+                        return size() > config.getMaxPinnedJobs();
+                    }
+                });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "salt-master-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkHealth,
+                config.getHealthCheckIntervalMillis(), config.getHealthCheckIntervalMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static URI first(List<URI> urls) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("Expected at least one master URL");
+        }
+        return urls.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletionStage<Token> login(String username, String password, AuthModule eauth) {
+        return route(Optional.empty(), true, m -> m.client.login(username, password, eauth));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletionStage<Boolean> logout() {
+        return route(Optional.empty(), true, m -> m.client.logout());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<Map<String, Object>> run(String username, String password,
+            AuthModule eauth, String client, Target<T> target, String function,
+            List<Object> args, Map<String, Object> kwargs) {
+        boolean idempotent = (Client.RUNNER.getValue().equals(client) ||
+                Client.WHEEL.getValue().equals(client)) &&
+                config.getIdempotentFunctions().contains(function);
+        return route(Optional.empty(), idempotent, m -> m.client.run(username, password,
+                eauth, client, target, function, args, kwargs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<Map<String, Result<SSHRawResult>>> runRawSSHCommand(
+            String command, Target<T> target, SaltSSHConfig cfg) {
+        return route(Optional.empty(), false,
+                m -> m.client.runRawSSHCommand(command, target, cfg));
+    }
+
+    /**
+     * Query statistics from the CherryPy Server of one of the masters.
+     * <p>
+     * {@code GET /stats}
+     *
+     * @return the stats
+     */
+    @Override
+    public CompletionStage<Stats> stats() {
+        return route(Optional.empty(), true, m -> m.client.stats());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stream is connected to the first reachable master, preferring the one with
+     * the fewest outstanding requests. It only receives the events of that master.
+     */
+    @Override
+    public WebSocketEventStream events(Token token, long sessionIdleTimeout,
+            long idleTimeout, int maxMsgSize, EventListener... listeners)
+            throws SaltException {
+        return connect(m -> m.client.events(token, sessionIdleTimeout, idleTimeout,
+                maxMsgSize, listeners));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stream is connected to the first reachable master, preferring the one with
+     * the fewest outstanding requests. It only receives the events of that master.
+     */
+    @Override
+    public WebSocketEventStream events(Token token, long sessionIdleTimeout,
+            long idleTimeout, int maxMsgSize, EventDispatchConfig dispatchConfig,
+            EventListener... listeners) throws SaltException {
+        return connect(m -> m.client.events(token, sessionIdleTimeout, idleTimeout,
+                maxMsgSize, dispatchConfig, listeners));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stream is connected to the master with the fewest outstanding requests,
+     * preferring healthy ones. It only receives the events of that master.
+     */
+    @Override
+    public SseEventStream serverSentEvents(Token token, int maxMsgSize,
+            EventListener... listeners) {
+        Master master = select(Optional.empty(), Collections.emptySet()).get();
+        return master.client.serverSentEvents(token, maxMsgSize, listeners);
+    }
+
+    /**
+     * Returns a stream merging the events of all masters that can be connected to,
+     * passing on only the first copy of events received from several masters. Listeners
+     * are notified until the connections to all masters are closed.
+     * <p>
+     * {@code GET /events}
+     *
+     * @param token salt session token accepted by all masters
+     * @param sessionIdleTimeout session idle timeout to pass to the http client config
+     * @param idleTimeout idle timeout to pass to the http client config
+     * @param maxMsgSize maximum event data size to accept
+     * @param listeners event listeners to be added to the merged stream
+     * @return the merged event stream
+     * @throws SaltException if none of the masters could be connected to
+     */
+    public MergedEventStream mergedEvents(Token token, long sessionIdleTimeout,
+            long idleTimeout, int maxMsgSize, EventListener... listeners)
+            throws SaltException {
+        List<WebSocketEventStream> streams = new ArrayList<>(masters.size());
+        SaltException lastError = null;
+        for (Master master : masters) {
+            try {
+                streams.add(master.client.events(token, sessionIdleTimeout, idleTimeout,
+                        maxMsgSize));
+            } catch (SaltException e) {
+                lastError = e;
+            }
+        }
+        if (streams.isEmpty()) {
+            throw lastError;
+        }
+        MergedEventStream merged = new MergedEventStream(streams);
+        for (EventListener listener : listeners) {
+            merged.addEventListener(listener);
+        }
+        return merged;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <R> CompletionStage<R> call(Call<?> call, Client client, Optional<Target<?>> target,
+            Map<String, Object> custom, TypeToken<R> type, AuthMethod auth) {
+        return route(pinned(call), isIdempotent(call, client),
+                m -> pin(m, m.client.call(call, client, target, custom, type, auth)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <R> CompletionStage<R> call(Call<?> call, Client client, Optional<Target<?>> target,
+            Map<String, Object> custom, JsonParser<R> parser, AuthMethod auth) {
+        return route(pinned(call), isIdempotent(call, client),
+                m -> pin(m, m.client.call(call, client, target, custom, parser, auth)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The batch is sent to the master that published the job looked up by one of its
+     * calls if there is one. It is only retried on another master if all of its calls
+     * are idempotent.
+     */
+    @Override
+    public CompletionStage<Void> callBatch(CallBatch batch, AuthMethod auth) {
+        List<CallBatch.Chunk<?>> chunks = batch.send();
+        if (chunks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Optional<Master> pinned = chunks.stream()
+                .map(c -> pinned(c.getCall()))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst();
+        boolean idempotent = chunks.stream()
+                .allMatch(c -> isIdempotent(c.getCall(), c.getClient()));
+
+        return route(pinned, idempotent, m -> {
+            // a batch can only be sent once, so every attempt sends a copy of it
+            CallBatch copy = new CallBatch();
+            List<CompletionStage<?>> results = new ArrayList<>(chunks.size());
+            chunks.forEach(c -> results.add(copy.add(c.getCall(), c.getClient(),
+                    c.getTarget(), c.getCustom(), c.getType())));
+            return m.client.callBatch(copy, auth).thenApply(v -> results);
+        }).handle((results, error) -> {
+            if (error != null) {
+                batch.complete(null, unwrap(error));
+            } else {
+                for (int i = 0; i < chunks.size(); i++) {
+                    CallBatch.Chunk<?> chunk = chunks.get(i);
+                    results.get(i).whenComplete((r, e) -> {
+                        if (e == null) {
+                            chunk.complete(r);
+                        } else {
+                            chunk.completeExceptionally(unwrap(e));
+                        }
+                    });
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sends a request to the preferred master, retrying it on the others if it is
+     * idempotent and the master can not be reached.
+     */
+    private <T> CompletionStage<T> route(Optional<Master> pinned, boolean idempotent,
+            Function<Master, CompletionStage<T>> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        attempt(pinned, idempotent, request, new HashSet<>(), null, future);
+        return future;
+    }
+
+    private <T> void attempt(Optional<Master> pinned, boolean idempotent,
+            Function<Master, CompletionStage<T>> request, Set<Master> tried,
+            Throwable lastError, CompletableFuture<T> future) {
+        Optional<Master> master = select(pinned, tried);
+        if (!master.isPresent()) {
+            future.completeExceptionally(lastError);
+            return;
+        }
+        Master m = master.get();
+        tried.add(m);
+        m.outstanding.incrementAndGet();
+
+        CompletionStage<T> response;
+        try {
+            response = request.apply(m);
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            response = failed;
+        }
+        response.whenComplete((result, error) -> {
+            m.outstanding.decrementAndGet();
+            if (error == null) {
+                m.healthy = true;
+                future.complete(result);
+            } else if (isConnectionFailure(error)) {
+                m.healthy = false;
+                if (idempotent) {
+                    attempt(pinned, true, request, tried, unwrap(error), future);
+                } else {
+                    future.completeExceptionally(unwrap(error));
+                }
+            } else {
+                future.completeExceptionally(unwrap(error));
+            }
+        });
+    }
+
+    /**
+     * Returns the pinned master if it is healthy and has not been tried yet, otherwise
+     * the untried master with the fewest outstanding requests, preferring healthy ones.
+     */
+    private Optional<Master> select(Optional<Master> pinned, Set<Master> tried) {
+        if (pinned.isPresent() && pinned.get().healthy && !tried.contains(pinned.get())) {
+            return pinned;
+        }
+        Comparator<Master> order = Comparator.<Master, Boolean>comparing(m -> !m.healthy)
+                .thenComparingInt(m -> m.outstanding.get());
+        return masters.stream()
+                .filter(m -> !tried.contains(m))
+                .min(order);
+    }
+
+    private WebSocketEventStream connect(EventStreamFactory factory) throws SaltException {
+        SaltException lastError = null;
+        Set<Master> tried = new HashSet<>();
+        Optional<Master> master;
+        while ((master = select(Optional.empty(), tried)).isPresent()) {
+            tried.add(master.get());
+            try {
+                return factory.create(master.get());
+            } catch (SaltException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Opens an event stream on a master.
+     */
+    @FunctionalInterface
+    private interface EventStreamFactory {
+        WebSocketEventStream create(Master master) throws SaltException;
+    }
+
+    private boolean isIdempotent(Call<?> call, Client client) {
+        return (client == Client.RUNNER || client == Client.WHEEL) &&
+                config.getIdempotentFunctions().contains(call.getPayload().get("fun"));
+    }
+
+    /**
+     * Returns the master that published the job a call refers to by its jid.
+     */
+    private Optional<Master> pinned(Call<?> call) {
+        Object kwargs = call.getPayload().get("kwarg");
+        if (kwargs instanceof Map) {
+            Object jid = ((Map<?, ?>) kwargs).get("jid");
+            if (jid instanceof String) {
+                return Optional.ofNullable(jobMasters.get(jid));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Remembers the master for the jobs contained in the result of an asynchronous call.
+     */
+    private <R> CompletionStage<R> pin(Master master, CompletionStage<R> response) {
+        return response.thenApply(result -> {
+            if (result instanceof Return && ((Return<?>) result).getResult() instanceof List) {
+                for (Object element : (List<?>) ((Return<?>) result).getResult()) {
+                    if (element instanceof ScheduledJob &&
+                            ((ScheduledJob<?>) element).getJid() != null) {
+                        jobMasters.put(((ScheduledJob<?>) element).getJid(), master);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Probes every master and marks it as healthy if it responds at all, since even an
+     * error response shows that the Salt API is reachable.
+     */
+    private void checkHealth() {
+        masters.forEach(m -> asyncHttpClient.get(m.uri, JsonParser.STRING)
+                .whenComplete((result, error) -> {
+                    m.healthy = error == null || !isConnectionFailure(error);
+                }));
+    }
+
+    private static boolean isConnectionFailure(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof IOException || cause instanceof TimeoutException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ?
+                error.getCause() : error;
+    }
+
+    /**
+     * Returns whether the master at the given URL is currently considered reachable.
+     *
+     * @param url the Salt API URL of the master
+     * @return true if the master is known and healthy
+     */
+    public boolean isHealthy(URI url) {
+        URI base = url.resolve("/");
+        return masters.stream().anyMatch(m -> m.uri.equals(base) && m.healthy);
+    }
+
+    /**
+     * Returns the number of requests currently sent to the master at the given URL.
+     *
+     * @param url the Salt API URL of the master
+     * @return the number of outstanding requests
+     */
+    public int getOutstanding(URI url) {
+        URI base = url.resolve("/");
+        return masters.stream()
+                .filter(m -> m.uri.equals(base))
+                .mapToInt(m -> m.outstanding.get())
+                .sum();
+    }
+
+    /**
+     * Stops the health checks.
+     */
+    @Override
+    public void close() {
+        super.close();
+        scheduler.shutdownNow();
+    }
+}
@@ -12,29 +12,40 @@ import com.suse.salt.netapi.datatypes.AuthMethod;
 import com.suse.salt.netapi.datatypes.Token;
 import com.suse.salt.netapi.datatypes.cherrypy.Stats;
 import com.suse.salt.netapi.datatypes.target.Target;
+import com.suse.salt.netapi.event.EventDispatchConfig;
 import com.suse.salt.netapi.event.EventListener;
+import com.suse.salt.netapi.event.SseEventStream;
 import com.suse.salt.netapi.event.WebSocketEventStream;
 import com.suse.salt.netapi.exception.SaltException;
 import com.suse.salt.netapi.parser.JsonParser;
+import com.suse.salt.netapi.parser.ReturnListParser;
 import com.suse.salt.netapi.results.Result;
+import com.suse.salt.netapi.results.Return;
 import com.suse.salt.netapi.results.SSHRawResult;
 
+import java.io.Closeable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 /**
  * Salt API client.
  */
-public class SaltClient {
+public class SaltClient implements Closeable {
 
     /** The async connection factory object */
     private final AsyncHttpClient asyncHttpClient;
     private final URI uri;
+    private final Optional<CallCoalescer> coalescer;
 
     private final Gson gson = new GsonBuilder().create();
 
@@ -47,6 +58,37 @@ public class SaltClient {
     public SaltClient(URI url, AsyncHttpClient asyncHttpClient) {
         this.uri = url.resolve("/");
         this.asyncHttpClient = asyncHttpClient;
+        this.coalescer = Optional.empty();
+    }
+
+    /**
+     * Constructor for connecting to a given URL, coalescing calls made within a short
+     * time window into a single request. Only calls made through
+     * {@link #call(Call, Client, Optional, Map, TypeToken, AuthMethod)} expecting a
+     * return list are coalesced, which by default includes the calls of
+     * {@link com.suse.salt.netapi.calls.RunnerCall} and
+     * {@link com.suse.salt.netapi.calls.WheelCall}. Calls of
+     * {@link com.suse.salt.netapi.calls.LocalCall} are coalesced if enabled in the
+     * config, batch and ssh calls are always sent on their own.
+     *
+     * @param asyncHttpClient http client to use for the salt api
+     * @param url the Salt API URL
+     * @param coalescingConfig configuration of the coalescing
+     */
+    public SaltClient(URI url, AsyncHttpClient asyncHttpClient,
+            CoalescingConfig coalescingConfig) {
+        this.uri = url.resolve("/");
+        this.asyncHttpClient = asyncHttpClient;
+        this.coalescer = Optional.of(new CallCoalescer(coalescingConfig, this::callBatch));
+    }
+
+    /**
+     * Stops coalescing calls, sending the calls waiting to be coalesced right away.
+     * The http client is not closed since it is passed in by the caller.
+     */
+    @Override
+    public void close() {
+        coalescer.ifPresent(CallCoalescer::close);
     }
 
     /**
@@ -196,13 +238,144 @@ public class SaltClient {
         return new WebSocketEventStream(uri, token, sessionIdleTimeout, idleTimeout, maxMsgSize, listeners);
     }
 
+    /**
+     * Returns a WebSocket @ClientEndpoint annotated object connected to the /ws
+     * ServerEndpoint, notifying listeners asynchronously through a bounded queue so that
+     * slow listeners do not stall reading from the websocket.
+     * <p>
+     * Note: {@link SaltClient#login(String, String, AuthModule)} or must be called prior
+     * to calling this method.
+     * <p>
+     * {@code GET /events}
+     *
+     * @param listeners event listeners to be added before the stream is initialized
+     * @param idleTimeout idle timeout to pass to the http client config
+     * @param maxMsgSize maximum event data size to accept
+     * @param sessionIdleTimeout session idle timeout to pass to the http client config
+     * @param token salt session token to use for authentication
+     * @param dispatchConfig configuration of the event dispatch queue
+     * @return the event stream
+     * @throws SaltException in case of an error during websocket stream initialization
+     */
+    public WebSocketEventStream events(Token token, long sessionIdleTimeout, long idleTimeout,
+                       int maxMsgSize, EventDispatchConfig dispatchConfig, EventListener... listeners)
+            throws SaltException {
+        return new WebSocketEventStream(uri, token, sessionIdleTimeout, idleTimeout, maxMsgSize,
+                Optional.of(dispatchConfig), listeners);
+    }
+
+    /**
+     * Returns an event stream receiving the server-sent events of the /events endpoint
+     * through the http client of this SaltClient instead of a WebSocket connection.
+     * The http client must parse responses while they are received.
+     * <p>
+     * {@code GET /events}
+     *
+     * @param token salt session token to use for authentication
+     * @param maxMsgSize maximum event data size to accept in bytes
+     * @param listeners event listeners to be added before the stream is initialized
+     * @return the event stream
+     */
+    public SseEventStream serverSentEvents(Token token, int maxMsgSize,
+            EventListener... listeners) {
+        return new SseEventStream(uri, token, asyncHttpClient, maxMsgSize, listeners);
+    }
+
     public <R> CompletionStage<R> call(Call<?> call, Client client, Optional<Target<?>> target,
                 Map<String, Object> custom, TypeToken<R> type, AuthMethod auth) {
+        if (coalescer.isPresent() && coalescer.get().accepts(client)) {
+            Optional<TypeToken<?>> elementType = returnListElementType(type);
+            if (elementType.isPresent()) {
+                @SuppressWarnings("unchecked")
+                CompletionStage<R> result = coalescer.get()
+                        .submit(call, client, target, custom, elementType.get(), auth)
+                        .thenApply(element -> (R) new Return<>(
+                                Collections.singletonList(element)));
+                return result;
+            }
+        }
+        return call(call, client, target, custom, new JsonParser<>(type), auth);
+    }
+
+    /**
+     * Returns the element type if the given type is a return list of the form
+     * {@code Return<List<T>>}, which can be sent as part of a batch.
+     */
+    private static Optional<TypeToken<?>> returnListElementType(TypeToken<?> type) {
+        if (type.getRawType() == Return.class &&
+                type.getType() instanceof ParameterizedType) {
+            Type list = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+            if (list instanceof ParameterizedType &&
+                    ((ParameterizedType) list).getRawType() == List.class) {
+                return Optional.of(TypeToken.get(
+                        ((ParameterizedType) list).getActualTypeArguments()[0]));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Generic interface to make a call using the given parser for the response.
+     *
+     * @param <R> type the response is parsed into
+     * @param call the call to make
+     * @param client the client to use
+     * @param target the target of the call
+     * @param custom additional properties to send
+     * @param parser the parser to use for the response json
+     * @param auth authentication credentials to use
+     * @return CompletionStage holding the parsed response
+     */
+    public <R> CompletionStage<R> call(Call<?> call, Client client, Optional<Target<?>> target,
+                Map<String, Object> custom, JsonParser<R> parser, AuthMethod auth) {
+        Map<String, Object> props = chunk(call, client, target, custom, auth);
+        String payload = gson.toJson(List.of(props));
+        return asyncHttpClient.post(endpoint(auth), headers(auth), payload, parser);
+    }
+
+    /**
+     * Sends all calls of the given batch as lowstate chunks of a single request. The
+     * CompletionStages returned when adding the calls to the batch are completed with
+     * their results once the response has been parsed.
+     *
+     * @param batch the calls to make
+     * @param auth authentication credentials to use
+     * @return CompletionStage that is completed once the results of all calls are known
+     */
+    public CompletionStage<Void> callBatch(CallBatch batch, AuthMethod auth) {
+        List<CallBatch.Chunk<?>> chunks = batch.send();
+        if (chunks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<Map<String, Object>> props = new ArrayList<>(chunks.size());
+        List<TypeToken<?>> types = new ArrayList<>(chunks.size());
+        chunks.forEach(c -> {
+            props.add(chunk(c.getCall(), c.getClient(), c.getTarget(), c.getCustom(), auth));
+            types.add(c.getType());
+        });
+        String payload = gson.toJson(props);
+
+        return asyncHttpClient.post(endpoint(auth), headers(auth), payload,
+                new ReturnListParser(types))
+                .handle((results, error) -> {
+                    batch.complete(results, error);
+                    return null;
+                });
+    }
+
+    private Map<String, String> headers(AuthMethod auth) {
         Map<String, String> headers = new HashMap<>();
-        Map<String, Object> props = new HashMap<>();
         auth.getInternal().consume(token -> {
             headers.put("X-Auth-Token", token.getToken());
-        }, pass -> {
+        }, pass -> { });
+        return headers;
+    }
+
+    private Map<String, Object> chunk(Call<?> call, Client client, Optional<Target<?>> target,
+            Map<String, Object> custom, AuthMethod auth) {
+        Map<String, Object> props = new HashMap<>();
+        auth.getInternal().consume(token -> { }, pass -> {
                 props.put("username", pass.getUsername());
                 props.put("password", pass.getPassword());
                 props.put("eauth", pass.getModule().getValue());
@@ -212,10 +385,11 @@ public class SaltClient {
         props.put("client", client.getValue());
         props.putAll(call.getPayload());
         props.putAll(custom);
-        String payload = gson.toJson(List.of(props));
+        return props;
+    }
 
-        URI endpoint = auth.getInternal().isRight() ? uri.resolve("run") : uri;
-        return asyncHttpClient.post(endpoint, headers, payload, new JsonParser<>(type));
+    private URI endpoint(AuthMethod auth) {
+        return auth.getInternal().isRight() ? uri.resolve("run") : uri;
     }
 
 }
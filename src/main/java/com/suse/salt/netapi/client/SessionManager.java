@@ -0,0 +1,202 @@
+package com.suse.salt.netapi.client;
+
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.PasswordAuth;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.exception.SaltUserUnauthorizedException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Provides token based {@link AuthMethod}s for given password credentials, so the
+ * external authentication on the master happens once per session instead of once per
+ * call. Concurrent callers share a single login, tokens are renewed in the background
+ * shortly before they expire, and calls failing as unauthorized are retried once with
+ * a new token.
+ */
+public class SessionManager implements Closeable {
+
+    /** Default time before the expiry of a token at which it is renewed */
+    public static final Duration DEFAULT_RENEW_BEFORE = Duration.ofMinutes(5);
+
+    private final SaltClient client;
+    private final PasswordAuth credentials;
+    private final long renewBeforeMillis;
+    private final ScheduledExecutorService scheduler;
+
+    /** The current login, either in progress or done */
+    private final AtomicReference<CompletableFuture<Token>> session = new AtomicReference<>();
+
+    /**
+     * Creates a session manager renewing tokens {@link #DEFAULT_RENEW_BEFORE} before
+     * they expire.
+     *
+     * @param client the client to log in with
+     * @param credentials the credentials to log in with
+     */
+    public SessionManager(SaltClient client, PasswordAuth credentials) {
+        this(client, credentials, DEFAULT_RENEW_BEFORE);
+    }
+
+    /**
+     * Creates a session manager.
+     *
+     * @param client the client to log in with
+     * @param credentials the credentials to log in with
+     * @param renewBefore time before the expiry of a token at which it is renewed
+     */
+    public SessionManager(SaltClient client, PasswordAuth credentials, Duration renewBefore) {
+        this.client = client;
+        this.credentials = credentials;
+        this.renewBeforeMillis = renewBefore.toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "salt-session-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the authentication for the current session, logging in if there is no
+     * session yet, the last login failed or the token has expired.
+     *
+     * @return CompletionStage holding the token based authentication
+     */
+    public CompletionStage<AuthMethod> getAuthMethod() {
+        return getToken().thenApply(AuthMethod::new);
+    }
+
+    /**
+     * Makes a call with the authentication of the current session. If the call fails
+     * because the token is not accepted it is repeated once after logging in again. A
+     * failing login is not repeated, so wrong credentials fail the call right away.
+     *
+     * @param <T> the result type of the call
+     * @param call function making the call with the given authentication
+     * @return CompletionStage holding the result of the call
+     */
+    public <T> CompletionStage<T> call(Function<AuthMethod, CompletionStage<T>> call) {
+        CompletableFuture<Token> login = current();
+        return login.thenCompose(token -> call.apply(new AuthMethod(token)))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(result);
+                    } else if (!login.isCompletedExceptionally() &&
+                            unwrap(error) instanceof SaltUserUnauthorizedException) {
+                        // only the call was rejected, a failed login is not repeated
+                        return relogin(login).thenCompose(token ->
+                                call.apply(new AuthMethod(token)));
+                    } else {
+                        return CompletableFuture.<T>failedFuture(unwrap(error));
+                    }
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Returns the token of the current session, logging in if necessary.
+     *
+     * @return CompletionStage holding the token
+     */
+    public CompletionStage<Token> getToken() {
+        return current();
+    }
+
+    private CompletableFuture<Token> current() {
+        CompletableFuture<Token> login = session.get();
+        if (login != null && isUsable(login)) {
+            return login;
+        }
+        return relogin(login);
+    }
+
+    private static boolean isUsable(CompletableFuture<Token> login) {
+        if (!login.isDone()) {
+            return true;
+        }
+        if (login.isCompletedExceptionally()) {
+            return false;
+        }
+        Token token = login.join();
+        return token.getExpire() == null ||
+                token.getExpire().getTime() > System.currentTimeMillis();
+    }
+
+    /**
+     * Replaces the given login with a new one, unless another caller did so already.
+     *
+     * @param previous the login to replace
+     * @return the new login
+     */
+    private CompletableFuture<Token> relogin(CompletableFuture<Token> previous) {
+        CompletableFuture<Token> next = new CompletableFuture<>();
+        if (!session.compareAndSet(previous, next)) {
+            CompletableFuture<Token> other = session.get();
+            return other != null ? other : relogin(null);
+        }
+        login(next);
+        return next;
+    }
+
+    private void login(CompletableFuture<Token> target) {
+        client.login(credentials.getUsername(), credentials.getPassword(),
+                credentials.getModule())
+                .whenComplete((token, error) -> {
+                    if (error != null) {
+                        target.completeExceptionally(unwrap(error));
+                    } else {
+                        target.complete(token);
+                        scheduleRenewal(target, token);
+                    }
+                });
+    }
+
+    /**
+     * Schedules logging in again shortly before the token expires. The current token
+     * keeps being used until the new login succeeded.
+     */
+    private void scheduleRenewal(CompletableFuture<Token> login, Token token) {
+        if (token.getExpire() == null || scheduler.isShutdown()) {
+            return;
+        }
+        long remaining = token.getExpire().getTime() - System.currentTimeMillis();
+        long delay = remaining > renewBeforeMillis ? remaining - renewBeforeMillis :
+                remaining / 2;
+        scheduler.schedule(() -> renew(login), Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(CompletableFuture<Token> login) {
+        if (session.get() != login) {
+            return;
+        }
+        CompletableFuture<Token> next = new CompletableFuture<>();
+        next.whenComplete((token, error) -> {
+            if (error == null) {
+                session.compareAndSet(login, next);
+            }
+        });
+        login(next);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ?
+                error.getCause() : error;
+    }
+
+    /**
+     * Stops renewing tokens in the background.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
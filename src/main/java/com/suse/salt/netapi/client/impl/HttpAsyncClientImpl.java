@@ -2,6 +2,7 @@ package com.suse.salt.netapi.client.impl;
 
 import com.suse.salt.netapi.client.AsyncHttpClient;
 import com.suse.salt.netapi.exception.SaltException;
+import com.suse.salt.netapi.exception.SaltResponseException;
 import com.suse.salt.netapi.exception.SaltUserUnauthorizedException;
 import com.suse.salt.netapi.parser.JsonParser;
 import org.apache.http.HttpHeaders;
@@ -14,14 +15,19 @@ import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.nio.protocol.HttpAsyncMethods;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -33,6 +39,12 @@ public class HttpAsyncClientImpl implements AsyncHttpClient {
     /** HTTP client instance */
     private final HttpAsyncClient httpClient;
 
+    /** Executor for parsing responses and completing the returned CompletionStages */
+    private final Optional<Executor> parseExecutor;
+
+    /** Whether responses are parsed while they are received */
+    private final boolean streaming;
+
     /**
      * Init a connection to a given Salt API endpoint.
      *
@@ -40,6 +52,39 @@ public class HttpAsyncClientImpl implements AsyncHttpClient {
      */
     public HttpAsyncClientImpl(HttpAsyncClient httpClientIn) {
         httpClient = httpClientIn;
+        parseExecutor = Optional.empty();
+        streaming = false;
+    }
+
+    /**
+     * Init a connection to a given Salt API endpoint parsing responses while they are
+     * received instead of buffering them in memory first. Parsing blocks while waiting
+     * for data, so the executor should not be shared with non-blocking tasks.
+     *
+     * @param httpClientIn the HTTP client
+     * @param parseExecutorIn the executor to run the response parsing on
+     */
+    public HttpAsyncClientImpl(HttpAsyncClient httpClientIn, Executor parseExecutorIn) {
+        this(httpClientIn, parseExecutorIn, true);
+    }
+
+    /**
+     * Init a connection to a given Salt API endpoint parsing responses on the given
+     * executor instead of the I/O dispatcher threads of the HTTP client, which then only
+     * receive data. The returned CompletionStages are completed on the executor as well,
+     * so dependent stages do not run on the I/O dispatcher threads either.
+     *
+     * @param httpClientIn the HTTP client
+     * @param parseExecutorIn the executor to run the response parsing on
+     * @param streamingIn true to parse responses while they are received, blocking the
+     * executor while waiting for data, false to parse them once they have been received
+     * completely
+     */
+    public HttpAsyncClientImpl(HttpAsyncClient httpClientIn, Executor parseExecutorIn,
+            boolean streamingIn) {
+        httpClient = httpClientIn;
+        parseExecutor = Optional.of(parseExecutorIn);
+        streaming = streamingIn;
     }
 
     /**
@@ -65,7 +110,10 @@ public class HttpAsyncClientImpl implements AsyncHttpClient {
      * @return CompletionStage holding object of type T
      */
     private <T> CompletionStage<T> request(URI uri, Map<String, String> headers, String data, JsonParser<T> parser) {
-        return executeRequest(httpClient, prepareRequest(uri, headers, data), parser);
+        HttpUriRequest httpRequest = prepareRequest(uri, headers, data);
+        return streaming ?
+                executeStreamingRequest(httpClient, httpRequest, parser, parseExecutor.get()) :
+                executeRequest(httpClient, httpRequest, parser, parseExecutor.orElse(Runnable::run));
     }
 
     /**
@@ -97,40 +145,106 @@ public class HttpAsyncClientImpl implements AsyncHttpClient {
      *
      * @param httpClient the client to use for the request
      * @param httpRequest the prepared request to perform
+     * @param executor the executor to parse the response and complete the result on
      * @return CompletionStage holding object of type T
      */
     private <T> CompletionStage<T> executeRequest(HttpAsyncClient httpClient,
-            HttpUriRequest httpRequest, JsonParser<T> parser) {
+            HttpUriRequest httpRequest, JsonParser<T> parser, Executor executor) {
         CompletableFuture<T> future = new CompletableFuture<>();
-        httpClient.execute(httpRequest, new FutureCallback<HttpResponse>() {
+        Future<HttpResponse> execution = httpClient.execute(httpRequest, new FutureCallback<HttpResponse>() {
             @Override
             public void failed(Exception e) {
-                future.completeExceptionally(e);
+                completeOn(executor, future, () -> future.completeExceptionally(e));
             }
 
             @Override
             public void completed(HttpResponse response) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                if (statusCode == HttpStatus.SC_OK ||
-                        statusCode == HttpStatus.SC_ACCEPTED) {
-
-                    // Parse result type from the returned JSON
-                    try {
-                        T result = parser.parse(response.getEntity().getContent());
-                        future.complete(result);
-                    } catch (Exception e) {
-                        future.completeExceptionally(e);
+                completeOn(executor, future, () -> {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    if (statusCode == HttpStatus.SC_OK ||
+                            statusCode == HttpStatus.SC_ACCEPTED) {
+
+                        // Parse result type from the returned JSON
+                        try {
+                            T result = parser.parse(response.getEntity().getContent());
+                            future.complete(result);
+                        } catch (Exception e) {
+                            future.completeExceptionally(e);
+                        }
+                    } else {
+                        future.completeExceptionally(createSaltException(response));
                     }
-                } else {
-                    future.completeExceptionally(createSaltException(response));
-                }
+                });
+            }
+
+            @Override
+            public void cancelled() {
+                completeOn(executor, future, () -> future.cancel(false));
+            }
+        });
+        abortOnCancel(future, execution);
+
+        return future;
+    }
+
+    /**
+     * Aborts the execution of the request if the returned future is cancelled, which
+     * ends long running responses like event streams.
+     */
+    private static void abortOnCancel(CompletableFuture<?> future, Future<?> execution) {
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                execution.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Runs the given action completing the future on the executor, completing the future
+     * exceptionally if the executor does not accept it.
+     */
+    private static void completeOn(Executor executor, CompletableFuture<?> future,
+            Runnable action) {
+        try {
+            executor.execute(action);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executes a prepared HTTP request using the given client, parsing the response
+     * while it is received.
+     *
+     * @param httpClient the client to use for the request
+     * @param httpRequest the prepared request to perform
+     * @param executor the executor to run the parser on
+     * @return CompletionStage holding object of type T
+     */
+    private <T> CompletionStage<T> executeStreamingRequest(HttpAsyncClient httpClient,
+            HttpUriRequest httpRequest, JsonParser<T> parser, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        JsonResponseConsumer<T> consumer = new JsonResponseConsumer<>(parser, executor, future);
+        HttpAsyncRequestProducer producer = HttpAsyncMethods.create(httpRequest);
+        Future<Void> execution = httpClient.execute(producer, consumer, new FutureCallback<Void>() {
+            @Override
+            public void failed(Exception e) {
+                completeOn(executor, future, () -> future.completeExceptionally(e));
+                consumer.abort();
+            }
+
+            @Override
+            public void completed(Void result) {
+                // the consumer completes the future once parsing is done
             }
 
             @Override
             public void cancelled() {
-                future.cancel(false);
+                completeOn(executor, future, () -> future.cancel(false));
+                consumer.abort();
             }
         });
+        abortOnCancel(future, execution);
 
         return future;
     }
@@ -143,12 +257,8 @@ public class HttpAsyncClientImpl implements AsyncHttpClient {
      */
     private SaltException createSaltException(HttpResponse response) {
         int statusCode = response.getStatusLine().getStatusCode();
-        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
-            return new SaltUserUnauthorizedException(
-                    "Salt user does not have sufficient permissions");
-        }
-        else {
-            String content = "";
+        String content = "";
+        if (statusCode != HttpStatus.SC_UNAUTHORIZED) {
             try {
                 content = new BufferedReader(new InputStreamReader(response.getEntity().getContent()))
                         .lines().parallel().collect(Collectors.joining("\n"));
@@ -156,7 +266,25 @@ public class HttpAsyncClientImpl implements AsyncHttpClient {
             catch (IOException e) {
                 // error trying to get the response body, nothing to do...
             }
-            return new SaltException("Response code: " + statusCode + ". Response body:\n" + content);
+        }
+        return createSaltException(statusCode, content);
+    }
+
+    /**
+     * Create the appropriate exception for the given HTTP status code.
+     *
+     * @param statusCode HTTP status code
+     * @param content the response body
+     * @return {@link SaltException} instance
+     */
+    static SaltException createSaltException(int statusCode, String content) {
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            return new SaltUserUnauthorizedException(
+                    "Salt user does not have sufficient permissions");
+        }
+        else {
+            return new SaltResponseException(statusCode,
+                    "Response code: " + statusCode + ". Response body:\n" + content);
         }
     }
 }
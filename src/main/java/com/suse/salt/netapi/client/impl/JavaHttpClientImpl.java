@@ -0,0 +1,191 @@
+package com.suse.salt.netapi.client.impl;
+
+import com.suse.salt.netapi.client.AsyncHttpClient;
+import com.suse.salt.netapi.exception.SaltException;
+import com.suse.salt.netapi.exception.SaltResponseException;
+import com.suse.salt.netapi.exception.SaltUserUnauthorizedException;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncHttpClient implemented with the HttpClient of the JDK. The protocol version is
+ * determined by the given HttpClient, so concurrent calls are multiplexed over a single
+ * connection if it prefers HTTP/2 and the server supports it.
+ * <p>
+ * Response bodies are not buffered but parsed from a stream while they are received.
+ * Parsing blocks while waiting for data, so the executor it runs on should not be
+ * shared with non-blocking tasks.
+ */
+public class JavaHttpClientImpl implements AsyncHttpClient {
+
+    /**
+     * Executor parsing the responses of clients not given one, growing with the number of
+     * responses being received at the same time and keeping idle threads for a minute.
+     */
+    private static final Executor DEFAULT_PARSE_EXECUTOR = defaultParseExecutor();
+
+    /** HTTP client instance */
+    private final HttpClient httpClient;
+
+    /** Executor for parsing responses and completing the returned CompletionStages */
+    private final Executor parseExecutor;
+
+    /**
+     * Init a connection to a given Salt API endpoint. Responses are parsed on daemon
+     * threads shared by all clients created this way, so the blocking parse neither ties
+     * up the executor of the HttpClient nor runs on the calling thread.
+     *
+     * @param httpClientIn the HTTP client
+     */
+    public JavaHttpClientImpl(HttpClient httpClientIn) {
+        this(httpClientIn, DEFAULT_PARSE_EXECUTOR);
+    }
+
+    /**
+     * Init a connection to a given Salt API endpoint.
+     *
+     * @param httpClientIn the HTTP client
+     * @param parseExecutorIn the executor to run the response parsing on
+     */
+    public JavaHttpClientImpl(HttpClient httpClientIn, Executor parseExecutorIn) {
+        httpClient = httpClientIn;
+        parseExecutor = parseExecutorIn;
+    }
+
+    private static Executor defaultParseExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "salt-response-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<T> post(URI uri, Map<String, String> headers, String data, JsonParser<T> parser) {
+        return request(uri, headers, data, parser);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<T> get(URI uri, Map<String, String> headers, JsonParser<T> parser) {
+        return request(uri, headers, null, parser);
+    }
+
+    /**
+     * Perform HTTP request and parse the result into a given result type.
+     *
+     * @param data the data to send with the request, will use GET if null
+     * @return CompletionStage holding object of type T
+     */
+    private <T> CompletionStage<T> request(URI uri, Map<String, String> headers, String data,
+            JsonParser<T> parser) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("Accept", "application/json");
+        if (data != null) {
+            builder.header("Content-Type", "application/json; charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(data, StandardCharsets.UTF_8));
+        } else {
+            builder.GET();
+        }
+        headers.forEach(builder::header);
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<InputStream>> exchange = httpClient.sendAsync(
+                builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        exchange.whenComplete((response, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error instanceof CompletionException &&
+                        error.getCause() != null ? error.getCause() : error);
+            } else {
+                // closing the body ends long running responses like event streams and
+                // unblocks the parse waiting for them
+                future.whenComplete((result, e) -> {
+                    if (future.isCancelled()) {
+                        closeQuietly(response.body());
+                    }
+                });
+                try {
+                    parseExecutor.execute(() -> parse(response, parser, future));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                    closeQuietly(response.body());
+                }
+            }
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Parses the response body or creates the exception for an unsuccessful response.
+     */
+    private <T> void parse(HttpResponse<InputStream> response, JsonParser<T> parser,
+            CompletableFuture<T> future) {
+        try (InputStream body = response.body()) {
+            int statusCode = response.statusCode();
+            if (statusCode == HttpURLConnection.HTTP_OK ||
+                    statusCode == HttpURLConnection.HTTP_ACCEPTED) {
+                future.complete(parser.parse(body));
+            } else {
+                future.completeExceptionally(createSaltException(statusCode, body));
+            }
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Create the appropriate exception for the given HTTP status code.
+     *
+     * @param statusCode HTTP status code
+     * @param body the response body
+     * @return {@link SaltException} instance
+     */
+    private static SaltException createSaltException(int statusCode, InputStream body) {
+        if (statusCode == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            return new SaltUserUnauthorizedException(
+                    "Salt user does not have sufficient permissions");
+        }
+        String content = "";
+        try {
+            content = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // error trying to get the response body, nothing to do...
+        }
+        return new SaltResponseException(statusCode,
+                "Response code: " + statusCode + ". Response body:\n" + content);
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // nothing to do...
+        }
+    }
+}
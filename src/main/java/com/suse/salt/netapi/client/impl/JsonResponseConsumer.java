@@ -0,0 +1,167 @@
+package com.suse.salt.netapi.client.impl;
+
+import com.suse.salt.netapi.parser.JsonParser;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentInputStream;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.SharedInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Response consumer parsing the JSON body while it is being received. Decoded bytes are
+ * handed from the I/O reactor to a parser running on the given executor through a
+ * bounded buffer, suspending input while the parser falls behind. The whole body is
+ * therefore never held in memory, only the parsed object graph.
+ * <p>
+ * The parsed value completes the future given to the constructor, the result of the
+ * consumer itself is always null.
+ *
+ * @param <T> type the response body is parsed into
+ */
+public class JsonResponseConsumer<T> extends AbstractAsyncResponseConsumer<Void> {
+
+    /** Size of the buffer between the I/O reactor and the parser in bytes */
+    private static final int BUFFER_SIZE = 0x10000;
+
+    private final JsonParser<T> parser;
+    private final Executor parseExecutor;
+    private final CompletableFuture<T> future;
+
+    private int statusCode;
+    private volatile SharedInputBuffer buffer;
+    private ByteArrayOutputStream errorBody;
+
+    /**
+     * Creates a consumer for a single response.
+     *
+     * @param parser the parser to use for the response json
+     * @param parseExecutor executor to run the parser on
+     * @param future the future to complete with the parsed value or the error
+     */
+    public JsonResponseConsumer(JsonParser<T> parser, Executor parseExecutor,
+            CompletableFuture<T> future) {
+        this.parser = parser;
+        this.parseExecutor = parseExecutor;
+        this.future = future;
+    }
+
+    private boolean isSuccess() {
+        return statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_ACCEPTED;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        statusCode = response.getStatusLine().getStatusCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        if (isSuccess()) {
+            buffer = new SharedInputBuffer(BUFFER_SIZE);
+            startParsing(new ContentInputStream(buffer));
+        } else {
+            errorBody = new ByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl)
+            throws IOException {
+        if (buffer != null) {
+            buffer.consumeContent(decoder, ioctrl);
+        } else {
+            ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+            int read;
+            while ((read = decoder.read(chunk)) > 0) {
+                errorBody.write(chunk.array(), 0, read);
+                chunk.clear();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Void buildResult(HttpContext context) {
+        if (!isSuccess()) {
+            String content = errorBody == null ? "" : errorBody.toString();
+            completeExceptionally(HttpAsyncClientImpl.createSaltException(statusCode, content));
+        } else if (buffer == null) {
+            // no entity, parse the empty body
+            startParsing(new ByteArrayInputStream(new byte[0]));
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void releaseResources() {
+        errorBody = null;
+    }
+
+    /**
+     * Unblocks the parser in case the response will not be received completely.
+     */
+    void abort() {
+        SharedInputBuffer input = buffer;
+        if (input != null) {
+            input.shutdown();
+        }
+    }
+
+    /**
+     * Completes the future on the parse executor so that dependent stages do not run on
+     * the I/O dispatcher thread.
+     */
+    private void completeExceptionally(Exception error) {
+        try {
+            parseExecutor.execute(() -> future.completeExceptionally(error));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private void startParsing(InputStream content) {
+        try {
+            parseExecutor.execute(() -> {
+                try {
+                    future.complete(parser.parse(content));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                    // stop receiving the rest of the body
+                    abort();
+                    cancel();
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            abort();
+            cancel();
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.suse.salt.netapi.datatypes;
 
 import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.event.EventFamily;
+import com.suse.salt.netapi.event.EventTypes;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.suse.salt.netapi.parser.JsonParser.GSON;
 
@@ -14,6 +18,8 @@ public class Event {
 
     private String tag;
     private JsonElement data;
+    private transient volatile EventFamily family;
+    private transient volatile Map<Class<?>, Optional<?>> views;
 
     /**
      * Return this event's tag.
@@ -51,4 +57,41 @@ public class Event {
         TypeToken<Map<String, Object>> typeToken = new TypeToken<Map<String, Object>>() {};
         return GSON.fromJson(data, typeToken.getType());
     }
+
+    /**
+     * Return the family of this event, classified by its tag.
+     * @return the family
+     */
+    public EventFamily getFamily() {
+        EventFamily result = family;
+        if (result == null) {
+            result = EventFamily.of(getTag());
+            family = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return this event as a specific event type like
+     * {@link com.suse.salt.netapi.event.JobReturnEvent}. The specific event is decoded
+     * at most once per type and shared by all callers, so it must not be modified.
+     * @param type class of the specific event type
+     * @param <T> the specific event type
+     * @return the specific event or empty if this event is not of that type
+     * @throws IllegalArgumentException if the type is not a specific event type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> as(Class<T> type) {
+        Map<Class<?>, Optional<?>> result = views;
+        if (result == null) {
+            synchronized (this) {
+                result = views;
+                if (result == null) {
+                    result = new ConcurrentHashMap<>(4);
+                    views = result;
+                }
+            }
+        }
+        return (Optional<T>) result.computeIfAbsent(type, t -> EventTypes.decode(this, t));
+    }
 }
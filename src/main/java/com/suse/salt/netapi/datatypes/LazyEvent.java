@@ -0,0 +1,149 @@
+package com.suse.salt.netapi.datatypes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import static com.suse.salt.netapi.parser.JsonParser.GSON;
+
+/**
+ * Event that keeps the raw JSON it was received as and only reads the tag up front.
+ * The data is parsed into a tree the first time it is requested, so listeners that only
+ * look at the tag never pay for decoding the data. Every caller gets its own copy of the
+ * data decoded from the tree, which it may modify. Specific event types decoded with
+ * {@link #as(Class)} are kept and shared instead.
+ */
+public class LazyEvent extends Event {
+
+    private static final TypeToken<Map<String, Object>> MAP_TYPE =
+            new TypeToken<Map<String, Object>>() { };
+
+    private final String tag;
+    private String json;
+    private final int offset;
+    private JsonElement data;
+
+    private LazyEvent(String json, int offset, String tag) {
+        this.json = json;
+        this.offset = offset;
+        this.tag = tag;
+    }
+
+    /**
+     * Creates an event from its JSON representation, reading only the tag.
+     *
+     * @param json the JSON object containing tag and data
+     * @return the event
+     * @throws JsonSyntaxException if the tag can not be read
+     */
+    public static LazyEvent parse(String json) {
+        return parse(json, 0);
+    }
+
+    /**
+     * Creates an event from a message containing its JSON representation starting at the
+     * given offset, reading only the tag. The message is not copied.
+     *
+     * @param message the message containing the JSON object with tag and data
+     * @param offset the index of the JSON object within the message
+     * @return the event
+     * @throws JsonSyntaxException if the tag can not be read
+     */
+    public static LazyEvent parse(String message, int offset) {
+        try (JsonReader reader = reader(message, offset)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("tag") && reader.peek() == JsonToken.STRING) {
+                    return new LazyEvent(message, offset, reader.nextString());
+                }
+                reader.skipValue();
+            }
+            throw new JsonSyntaxException("Event without tag");
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static JsonReader reader(String message, int offset) throws IOException {
+        StringReader stringReader = new StringReader(message);
+        stringReader.skip(offset);
+        JsonReader reader = new JsonReader(stringReader);
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <R> R getData(TypeToken<R> dataType) {
+        return readData(dataType.getType());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <R> R getData(Class<R> dataType) {
+        return readData(dataType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> getData() {
+        return readData(MAP_TYPE.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R readData(Type type) {
+        JsonElement tree = dataTree();
+        if (tree.isJsonNull()) {
+            return null;
+        } else if (type instanceof Class && JsonElement.class.isAssignableFrom((Class<?>) type)) {
+            return (R) tree.deepCopy();
+        }
+        return GSON.fromJson(tree, type);
+    }
+
+    /**
+     * Returns the data parsed from the raw JSON, which is released afterwards.
+     */
+    private synchronized JsonElement dataTree() {
+        if (data == null) {
+            JsonElement tree = JsonNull.INSTANCE;
+            try (JsonReader reader = reader(json, offset)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("data")) {
+                        tree = GSON.fromJson(reader, JsonElement.class);
+                        break;
+                    }
+                    reader.skipValue();
+                }
+            } catch (IOException | IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            }
+            data = tree;
+            json = null;
+        }
+        return data;
+    }
+}
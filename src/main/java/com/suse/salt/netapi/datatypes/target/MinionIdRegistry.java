@@ -0,0 +1,103 @@
+package com.suse.salt.netapi.datatypes.target;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry assigning dense int indexes to minion ids. Every id is kept once, so
+ * structures holding many references to the same minions, like the results of jobs
+ * targeting a large fleet, can share the registered string instead of holding copies,
+ * and sets of minions can be represented as bit sets over the indexes, see
+ * {@link MinionSet}.
+ * <p>
+ * Registered ids are never removed, so a registry is meant to be scoped to the minions
+ * of one Salt master, for example held next to its {@code SaltClient}, and dropped
+ * together with it. Lookups do not lock, registering a new id does.
+ */
+public final class MinionIdRegistry {
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private volatile String[] ids = new String[64];
+    private volatile int size = 0;
+
+    /**
+     * Creates an empty registry.
+     */
+    public MinionIdRegistry() {
+    }
+
+    /**
+     * Returns the index of a minion id, registering it if needed.
+     *
+     * @param minionId the minion id
+     * @return the index of the minion id
+     */
+    public int register(String minionId) {
+        Integer index = indexes.get(minionId);
+        return index != null ? index : add(minionId);
+    }
+
+    private synchronized int add(String minionId) {
+        Integer index = indexes.get(minionId);
+        if (index != null) {
+            return index;
+        }
+        String[] current = ids;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = minionId;
+        ids = current;
+        // the id is published before its index so that get() never sees an unset slot
+        indexes.put(minionId, size);
+        return size++;
+    }
+
+    /**
+     * Returns the index of a minion id without registering it.
+     *
+     * @param minionId the minion id
+     * @return the index or -1 if the id is not registered
+     */
+    public int indexOf(Object minionId) {
+        Integer index = minionId instanceof String ? indexes.get(minionId) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the minion id registered with an index.
+     *
+     * @param index the index
+     * @return the minion id
+     * @throws IndexOutOfBoundsException if no id is registered with the index
+     */
+    public String get(int index) {
+        String[] current = ids;
+        String id = index < current.length ? current[index] : null;
+        if (id == null) {
+            throw new IndexOutOfBoundsException("No minion id registered with index " + index);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the registered instance of a minion id, registering it if needed, so
+     * that all holders of the id share one string.
+     *
+     * @param minionId the minion id
+     * @return the registered instance equal to the given id
+     */
+    public String intern(String minionId) {
+        return get(register(minionId));
+    }
+
+    /**
+     * Returns the number of registered minion ids.
+     *
+     * @return the number of ids
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,232 @@
+package com.suse.salt.netapi.datatypes.target;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of minions represented as a bit set over the indexes of a
+ * {@link MinionIdRegistry}, so that sets of thousands of minions take a few kilobytes
+ * and set operations work on whole words. A minion set can be used as a list target
+ * and wherever a set of minion ids is expected, like the key set of a result map.
+ * Set operations combine sets of the same registry.
+ */
+public final class MinionSet extends AbstractSet<String>
+        implements Target<List<String>>, SSHTarget<List<String>> {
+
+    private final MinionIdRegistry registry;
+    private final BitSet bits;
+    private final int size;
+
+    private MinionSet(MinionIdRegistry registry, BitSet bits) {
+        this.registry = registry;
+        this.bits = bits;
+        this.size = bits.cardinality();
+    }
+
+    /**
+     * Returns an empty minion set.
+     *
+     * @param registry the registry of the minion ids
+     * @return the empty set
+     */
+    public static MinionSet empty(MinionIdRegistry registry) {
+        return new MinionSet(registry, new BitSet());
+    }
+
+    /**
+     * Creates a set of the given minions, registering their ids if needed.
+     *
+     * @param registry the registry of the minion ids
+     * @param minionIds the minion ids
+     * @return the minion set
+     */
+    public static MinionSet of(MinionIdRegistry registry, String... minionIds) {
+        return of(registry, Arrays.asList(minionIds));
+    }
+
+    /**
+     * Creates a set of the given minions, registering their ids if needed.
+     *
+     * @param registry the registry of the minion ids
+     * @param minionIds the minion ids
+     * @return the minion set
+     */
+    public static MinionSet of(MinionIdRegistry registry, Collection<String> minionIds) {
+        if (minionIds instanceof MinionSet && ((MinionSet) minionIds).registry == registry) {
+            return (MinionSet) minionIds;
+        }
+        BitSet bits = new BitSet();
+        for (String minionId : minionIds) {
+            bits.set(registry.register(minionId));
+        }
+        return new MinionSet(registry, bits);
+    }
+
+    /**
+     * Returns the registry of the minion ids of this set.
+     *
+     * @return the registry
+     */
+    public MinionIdRegistry getRegistry() {
+        return registry;
+    }
+
+    private BitSet bitsOf(MinionSet other) {
+        if (other.registry != registry) {
+            throw new IllegalArgumentException("Minion sets of different registries");
+        }
+        return other.bits;
+    }
+
+    /**
+     * Returns the minions contained in this or the other set.
+     *
+     * @param other the other set
+     * @return the union of both sets
+     * @throws IllegalArgumentException if the sets belong to different registries
+     */
+    public MinionSet union(MinionSet other) {
+        BitSet result = (BitSet) bits.clone();
+        result.or(bitsOf(other));
+        return new MinionSet(registry, result);
+    }
+
+    /**
+     * Returns the minions contained in both this and the other set.
+     *
+     * @param other the other set
+     * @return the intersection of both sets
+     * @throws IllegalArgumentException if the sets belong to different registries
+     */
+    public MinionSet intersect(MinionSet other) {
+        BitSet result = (BitSet) bits.clone();
+        result.and(bitsOf(other));
+        return new MinionSet(registry, result);
+    }
+
+    /**
+     * Returns the minions of this set that are not contained in the other set.
+     *
+     * @param other the other set
+     * @return the difference of both sets
+     * @throws IllegalArgumentException if the sets belong to different registries
+     */
+    public MinionSet minus(MinionSet other) {
+        BitSet result = (BitSet) bits.clone();
+        result.andNot(bitsOf(other));
+        return new MinionSet(registry, result);
+    }
+
+    /**
+     * Returns the entries of a map whose keys are contained in this set.
+     *
+     * @param <V> the type of the values
+     * @param map the map keyed by minion id
+     * @return a new map with the selected entries
+     */
+    public <V> Map<String, V> select(Map<String, V> map) {
+        Map<String, V> result = new HashMap<>();
+        map.forEach((minionId, value) -> {
+            if (contains(minionId)) {
+                result.put(minionId, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Converts this set into a list target.
+     *
+     * @return the list target
+     */
+    public MinionList toMinionList() {
+        return new MinionList(getTarget());
+    }
+
+    @Override
+    public boolean contains(Object minionId) {
+        int index = registry.indexOf(minionId);
+        return index >= 0 && bits.get(index);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> minionIds) {
+        if (minionIds instanceof MinionSet && ((MinionSet) minionIds).registry == registry) {
+            BitSet missing = (BitSet) ((MinionSet) minionIds).bits.clone();
+            missing.andNot(bits);
+            return missing.isEmpty();
+        }
+        return super.containsAll(minionIds);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = bits.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                String minionId = registry.get(next);
+                next = bits.nextSetBit(next + 1);
+                return minionId;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof MinionSet && ((MinionSet) other).registry == registry) {
+            return bits.equals(((MinionSet) other).bits);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The list is created on every call, ordered by the registration of the minions.
+     */
+    @Override
+    public List<String> getTarget() {
+        return new ArrayList<>(this);
+    }
+
+    @Override
+    public TargetType getType() {
+        return TargetType.LIST;
+    }
+
+    @Override
+    public Map<String, Object> getProps() {
+        Map<String, Object> props = new HashMap<>();
+        props.put("tgt", getTarget());
+        props.put("tgt_type", getType().getValue());
+        return props;
+    }
+}
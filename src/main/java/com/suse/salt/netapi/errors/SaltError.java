@@ -13,5 +13,18 @@ public interface SaltError {
             Function<GenericError, ? extends T> generic,
             Function<SaltSSHError, ? extends T> saltSSHError);
 
+    /**
+     * Folds this error, distinguishing timeouts that are otherwise folded as
+     * {@link GenericError}.
+     */
+    default <T> T fold(Function<FunctionNotAvailable, ? extends T> fnNotAvail,
+            Function<ModuleNotSupported, ? extends T> modNotSupported,
+            Function<JsonParsingError, ? extends T> jsonError,
+            Function<GenericError, ? extends T> generic,
+            Function<SaltSSHError, ? extends T> saltSSHError,
+            Function<TimeoutError, ? extends T> timeout) {
+        return fold(fnNotAvail, modNotSupported, jsonError, generic, saltSSHError);
+    }
+
 }
 
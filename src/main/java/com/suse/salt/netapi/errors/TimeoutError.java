@@ -0,0 +1,72 @@
+package com.suse.salt.netapi.errors;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Error of a minion that did not return the result of a job before its deadline.
+ */
+final public class TimeoutError implements SaltError {
+
+    private final String jid;
+    private final String minionId;
+    private final Duration timeout;
+
+    public TimeoutError(String jid, String minionId, Duration timeout) {
+        this.jid = jid;
+        this.minionId = minionId;
+        this.timeout = timeout;
+    }
+
+    public String getJid() {
+        return jid;
+    }
+
+    public String getMinionId() {
+        return minionId;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Folds this error as a {@link GenericError} for callers not distinguishing
+     * timeouts.
+     */
+    public <T> T fold(Function<FunctionNotAvailable, ? extends T> fnNotAvail,
+            Function<ModuleNotSupported, ? extends T> modNotSupported,
+            Function<JsonParsingError, ? extends T> jsonError,
+            Function<GenericError, ? extends T> generic,
+            Function<SaltSSHError, ? extends T> saltSSHError
+    ) {
+        return generic.apply(new GenericError("Minion " + minionId + " did not return job " +
+                jid + " within " + timeout.toMillis() + "ms"));
+    }
+
+    @Override
+    public <T> T fold(Function<FunctionNotAvailable, ? extends T> fnNotAvail,
+            Function<ModuleNotSupported, ? extends T> modNotSupported,
+            Function<JsonParsingError, ? extends T> jsonError,
+            Function<GenericError, ? extends T> generic,
+            Function<SaltSSHError, ? extends T> saltSSHError,
+            Function<TimeoutError, ? extends T> timeoutError
+    ) {
+        return timeoutError.apply(this);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeoutError(" + jid + ", " + minionId + ", " + timeout + ")";
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TimeoutError && obj.toString().equals(toString());
+    }
+}
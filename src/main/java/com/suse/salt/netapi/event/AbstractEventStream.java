@@ -30,6 +30,16 @@ public abstract class AbstractEventStream implements EventStream {
      */
     private final List<EventListener> listeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Listeners that are notified of events with matching tags.
+     */
+    private final TagPatternDispatcher tagListeners = new TagPatternDispatcher();
+
+    /**
+     * Router for the events of jobs that are waited for.
+     */
+    private final JobReturnRouter jobReturnRouter = new JobReturnRouter();
+
     /**
      * {@inheritDoc}
      */
@@ -38,12 +48,21 @@ public abstract class AbstractEventStream implements EventStream {
         listeners.add(listener);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEventListener(String tagPattern, EventListener listener) {
+        tagListeners.add(tagPattern, listener);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void removeEventListener(EventListener listener) {
         listeners.remove(listener);
+        tagListeners.remove(listener);
     }
 
     /**
@@ -51,7 +70,15 @@ public abstract class AbstractEventStream implements EventStream {
      */
     @Override
     public int getListenerCount() {
-        return listeners.size();
+        return listeners.size() + tagListeners.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JobReturnRouter getJobReturnRouter() {
+        return jobReturnRouter;
     }
 
     /**
@@ -60,9 +87,11 @@ public abstract class AbstractEventStream implements EventStream {
      * @param event the event
      */
     protected void notifyListeners(Event event) {
+        jobReturnRouter.notify(event);
         for (EventListener listener : listeners) {
             listener.notify(event);
         }
+        tagListeners.dispatch(event);
     }
 
     /**
@@ -72,9 +101,14 @@ public abstract class AbstractEventStream implements EventStream {
      * @param phrase a String representation of code
      */
     protected void clearListeners(int code, String phrase) {
+        jobReturnRouter.eventStreamClosed(code, phrase);
         listeners.forEach(listener -> listener.eventStreamClosed(code, phrase));
+        tagListeners.getListeners().stream()
+                .filter(listener -> listeners.stream().noneMatch(l -> l == listener))
+                .forEach(listener -> listener.eventStreamClosed(code, phrase));
 
         // Clear out the listeners
         listeners.clear();
+        tagListeners.clear();
     }
 }
@@ -52,12 +52,25 @@ public class BatchStartedEvent {
     }
 
     /**
-     * Utility method to parse a generic event into a more specific one.
+     * Utility method to parse a generic event into a more specific one. The result is
+     * kept by the event, so it is only decoded once no matter how many listeners parse
+     * the same event. It is shared by them and must not be modified.
      *
      * @param event the generic event to parse
      * @return an option containing the parsed value or non if it could not be parsed
      */
     public static Optional<BatchStartedEvent> parse(Event event) {
+        return event.as(BatchStartedEvent.class);
+    }
+
+    /**
+     * Decodes a generic event of the {@link EventFamily#BATCH_STARTED} family, called at most
+     * once per event through {@link Event#as(Class)}.
+     *
+     * @param event the generic event to decode
+     * @return an option containing the decoded value or none if it could not be decoded
+     */
+    static Optional<BatchStartedEvent> decode(Event event) {
         Matcher matcher = PATTERN.matcher(event.getTag());
         if (matcher.matches()) {
             return Optional.of(new BatchStartedEvent(matcher.group(1), event.getData(Data.class)));
@@ -0,0 +1,167 @@
+package com.suse.salt.netapi.event;
+
+import com.suse.salt.netapi.datatypes.Event;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Configuration for dispatching events to listeners asynchronously through a bounded
+ * queue instead of on the thread receiving them.
+ */
+public class EventDispatchConfig {
+
+    private final int queueCapacity;
+    private final int threads;
+    private final OverflowPolicy overflowPolicy;
+    private final List<String> droppableTags;
+    private final Optional<BiConsumer<Event, RuntimeException>> listenerErrorHandler;
+
+    private EventDispatchConfig(EventDispatchConfigBuilder builder) {
+        this.queueCapacity = builder.queueCapacity;
+        this.threads = builder.threads;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.droppableTags = builder.droppableTags;
+        this.listenerErrorHandler = builder.listenerErrorHandler;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public List<String> getDroppableTags() {
+        return droppableTags;
+    }
+
+    public Optional<BiConsumer<Event, RuntimeException>> getListenerErrorHandler() {
+        return listenerErrorHandler;
+    }
+
+    /**
+     * Check whether an event with the given tag may be discarded under the
+     * {@link OverflowPolicy#DROP_BY_TAG} policy.
+     *
+     * @param tag the event tag
+     * @return true if the tag starts with one of the droppable tag prefixes
+     */
+    public boolean isDroppable(String tag) {
+        for (String prefix : droppableTags) {
+            if (tag.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an EventDispatchConfigBuilder for instantiating a custom config.
+     *
+     * @return an EventDispatchConfigBuilder instance.
+     */
+    public static EventDispatchConfigBuilder custom() {
+        return new EventDispatchConfigBuilder();
+    }
+
+    /**
+     * Helper class for building an EventDispatchConfig.
+     */
+    public static class EventDispatchConfigBuilder {
+        private int queueCapacity = 10000;
+        private int threads = 1;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private List<String> droppableTags = List.of("salt/auth", "minion_ping");
+        private Optional<BiConsumer<Event, RuntimeException>> listenerErrorHandler =
+                Optional.empty();
+
+        private EventDispatchConfigBuilder() {
+        }
+
+        /**
+         * Sets the maximum number of events waiting to be dispatched.
+         *
+         * @param value the queue capacity, which must be greater than 0
+         * @return the builder
+         */
+        public EventDispatchConfigBuilder withQueueCapacity(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid queue capacity");
+            }
+            this.queueCapacity = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads notifying listeners. Events are delivered in the
+         * order they were received only if a single thread is used.
+         *
+         * @param value the number of threads, which must be greater than 0
+         * @return the builder
+         */
+        public EventDispatchConfigBuilder withThreads(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid number of threads");
+            }
+            this.threads = value;
+            return this;
+        }
+
+        /**
+         * Sets the policy for events arriving while the queue is full.
+         *
+         * @param value the overflow policy
+         * @return the builder
+         */
+        public EventDispatchConfigBuilder withOverflowPolicy(OverflowPolicy value) {
+            this.overflowPolicy = value;
+            return this;
+        }
+
+        /**
+         * Sets the tag prefixes of events that may be discarded under the
+         * {@link OverflowPolicy#DROP_BY_TAG} policy.
+         *
+         * @param prefixes the tag prefixes
+         * @return the builder
+         */
+        public EventDispatchConfigBuilder withDroppableTags(String... prefixes) {
+            this.droppableTags = Arrays.asList(prefixes);
+            return this;
+        }
+
+        /**
+         * Sets the handler of exceptions thrown by listeners, which is called on the
+         * dispatcher thread and lets the dispatching continue with the next event.
+         * Without a handler a failing listener closes the stream, like it does when
+         * listeners are notified synchronously.
+         *
+         * @param handler the handler of the event and the exception thrown for it
+         * @return the builder
+         */
+        public EventDispatchConfigBuilder withListenerErrorHandler(
+                BiConsumer<Event, RuntimeException> handler) {
+            this.listenerErrorHandler = Optional.of(handler);
+            return this;
+        }
+
+        /**
+         * Builds the EventDispatchConfig.
+         *
+         * @return the EventDispatchConfig
+         */
+        public EventDispatchConfig build() {
+            return new EventDispatchConfig(this);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.suse.salt.netapi.event;
+
+import com.suse.salt.netapi.datatypes.Event;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Decouples receiving events from notifying listeners: events are put into a bounded
+ * queue and handed to the listeners by a pool of dispatcher threads.
+ */
+public class EventDispatcher {
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final EventDispatchConfig config;
+    private final Consumer<Event> sink;
+    private final Consumer<RuntimeException> onListenerError;
+    private final BlockingQueue<Event> queue;
+    private final ExecutorService executor;
+    private final AtomicInteger running;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Runnable onDrained = () -> { };
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a dispatcher ignoring listener failures without a configured handler and
+     * starts its threads.
+     *
+     * @param config the dispatch configuration
+     * @param sink the consumer notifying the listeners of an event
+     */
+    EventDispatcher(EventDispatchConfig config, Consumer<Event> sink) {
+        this(config, sink, e -> { });
+    }
+
+    /**
+     * Creates a dispatcher and starts its threads.
+     *
+     * @param config the dispatch configuration
+     * @param sink the consumer notifying the listeners of an event
+     * @param onListenerError called with the exception of a failing listener if no
+     * handler is configured, to fail the stream
+     */
+    EventDispatcher(EventDispatchConfig config, Consumer<Event> sink,
+            Consumer<RuntimeException> onListenerError) {
+        this.config = config;
+        this.sink = sink;
+        this.onListenerError = onListenerError;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.running = new AtomicInteger(config.getThreads());
+
+        String prefix = "salt-event-dispatcher-" + POOL_COUNT.incrementAndGet() + "-";
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(config.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < config.getThreads(); i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * Queues an event for dispatching, applying the configured {@link OverflowPolicy} if
+     * the queue is full.
+     *
+     * @param event the event
+     * @return false if the event could not be queued and the stream should fail
+     */
+    boolean dispatch(Event event) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return true;
+        }
+        if (queue.offer(event)) {
+            return true;
+        }
+        try {
+            switch (config.getOverflowPolicy()) {
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                    return true;
+                case DROP_BY_TAG:
+                    if (config.isDroppable(event.getTag())) {
+                        dropped.incrementAndGet();
+                        return true;
+                    }
+                    // make room by discarding a queued event, block if there is none
+                    if (removeDroppable()) {
+                        dropped.incrementAndGet();
+                    }
+                    queue.put(event);
+                    return true;
+                case FAIL_STREAM:
+                    dropped.incrementAndGet();
+                    return false;
+                case BLOCK:
+                default:
+                    queue.put(event);
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            dropped.incrementAndGet();
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Removes the oldest queued event with a droppable tag.
+     *
+     * @return true if an event was removed
+     */
+    private boolean removeDroppable() {
+        Iterator<Event> it = queue.iterator();
+        while (it.hasNext()) {
+            if (config.isDroppable(it.next().getTag())) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loop run by each dispatcher thread until the dispatcher is shut down and the
+     * queue is drained.
+     */
+    private void work() {
+        try {
+            while (true) {
+                Event event = closed ? queue.poll() :
+                        queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    try {
+                        sink.accept(event);
+                    } catch (RuntimeException e) {
+                        onListenerError(event, e);
+                    }
+                } else if (closed) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (running.decrementAndGet() == 0) {
+                onDrained.run();
+            }
+        }
+    }
+
+    /**
+     * Passes the exception of a failing listener to the configured handler, or fails the
+     * stream without one.
+     *
+     * @param event the event the listener failed on
+     * @param e the exception thrown by the listener
+     */
+    private void onListenerError(Event event, RuntimeException e) {
+        try {
+            if (config.getListenerErrorHandler().isPresent()) {
+                config.getListenerErrorHandler().get().accept(event, e);
+            } else {
+                onListenerError.accept(e);
+            }
+        } catch (RuntimeException ex) {
+            // a failing handler must not stop the dispatching of later events
+        }
+    }
+
+    /**
+     * Stops accepting events and shuts the dispatcher threads down once all queued
+     * events have been delivered.
+     *
+     * @param onDrainedIn action to run after the last queued event was delivered
+     */
+    void shutdown(Runnable onDrainedIn) {
+        this.onDrained = onDrainedIn;
+        this.closed = true;
+        executor.shutdown();
+    }
+
+    /**
+     * Helper method that returns the number of events waiting to be dispatched.
+     *
+     * @return the current queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Helper method that returns the number of events discarded because of an
+     * overflowing queue or after shutdown.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the configuration of this dispatcher.
+     *
+     * @return the dispatch configuration
+     */
+    public EventDispatchConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,81 @@
+package com.suse.salt.netapi.event;
+
+/**
+ * Families of events distinguished by the structure of their tag. An event is
+ * classified by a single pass over its tag, so only the parser of the one matching
+ * specific event type needs to look at it further.
+ */
+public enum EventFamily {
+
+    /** {@code salt/job/<jid>/ret/<minion>}, see {@link JobReturnEvent} and {@link ResultEvent} */
+    JOB_RETURN,
+
+    /** {@code salt/run/<jid>/ret}, see {@link RunnerReturnEvent} */
+    RUNNER_RETURN,
+
+    /** {@code salt/wheel/<jid>/ret}, see {@link WheelReturnEvent} */
+    WHEEL_RETURN,
+
+    /** {@code salt/beacon/<minion>/<beacon>/<rest>}, see {@link BeaconEvent} */
+    BEACON,
+
+    /** {@code salt/engines/<engine>/<rest>}, see {@link EngineEvent} */
+    ENGINE,
+
+    /** {@code salt/minion/<minion>/start}, see {@link MinionStartEvent} */
+    MINION_START,
+
+    /** {@code salt/batch/<jid>/start}, see {@link BatchStartedEvent} */
+    BATCH_STARTED,
+
+    /** Any other tag */
+    OTHER;
+
+    private static final String SALT_PREFIX = "salt/";
+
+    /**
+     * Classifies an event tag.
+     *
+     * @param tag the event tag
+     * @return the family of the tag
+     */
+    public static EventFamily of(String tag) {
+        if (!tag.startsWith(SALT_PREFIX)) {
+            return OTHER;
+        }
+        int kindEnd = tag.indexOf('/', SALT_PREFIX.length());
+        if (kindEnd < 0) {
+            return OTHER;
+        }
+        // the segment following the kind, like the jid or minion id
+        int idStart = kindEnd + 1;
+        int idEnd = tag.indexOf('/', idStart);
+        if (idEnd <= idStart) {
+            return OTHER;
+        }
+        switch (tag.substring(SALT_PREFIX.length(), kindEnd)) {
+            case "job":
+                return tag.startsWith("/ret/", idEnd) && tag.length() > idEnd + 5 &&
+                        tag.indexOf('/', idEnd + 5) < 0 ? JOB_RETURN : OTHER;
+            case "run":
+                return tag.length() == idEnd + 4 && tag.startsWith("/ret", idEnd) ?
+                        RUNNER_RETURN : OTHER;
+            case "wheel":
+                return tag.length() == idEnd + 4 && tag.startsWith("/ret", idEnd) ?
+                        WHEEL_RETURN : OTHER;
+            case "beacon":
+                int beaconEnd = tag.indexOf('/', idEnd + 1);
+                return beaconEnd > idEnd + 1 ? BEACON : OTHER;
+            case "engines":
+                return ENGINE;
+            case "minion":
+                return tag.length() == idEnd + 6 && tag.startsWith("/start", idEnd) ?
+                        MINION_START : OTHER;
+            case "batch":
+                return tag.length() == idEnd + 6 && tag.startsWith("/start", idEnd) ?
+                        BATCH_STARTED : OTHER;
+            default:
+                return OTHER;
+        }
+    }
+}
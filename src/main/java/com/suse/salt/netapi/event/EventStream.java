@@ -18,7 +18,27 @@ public interface EventStream extends AutoCloseable {
     void addEventListener(EventListener listener);
 
     /**
-     * Removes a listener.
+     * Adds a listener that is only notified of events whose tag matches the given
+     * pattern. A pattern without wildcards matches the tag itself and all tags below it,
+     * like {@code salt/job}. Other patterns need to match the whole tag, like
+     * {@code salt/job/*}{@code /ret/*}, where wildcards in the last segment also match
+     * slashes. Subscriptions are indexed by their tag segments, so listeners subscribed
+     * to other tags do not add to the cost of dispatching an event.
+     * <p>
+     * The default implementation adds a wrapper filtering the events by their tag, which
+     * is only removed when the stream is closed. Streams extending
+     * {@link AbstractEventStream} index the subscription and remove it together with the
+     * listener.
+     *
+     * @param tagPattern the pattern of the tags to be notified of
+     * @param listener Reference to the class that implements {@link EventListener}.
+     */
+    default void addEventListener(String tagPattern, EventListener listener) {
+        addEventListener(TagPatternDispatcher.filter(tagPattern, listener));
+    }
+
+    /**
+     * Removes a listener, including all of its tag pattern subscriptions.
      *
      * @param listener Reference to the class that implements {@link EventListener}.
      */
@@ -31,6 +51,18 @@ public interface EventStream extends AutoCloseable {
      */
     int getListenerCount();
 
+    /**
+     * Returns the router dispatching job events of this stream to listeners
+     * registered per jid. The default implementation registers a router as a listener
+     * of this stream on first use, streams extending {@link AbstractEventStream} route
+     * the events before notifying any other listener.
+     *
+     * @return the job return router of this stream
+     */
+    default JobReturnRouter getJobReturnRouter() {
+        return JobReturnRouter.attachedTo(this);
+    }
+
     /**
      * Helper method to check if the stream is able to receive Events.
      *
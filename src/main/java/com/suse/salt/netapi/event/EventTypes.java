@@ -0,0 +1,65 @@
+package com.suse.salt.netapi.event;
+
+import com.suse.salt.netapi.datatypes.Event;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Registry of the specific event types a generic {@link Event} can be viewed as with
+ * {@link Event#as(Class)}, together with the tag family each of them belongs to.
+ */
+public final class EventTypes {
+
+    /**
+     * Decoder of a specific event type.
+     */
+    private static final class Type {
+        private final EventFamily family;
+        private final Function<Event, Optional<?>> decoder;
+
+        private Type(EventFamily family, Function<Event, Optional<?>> decoder) {
+            this.family = family;
+            this.decoder = decoder;
+        }
+    }
+
+    private static final Map<Class<?>, Type> TYPES = Map.of(
+            JobReturnEvent.class, new Type(EventFamily.JOB_RETURN, JobReturnEvent::decode),
+            ResultEvent.class, new Type(EventFamily.JOB_RETURN, ResultEvent::decode),
+            RunnerReturnEvent.class,
+                    new Type(EventFamily.RUNNER_RETURN, RunnerReturnEvent::decode),
+            WheelReturnEvent.class,
+                    new Type(EventFamily.WHEEL_RETURN, WheelReturnEvent::decode),
+            BeaconEvent.class, new Type(EventFamily.BEACON, BeaconEvent::decode),
+            EngineEvent.class, new Type(EventFamily.ENGINE, EngineEvent::decode),
+            MinionStartEvent.class,
+                    new Type(EventFamily.MINION_START, MinionStartEvent::decode),
+            BatchStartedEvent.class,
+                    new Type(EventFamily.BATCH_STARTED, BatchStartedEvent::decode));
+
+    private EventTypes() { }
+
+    /**
+     * Decodes an event as the given specific type. Events of another tag family are
+     * rejected without looking at the tag again.
+     *
+     * @param <T> the specific event type
+     * @param event the generic event
+     * @param type the class of the specific event type
+     * @return the specific event or empty if the event is not of that type
+     * @throws IllegalArgumentException if the type is not a specific event type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Optional<T> decode(Event event, Class<T> type) {
+        Type decoder = TYPES.get(type);
+        if (decoder == null) {
+            throw new IllegalArgumentException("Unknown event type: " + type.getName());
+        }
+        if (event.getFamily() != decoder.family) {
+            return Optional.empty();
+        }
+        return (Optional<T>) decoder.decoder.apply(event);
+    }
+}
@@ -0,0 +1,234 @@
+package com.suse.salt.netapi.event;
+
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.client.CallBatch;
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Event;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Recovers the results of jobs whose return events got lost. The reconciler watches the
+ * jobs waited for through the {@link JobReturnRouter} of an event stream and looks up
+ * the stragglers among them with {@code jobs.list_job}, delivering the results to the
+ * job listeners like a lookup made by {@link com.suse.salt.netapi.calls.LocalCall}.
+ * <p>
+ * To avoid flooding the job cache with lookups, a job is only considered a straggler
+ * once it has been waited for longer than the configured percentile of the latencies of
+ * recently received returns. Stragglers are looked up again with a doubling interval as
+ * long as minions are missing, and all jobs due are looked up together with one batched
+ * request per configured number of jobs.
+ */
+public class JobReconciler implements Closeable {
+
+    private static final TypeToken<JsonElement> JSON_TYPE = TypeToken.get(JsonElement.class);
+    private static final String JOB_RETURNS = "salt/job/*/ret/*";
+
+    /**
+     * State of a job waited for.
+     */
+    private static final class Job {
+        private final long firstSeen;
+        private volatile boolean inFlight = false;
+        private int lookups = 0;
+        private long interval;
+        private long nextLookup;
+
+        private Job(long firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+    }
+
+    /**
+     * Ring buffer of the most recent return latencies.
+     */
+    private static final class Latencies {
+        private final long[] samples;
+        private int count = 0;
+        private int next = 0;
+
+        private Latencies(int size) {
+            this.samples = new long[size];
+        }
+
+        private synchronized void add(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        private synchronized Optional<Long> percentile(double percentile) {
+            if (count == 0) {
+                return Optional.empty();
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return Optional.of(sorted[Math.max(0, index)]);
+        }
+    }
+
+    private final SaltClient client;
+    private final EventStream events;
+    private final AuthMethod auth;
+    private final JobReconcilerConfig config;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Latencies latencies;
+    private final EventListener listener = new EventListener() {
+        @Override
+        public void notify(Event event) {
+            JobReturnEvent.parse(event).ifPresent(jre -> onReturn(jre.getJobId()));
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+            close();
+        }
+    };
+
+    /**
+     * Creates a reconciler and starts watching the jobs of the given event stream.
+     *
+     * @param client the client to look up jobs with
+     * @param events the event stream the jobs are waited for with
+     * @param auth the authentication to look up jobs with
+     * @param config the configuration
+     */
+    public JobReconciler(SaltClient client, EventStream events, AuthMethod auth,
+            JobReconcilerConfig config) {
+        this(client, events, auth, config,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        scheduler.scheduleWithFixedDelay(this::reconcile, config.getTickMillis(),
+                config.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a reconciler that is driven by calling {@link #reconcile(long)}.
+     */
+    JobReconciler(SaltClient client, EventStream events, AuthMethod auth,
+            JobReconcilerConfig config, LongSupplier clock) {
+        this.client = client;
+        this.events = events;
+        this.auth = auth;
+        this.config = config;
+        this.clock = clock;
+        this.latencies = new Latencies(config.getSampleSize());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "salt-job-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        events.addEventListener(JOB_RETURNS, listener);
+    }
+
+    private void onReturn(String jid) {
+        Job job = jobs.get(jid);
+        if (job != null) {
+            latencies.add(clock.getAsLong() - job.firstSeen);
+        }
+    }
+
+    /**
+     * Returns the time a job is waited for before it is considered a straggler.
+     *
+     * @return the delay in milliseconds
+     */
+    public long getStragglerDelayMillis() {
+        return latencies.percentile(config.getPercentile())
+                .filter(latency -> latency > config.getMinDelayMillis())
+                .orElse(config.getMinDelayMillis());
+    }
+
+    private void reconcile() {
+        try {
+            reconcile(clock.getAsLong());
+        } catch (RuntimeException e) {
+            // keep reconciling with the next tick
+        }
+    }
+
+    /**
+     * Looks up the stragglers among the jobs waited for.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of jobs looked up
+     */
+    int reconcile(long now) {
+        JobReturnRouter router = events.getJobReturnRouter();
+        Set<String> jids = router.getJobIds();
+        jobs.keySet().retainAll(jids);
+        jids.forEach(jid -> jobs.computeIfAbsent(jid, j -> new Job(now)));
+
+        long delay = getStragglerDelayMillis();
+        List<String> due = new ArrayList<>();
+        jobs.forEach((jid, job) -> {
+            long dueTime = job.lookups == 0 ? job.firstSeen + delay : job.nextLookup;
+            if (!job.inFlight && now >= dueTime && router.getPendingMinions(jid)
+                    .map(minions -> !minions.isEmpty()).orElse(true)) {
+                job.interval = job.lookups == 0 ? delay :
+                        Math.min(job.interval * 2, config.getMaxIntervalMillis());
+                job.nextLookup = now + job.interval;
+                job.lookups++;
+                due.add(jid);
+            }
+        });
+
+        for (int from = 0; from < due.size(); from += config.getBatchSize()) {
+            lookup(router, due.subList(from, Math.min(from + config.getBatchSize(), due.size())));
+        }
+        return due.size();
+    }
+
+    private void lookup(JobReturnRouter router, List<String> jids) {
+        CallBatch batch = new CallBatch();
+        for (String jid : jids) {
+            Job job = jobs.get(jid);
+            job.inFlight = true;
+            batch.add(Jobs.listJob(jid), Client.RUNNER, Optional.empty(), Map.of(), JSON_TYPE)
+                    .whenComplete((info, error) -> {
+                        job.inFlight = false;
+                        if (info != null) {
+                            router.notifyLookup(jid, info);
+                        }
+                    });
+        }
+        // jobs whose lookup fails are looked up again after their interval
+        client.callBatch(batch, auth);
+    }
+
+    /**
+     * Returns the number of jobs watched.
+     *
+     * @return the number of jobs
+     */
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    /**
+     * Stops watching the jobs.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        events.removeEventListener(listener);
+        jobs.clear();
+    }
+}
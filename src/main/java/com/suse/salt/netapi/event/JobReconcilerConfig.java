@@ -0,0 +1,173 @@
+package com.suse.salt.netapi.event;
+
+/**
+ * Configuration of a {@link JobReconciler}.
+ */
+public class JobReconcilerConfig {
+
+    private final long tickMillis;
+    private final long minDelayMillis;
+    private final long maxIntervalMillis;
+    private final double percentile;
+    private final int sampleSize;
+    private final int batchSize;
+
+    private JobReconcilerConfig(JobReconcilerConfigBuilder builder) {
+        this.tickMillis = builder.tickMillis;
+        this.minDelayMillis = builder.minDelayMillis;
+        this.maxIntervalMillis = builder.maxIntervalMillis;
+        this.percentile = builder.percentile;
+        this.sampleSize = builder.sampleSize;
+        this.batchSize = builder.batchSize;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    public long getMaxIntervalMillis() {
+        return maxIntervalMillis;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns a JobReconcilerConfigBuilder for instantiating a custom config.
+     *
+     * @return a JobReconcilerConfigBuilder instance.
+     */
+    public static JobReconcilerConfigBuilder custom() {
+        return new JobReconcilerConfigBuilder();
+    }
+
+    /**
+     * Helper class for building a JobReconcilerConfig.
+     */
+    public static class JobReconcilerConfigBuilder {
+        private long tickMillis = 1000;
+        private long minDelayMillis = 5000;
+        private long maxIntervalMillis = 60000;
+        private double percentile = 0.95;
+        private int sampleSize = 1024;
+        private int batchSize = 50;
+
+        private JobReconcilerConfigBuilder() {
+        }
+
+        /**
+         * Sets the interval at which pending jobs are checked for stragglers.
+         *
+         * @param value the interval in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public JobReconcilerConfigBuilder withTickMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid interval");
+            }
+            this.tickMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the minimum time a job is waited for before it is looked up, used as long
+         * as the observed return latencies are shorter.
+         *
+         * @param value the delay in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public JobReconcilerConfigBuilder withMinDelayMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid delay");
+            }
+            this.minDelayMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the maximum interval between two lookups of the same job.
+         *
+         * @param value the interval in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public JobReconcilerConfigBuilder withMaxIntervalMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid interval");
+            }
+            this.maxIntervalMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the percentile of the observed return latencies after which a job is
+         * considered a straggler.
+         *
+         * @param value the percentile, which must be greater than 0 and at most 1
+         * @return the builder
+         */
+        public JobReconcilerConfigBuilder withPercentile(double value) {
+            if (value <= 0 || value > 1) {
+                throw new IllegalArgumentException("Expected value between 0 and 1 to make a " +
+                        "valid percentile");
+            }
+            this.percentile = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of most recent return latencies the percentile is computed
+         * from.
+         *
+         * @param value the number of samples, which must be greater than 0
+         * @return the builder
+         */
+        public JobReconcilerConfigBuilder withSampleSize(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid sample size");
+            }
+            this.sampleSize = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of jobs looked up with a single request.
+         *
+         * @param value the batch size, which must be greater than 0
+         * @return the builder
+         */
+        public JobReconcilerConfigBuilder withBatchSize(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid batch size");
+            }
+            this.batchSize = value;
+            return this;
+        }
+
+        /**
+         * Builds the JobReconcilerConfig.
+         *
+         * @return the JobReconcilerConfig
+         */
+        public JobReconcilerConfig build() {
+            return new JobReconcilerConfig(this);
+        }
+    }
+}
@@ -167,12 +167,25 @@ public class JobReturnEvent {
     }
 
     /**
-     * Utility method to parse a generic event into a more specific one.
+     * Utility method to parse a generic event into a more specific one. The result is
+     * kept by the event, so it is only decoded once no matter how many listeners parse
+     * the same event. It is shared by them and must not be modified.
      *
      * @param event the generic event to parse
      * @return an option containing the parsed value or non if it could not be parsed
      */
     public static Optional<JobReturnEvent> parse(Event event) {
+        return event.as(JobReturnEvent.class);
+    }
+
+    /**
+     * Decodes a generic event of the {@link EventFamily#JOB_RETURN} family, called at most
+     * once per event through {@link Event#as(Class)}.
+     *
+     * @param event the generic event to decode
+     * @return an option containing the decoded value or none if it could not be decoded
+     */
+    static Optional<JobReturnEvent> decode(Event event) {
         Matcher matcher = PATTERN.matcher(event.getTag());
         if (matcher.matches()) {
             Data data = event.getData(Data.class);
@@ -0,0 +1,237 @@
+package com.suse.salt.netapi.event;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatches job related events of an {@link EventStream} to listeners registered for a
+ * single jid. The tag of every event is inspected once and the event data is only
+ * deserialized if a listener is registered for the job it belongs to, so the cost per
+ * event does not grow with the number of pending jobs.
+ */
+public class JobReturnRouter {
+
+    private static final String JOB_PREFIX = "salt/job/";
+    private static final String JOB_RETURN = "/ret/";
+    private static final String RUN_PREFIX = "salt/run/";
+    private static final String RUN_RETURN = "/ret";
+    private static final String LIST_JOB = "runner.jobs.list_job";
+
+    /**
+     * Listener for the events belonging to a single job.
+     */
+    public interface JobListener {
+
+        /**
+         * Notify the listener of a return from one of the targeted minions.
+         *
+         * @param event the job return event
+         */
+        void onJobReturn(JobReturnEvent event);
+
+        /**
+         * Notify the listener of a finished jobs.list_job runner looking up this job.
+         *
+         * @param event the runner return event
+         */
+        void onLookupReturn(RunnerReturnEvent event);
+
+        /**
+         * Notify the listener that the backing event stream was closed.
+         *
+         * @param code an integer code to represent the reason for closing
+         * @param phrase a String representation of code
+         */
+        void eventStreamClosed(int code, String phrase);
+
+        /**
+         * Returns the minions whose returns are still waited for, used to decide whether
+         * a job needs to be looked up.
+         *
+         * @return the pending minions or empty if they are not known
+         */
+        default Optional<Set<String>> getPendingMinions() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Only the jid of a jobs.list_job return is needed to route it.
+     */
+    private static class LookupReturn {
+        private String jid;
+    }
+
+    /**
+     * Routers of event streams not providing their own, held as long as the stream.
+     */
+    private static final Map<EventStream, JobReturnRouter> ATTACHED =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Listeners by the jid of the job they are waiting for.
+     */
+    private final Map<String, JobListener> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the router of an event stream that does not provide its own, registering
+     * it as a listener of the stream on first use.
+     *
+     * @param events the event stream
+     * @return the router of the stream
+     */
+    static JobReturnRouter attachedTo(EventStream events) {
+        return ATTACHED.computeIfAbsent(events, stream -> {
+            JobReturnRouter router = new JobReturnRouter();
+            stream.addEventListener(new EventListener() {
+                @Override
+                public void notify(Event event) {
+                    router.notify(event);
+                }
+
+                @Override
+                public void eventStreamClosed(int code, String phrase) {
+                    router.eventStreamClosed(code, phrase);
+                }
+            });
+            return router;
+        });
+    }
+
+    /**
+     * Registers a listener for the events of the given job, replacing any listener that
+     * was registered for the same jid before.
+     *
+     * @param jid the job id
+     * @param listener the listener to notify
+     */
+    public void addJobListener(String jid, JobListener listener) {
+        listeners.put(jid, listener);
+    }
+
+    /**
+     * Removes the listener registered for the given job.
+     *
+     * @param jid the job id
+     * @param listener the listener to remove
+     */
+    public void removeJobListener(String jid, JobListener listener) {
+        listeners.remove(jid, listener);
+    }
+
+    /**
+     * Helper method that returns the number of jobs with a registered listener.
+     *
+     * @return the number of jobs being listened to
+     */
+    public int getJobCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Returns the jids of the jobs with a registered listener.
+     *
+     * @return the jids of the jobs being listened to
+     */
+    public Set<String> getJobIds() {
+        return new HashSet<>(listeners.keySet());
+    }
+
+    /**
+     * Returns the minions whose returns the listener of a job is still waiting for.
+     *
+     * @param jid the job id
+     * @return the pending minions or empty if they are not known
+     */
+    public Optional<Set<String>> getPendingMinions(String jid) {
+        return Optional.ofNullable(listeners.get(jid)).flatMap(JobListener::getPendingMinions);
+    }
+
+    /**
+     * Routes the result of a {@code jobs.list_job} lookup made outside of the event
+     * stream as if it had been received as the return event of the runner.
+     *
+     * @param jid the job id
+     * @param info the result of the lookup
+     */
+    public void notifyLookup(String jid, JsonElement info) {
+        if (!info.isJsonObject()) {
+            return;
+        }
+        JsonObject data = new JsonObject();
+        data.addProperty("fun", LIST_JOB);
+        data.addProperty("jid", jid);
+        data.addProperty("success", true);
+        data.add("return", info);
+        JsonObject event = new JsonObject();
+        event.addProperty("tag", RUN_PREFIX + jid + RUN_RETURN);
+        event.add("data", data);
+        notify(JsonParser.EVENTS.parse(event.toString()));
+    }
+
+    /**
+     * Routes an event to the listener of the job it belongs to, if any.
+     *
+     * @param event the event
+     */
+    public void notify(Event event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        String tag = event.getTag();
+        if (tag.startsWith(JOB_PREFIX)) {
+            jobId(tag).map(listeners::get).ifPresent(listener ->
+                    JobReturnEvent.parse(event).ifPresent(listener::onJobReturn));
+        } else if (tag.startsWith(RUN_PREFIX) && tag.endsWith(RUN_RETURN)) {
+            RunnerReturnEvent.parse(event).ifPresent(rre -> {
+                if (LIST_JOB.contentEquals(rre.getData().getFun())) {
+                    LookupReturn lookup = rre.getData().getResult(LookupReturn.class);
+                    if (lookup != null && lookup.jid != null) {
+                        JobListener listener = listeners.get(lookup.jid);
+                        if (listener != null) {
+                            listener.onLookupReturn(rre);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Notifies and removes all job listeners.
+     *
+     * @param code an integer code to represent the reason for closing
+     * @param phrase a String representation of code
+     */
+    public void eventStreamClosed(int code, String phrase) {
+        listeners.forEach((jid, listener) -> {
+            if (listeners.remove(jid, listener)) {
+                listener.eventStreamClosed(code, phrase);
+            }
+        });
+    }
+
+    /**
+     * Extracts the jid from a tag of the form salt/job/&lt;jid&gt;/ret/&lt;minion&gt;.
+     *
+     * @param tag the event tag
+     * @return the jid or empty if the tag is not a job return
+     */
+    private static Optional<String> jobId(String tag) {
+        int end = tag.indexOf('/', JOB_PREFIX.length());
+        if (end <= JOB_PREFIX.length() || !tag.startsWith(JOB_RETURN, end)) {
+            return Optional.empty();
+        }
+        return Optional.of(tag.substring(JOB_PREFIX.length(), end));
+    }
+}
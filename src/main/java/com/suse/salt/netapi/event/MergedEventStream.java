@@ -0,0 +1,211 @@
+package com.suse.salt.netapi.event;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.suse.salt.netapi.datatypes.Event;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event stream merging the events of several streams, typically connected to the
+ * masters of a multi-master setup, into one. Since minions return to every master,
+ * the same event arrives on several streams: only the first copy of an event is passed
+ * on to the listeners, later copies received within a time window are dropped.
+ * <p>
+ * Job returns ({@code salt/job/<jid>/ret/<minion>}) are identified by their tag alone.
+ * Every other event sent by a minion, like minion start, beacon or job progress events,
+ * carries the minion id and is identified by its tag and its data, leaving out the
+ * {@code _stamp} every master adds on its own. Events of the masters themselves are
+ * identified by their tag, jid and {@code _stamp}.
+ * <p>
+ * The merged stream is closed once all of the streams it merges are closed, so it
+ * keeps delivering events as long as one master is reachable.
+ */
+public class MergedEventStream extends AbstractEventStream {
+
+    /** Default time for which events are remembered to detect duplicates */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    /** Default maximum number of events remembered to detect duplicates */
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    private static final String JOB_PREFIX = "salt/job/";
+    private static final String JOB_RETURN = "/ret/";
+
+    private static final String ID = "id";
+    private static final String JID = "jid";
+    private static final String STAMP = "_stamp";
+
+    private final List<EventStream> streams;
+    private final long windowNanos;
+    private final int maxEntries;
+
+    /** Keys of the events seen within the window by the time they were first seen */
+    private final LinkedHashMap<String, Long> seen = new LinkedHashMap<>();
+    private final AtomicInteger open;
+    private final AtomicLong duplicates = new AtomicLong();
+
+    /**
+     * Creates a stream merging the given streams with the default window.
+     *
+     * @param streams the streams to merge
+     */
+    public MergedEventStream(List<? extends EventStream> streams) {
+        this(streams, DEFAULT_WINDOW, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a stream merging the given streams.
+     *
+     * @param streams the streams to merge
+     * @param window the time for which events are remembered to detect duplicates
+     * @param maxEntries the maximum number of events remembered, the oldest ones are
+     * forgotten first if there are more events within the window
+     */
+    public MergedEventStream(List<? extends EventStream> streams, Duration window,
+            int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                    "valid number of entries");
+        }
+        this.streams = new ArrayList<>(streams);
+        this.windowNanos = window.toNanos();
+        this.maxEntries = maxEntries;
+        this.open = new AtomicInteger();
+        for (EventStream stream : this.streams) {
+            if (stream.isEventStreamClosed()) {
+                continue;
+            }
+            open.incrementAndGet();
+            stream.addEventListener(new EventListener() {
+                @Override
+                public void notify(Event event) {
+                    onEvent(event);
+                }
+
+                @Override
+                public void eventStreamClosed(int code, String phrase) {
+                    onStreamClosed(code, phrase);
+                }
+            });
+        }
+    }
+
+    private void onEvent(Event event) {
+        if (isFirst(key(event), System.nanoTime())) {
+            notifyListeners(event);
+        } else {
+            duplicates.incrementAndGet();
+        }
+    }
+
+    private void onStreamClosed(int code, String phrase) {
+        if (open.decrementAndGet() == 0) {
+            clearListeners(code, phrase);
+        }
+    }
+
+    private static String key(Event event) {
+        String tag = event.getTag();
+        if (tag.startsWith(JOB_PREFIX) && tag.indexOf(JOB_RETURN, JOB_PREFIX.length()) > 0) {
+            return tag;
+        }
+        JsonElement data;
+        try {
+            data = event.getData(JsonElement.class);
+        } catch (JsonParseException e) {
+            return tag;
+        }
+        if (data == null || !data.isJsonObject()) {
+            return tag;
+        }
+        JsonObject object = data.getAsJsonObject();
+        if (object.has(ID)) {
+            // sent by a minion to every master, which stamp it differently
+            object.remove(STAMP);
+            return tag + '\0' + object;
+        }
+        return tag + '\0' + value(object, JID) + '\0' + value(object, STAMP);
+    }
+
+    private static String value(JsonObject object, String member) {
+        JsonElement value = object.get(member);
+        return value == null || value.isJsonNull() ? null : value.toString();
+    }
+
+    /**
+     * Records the key of an event, forgetting the keys that fell out of the window.
+     *
+     * @return true if the key was not seen within the window
+     */
+    private synchronized boolean isFirst(String key, long now) {
+        Iterator<Long> it = seen.values().iterator();
+        while (it.hasNext()) {
+            long firstSeen = it.next();
+            if (now - firstSeen <= windowNanos && seen.size() < maxEntries) {
+                break;
+            }
+            it.remove();
+        }
+        return seen.putIfAbsent(key, now) == null;
+    }
+
+    /**
+     * Returns the streams merged by this stream.
+     *
+     * @return the merged streams
+     */
+    public List<EventStream> getStreams() {
+        return streams;
+    }
+
+    /**
+     * Helper method that returns the number of events dropped as duplicates.
+     *
+     * @return the number of duplicate events
+     */
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEventStreamClosed() {
+        return streams.stream().allMatch(EventStream::isEventStreamClosed);
+    }
+
+    /**
+     * Closes all merged streams.
+     *
+     * @throws IOException in case of an error when closing one of the streams, the
+     * remaining streams are closed nonetheless
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (EventStream stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.suse.salt.netapi.event;
+
+import com.suse.salt.netapi.exception.MessageTooBigException;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer assembling a message received in several fragments. Fragments are
+ * copied into a char array that is kept for the next message, so assembling a message
+ * copies every fragment once into the buffer and once into the resulting string. The
+ * array grows geometrically and is only replaced by a small one after a message that
+ * exceeded the retained size, which defaults to the maximum message length if there is
+ * one, so large messages arriving one after another reuse the same array.
+ */
+class MessageBuffer {
+
+    /** Initial buffer size in characters */
+    private static final int INITIAL_SIZE = 0x400;
+
+    /** Largest buffer size in characters kept between messages of unlimited length */
+    private static final int DEFAULT_RETAINED_SIZE = 0x100000;
+
+    private final int maxLength;
+    private final int retainedSize;
+    private char[] buffer = new char[INITIAL_SIZE];
+    private int length = 0;
+
+    /**
+     * Creates a buffer for messages up to the given length, keeping buffers up to that
+     * length between messages.
+     *
+     * @param maxLength the maximum message length in characters, Integer.MAX_VALUE for
+     * no limit
+     */
+    MessageBuffer(int maxLength) {
+        this(maxLength, maxLength == Integer.MAX_VALUE ? DEFAULT_RETAINED_SIZE : maxLength);
+    }
+
+    /**
+     * Creates a buffer for messages up to the given length.
+     *
+     * @param maxLength the maximum message length in characters
+     * @param retainedSize the largest buffer size in characters kept between messages
+     */
+    MessageBuffer(int maxLength, int retainedSize) {
+        this.maxLength = maxLength;
+        this.retainedSize = retainedSize;
+    }
+
+    /**
+     * Checks that a fragment fits into the maximum message length together with the
+     * fragments buffered so far, discarding them if it does not.
+     *
+     * @param fragment the fragment
+     * @throws MessageTooBigException if the message gets too long
+     */
+    void checkLength(String fragment) throws MessageTooBigException {
+        if (fragment.length() > maxLength - length) {
+            reset();
+            throw new MessageTooBigException(maxLength);
+        }
+    }
+
+    /**
+     * Appends a fragment of the current message.
+     *
+     * @param fragment the fragment
+     * @throws MessageTooBigException if the message gets too long
+     */
+    void append(String fragment) throws MessageTooBigException {
+        checkLength(fragment);
+        int required = length + fragment.length();
+        if (required > buffer.length) {
+            int grown = buffer.length > maxLength / 2 ? maxLength : buffer.length * 2;
+            buffer = Arrays.copyOf(buffer, Math.max(grown, required));
+        }
+        fragment.getChars(0, fragment.length(), buffer, length);
+        length = required;
+    }
+
+    /**
+     * Returns the assembled message and empties the buffer for the next one.
+     *
+     * @return the message
+     */
+    String take() {
+        String message = new String(buffer, 0, length);
+        reset();
+        return message;
+    }
+
+    /**
+     * Returns whether fragments of a message are buffered.
+     *
+     * @return true if the buffer is empty
+     */
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Helper method that returns the size of the current buffer.
+     *
+     * @return the size in characters
+     */
+    int capacity() {
+        return buffer.length;
+    }
+
+    private void reset() {
+        length = 0;
+        if (buffer.length > retainedSize) {
+            buffer = new char[INITIAL_SIZE];
+        }
+    }
+}
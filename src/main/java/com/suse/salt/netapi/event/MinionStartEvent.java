@@ -84,11 +84,25 @@ public class MinionStartEvent {
     }
 
     /**
-     * Utility method to parse e generic event to a more specific one
+     * Utility method to parse a generic event into a more specific one. The result is
+     * kept by the event, so it is only decoded once no matter how many listeners parse
+     * the same event. It is shared by them and must not be modified.
+     *
      * @param event the generic event to parse
      * @return an option containing the parsed value or non if it could not be parsed
      */
     public static Optional<MinionStartEvent> parse(Event event) {
+        return event.as(MinionStartEvent.class);
+    }
+
+    /**
+     * Decodes a generic event of the {@link EventFamily#MINION_START} family, called at most
+     * once per event through {@link Event#as(Class)}.
+     *
+     * @param event the generic event to decode
+     * @return an option containing the decoded value or none if it could not be decoded
+     */
+    static Optional<MinionStartEvent> decode(Event event) {
         Matcher matcher = PATTERN.matcher(event.getTag());
         if (matcher.matches()) {
             MinionStartEvent result = new MinionStartEvent(matcher.group(1),
@@ -0,0 +1,29 @@
+package com.suse.salt.netapi.event;
+
+/**
+ * Possible strategies for handling events that arrive while the dispatch queue of an
+ * {@link EventDispatcher} is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Wait for space in the queue, applying backpressure to the event source.
+     */
+    BLOCK,
+
+    /**
+     * Discard the oldest queued event to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard events with a droppable tag, either the new event or the oldest queued
+     * droppable one. Blocks if there is no droppable event to discard.
+     */
+    DROP_BY_TAG,
+
+    /**
+     * Give up and close the event stream.
+     */
+    FAIL_STREAM
+}
@@ -0,0 +1,146 @@
+package com.suse.salt.netapi.event;
+
+/**
+ * Configuration for reconnecting a {@link ReconnectingEventStream} after the
+ * connection was closed.
+ */
+public class ReconnectConfig {
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+    private final int reconcileBatchSize;
+
+    private ReconnectConfig(ReconnectConfigBuilder builder) {
+        this.initialDelayMillis = builder.initialDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.maxAttempts = builder.maxAttempts;
+        this.reconcileBatchSize = builder.reconcileBatchSize;
+    }
+
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public int getReconcileBatchSize() {
+        return reconcileBatchSize;
+    }
+
+    /**
+     * Returns the delay before the given reconnection attempt: the initial delay is
+     * doubled with every failed attempt up to the maximum delay, and a random part of up
+     * to half of it is subtracted so that clients do not reconnect all at once.
+     *
+     * @param attempt the number of the attempt, starting with 0
+     * @param random a random value between 0 and 1
+     * @return the delay in milliseconds
+     */
+    long getDelayMillis(int attempt, double random) {
+        long delay = initialDelayMillis << Math.min(attempt, 30);
+        if (delay <= 0 || delay > maxDelayMillis) {
+            delay = maxDelayMillis;
+        }
+        return delay - (long) (delay / 2 * random);
+    }
+
+    /**
+     * Returns a ReconnectConfigBuilder for instantiating a custom config.
+     *
+     * @return a ReconnectConfigBuilder instance.
+     */
+    public static ReconnectConfigBuilder custom() {
+        return new ReconnectConfigBuilder();
+    }
+
+    /**
+     * Helper class for building a ReconnectConfig.
+     */
+    public static class ReconnectConfigBuilder {
+        private long initialDelayMillis = 1000;
+        private long maxDelayMillis = 60000;
+        private int maxAttempts = Integer.MAX_VALUE;
+        private int reconcileBatchSize = 50;
+
+        private ReconnectConfigBuilder() {
+        }
+
+        /**
+         * Sets the delay before the first attempt to reconnect.
+         *
+         * @param value the delay in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public ReconnectConfigBuilder withInitialDelayMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid delay");
+            }
+            this.initialDelayMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay between two attempts to reconnect.
+         *
+         * @param value the delay in milliseconds, which must be greater than 0
+         * @return the builder
+         */
+        public ReconnectConfigBuilder withMaxDelayMillis(long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid delay");
+            }
+            this.maxDelayMillis = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of failed attempts to reconnect after which the stream is
+         * closed for good.
+         *
+         * @param value the maximum number of attempts, which must be greater than 0
+         * @return the builder
+         */
+        public ReconnectConfigBuilder withMaxAttempts(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid number of attempts");
+            }
+            this.maxAttempts = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of pending jobs looked up with a single request after
+         * reconnecting.
+         *
+         * @param value the batch size, which must be greater than 0
+         * @return the builder
+         */
+        public ReconnectConfigBuilder withReconcileBatchSize(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid batch size");
+            }
+            this.reconcileBatchSize = value;
+            return this;
+        }
+
+        /**
+         * Builds the ReconnectConfig.
+         *
+         * @return the ReconnectConfig
+         */
+        public ReconnectConfig build() {
+            return new ReconnectConfig(this);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.suse.salt.netapi.event;
+
+import jakarta.websocket.CloseReason.CloseCodes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.client.CallBatch;
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.exception.SaltException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Event stream that reconnects when its connection is closed, for example by an idle
+ * timeout, a restarting master or a message exceeding the maximum size, instead of
+ * failing all jobs waited for.
+ * <p>
+ * Reconnection attempts are delayed with an exponential backoff and use a fresh token
+ * from the given token supplier, so an expired session is renewed as well. Events
+ * fired while the stream was disconnected are lost, therefore the jobs still waited for
+ * through the {@link JobReturnRouter} are looked up with batched {@code jobs.list_job}
+ * calls once the stream is connected again: the returns the master received in the
+ * meantime are delivered to the job listeners like the result of a lookup made by
+ * {@link com.suse.salt.netapi.calls.LocalCall}.
+ * <p>
+ * Listeners are only notified of the stream being closed if it is closed by calling
+ * {@link #close()} or if reconnecting failed the configured number of times.
+ */
+public class ReconnectingEventStream extends AbstractEventStream {
+
+    private static final TypeToken<JsonElement> JSON_TYPE = TypeToken.get(JsonElement.class);
+
+    /**
+     * Opens the underlying event streams.
+     */
+    @FunctionalInterface
+    public interface StreamFactory {
+
+        /**
+         * Opens an event stream.
+         *
+         * @param token the token to authenticate with
+         * @return the connected stream
+         * @throws SaltException in case of an error during stream initialization
+         */
+        EventStream connect(Token token) throws SaltException;
+    }
+
+    private final SaltClient client;
+    private final Supplier<CompletionStage<Token>> tokens;
+    private final StreamFactory factory;
+    private final ReconnectConfig config;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private final AtomicInteger reconnects = new AtomicInteger();
+    private volatile EventStream stream;
+
+    /**
+     * Creates an event stream connected to the /ws endpoint of the given client.
+     *
+     * @param client the client to connect with and to look up jobs with
+     * @param tokens supplier of the tokens to authenticate with, called for every
+     * connection attempt
+     * @param sessionIdleTimeout session idle timeout to pass to the http client config
+     * @param idleTimeout idle timeout to pass to the http client config
+     * @param maxMsgSize maximum event data size to accept
+     * @param config configuration of the reconnection attempts
+     * @param listeners event listeners to be added before the stream is initialized
+     * @throws SaltException in case of an error during the first connection
+     */
+    public ReconnectingEventStream(SaltClient client, Supplier<CompletionStage<Token>> tokens,
+            long sessionIdleTimeout, long idleTimeout, int maxMsgSize, ReconnectConfig config,
+            EventListener... listeners) throws SaltException {
+        this(client, tokens, token -> client.events(token, sessionIdleTimeout, idleTimeout,
+                maxMsgSize), config, listeners);
+    }
+
+    /**
+     * Creates an event stream connected through the given factory.
+     *
+     * @param client the client to look up jobs with
+     * @param tokens supplier of the tokens to authenticate with, called for every
+     * connection attempt
+     * @param factory factory opening the underlying streams
+     * @param config configuration of the reconnection attempts
+     * @param listeners event listeners to be added before the stream is initialized
+     * @throws SaltException in case of an error during the first connection
+     */
+    public ReconnectingEventStream(SaltClient client, Supplier<CompletionStage<Token>> tokens,
+            StreamFactory factory, ReconnectConfig config, EventListener... listeners)
+            throws SaltException {
+        this.client = client;
+        this.tokens = tokens;
+        this.factory = factory;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "salt-event-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Arrays.asList(listeners).forEach(this::addEventListener);
+        try {
+            Token token = tokens.get().toCompletableFuture().join();
+            attach(factory.connect(token));
+        } catch (CompletionException e) {
+            scheduler.shutdownNow();
+            throw new SaltException(e.getCause());
+        } catch (SaltException e) {
+            scheduler.shutdownNow();
+            throw e;
+        }
+    }
+
+    /**
+     * Registers a listener on a newly connected stream, forwarding its events and
+     * reconnecting when it is closed.
+     */
+    private void attach(EventStream connected) {
+        stream = connected;
+        connected.addEventListener(new EventListener() {
+            @Override
+            public void notify(Event event) {
+                notifyListeners(event);
+            }
+
+            @Override
+            public void eventStreamClosed(int code, String phrase) {
+                onStreamClosed(code, phrase);
+            }
+        });
+    }
+
+    private void onStreamClosed(int code, String phrase) {
+        if (closed.get()) {
+            finish(code, phrase);
+        } else {
+            scheduleReconnect(0, code, phrase);
+        }
+    }
+
+    private void scheduleReconnect(int attempt, int code, String phrase) {
+        if (attempt >= config.getMaxAttempts()) {
+            finish(code, phrase);
+            return;
+        }
+        long delay = config.getDelayMillis(attempt, ThreadLocalRandom.current().nextDouble());
+        try {
+            scheduler.schedule(() -> reconnect(attempt, code, phrase), delay,
+                    TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // the scheduler has been shut down by close()
+            finish(code, phrase);
+        }
+    }
+
+    private void reconnect(int attempt, int code, String phrase) {
+        if (closed.get()) {
+            finish(code, phrase);
+            return;
+        }
+        tokens.get().whenComplete((token, error) -> {
+            if (error != null) {
+                scheduleReconnect(attempt + 1, code, phrase);
+                return;
+            }
+            try {
+                scheduler.execute(() -> {
+                    try {
+                        attach(factory.connect(token));
+                    } catch (SaltException | RuntimeException e) {
+                        scheduleReconnect(attempt + 1, code, phrase);
+                        return;
+                    }
+                    reconnects.incrementAndGet();
+                    if (closed.get()) {
+                        closeQuietly(stream);
+                    } else {
+                        reconcile(new AuthMethod(token));
+                    }
+                });
+            } catch (RuntimeException e) {
+                finish(code, phrase);
+            }
+        });
+    }
+
+    /**
+     * Looks up the jobs still waited for and delivers the returns received by the master
+     * while the stream was disconnected.
+     */
+    private void reconcile(AuthMethod auth) {
+        List<String> jids = new ArrayList<>(getJobReturnRouter().getJobIds());
+        for (int from = 0; from < jids.size(); from += config.getReconcileBatchSize()) {
+            CallBatch batch = new CallBatch();
+            for (String jid : jids.subList(from,
+                    Math.min(from + config.getReconcileBatchSize(), jids.size()))) {
+                batch.add(Jobs.listJob(jid), Client.RUNNER, Optional.empty(), Map.of(),
+                        JSON_TYPE).thenAccept(info -> getJobReturnRouter().notifyLookup(jid, info));
+            }
+            // jobs whose lookup fails keep waiting for their events
+            client.callBatch(batch, auth);
+        }
+    }
+
+    private void finish(int code, String phrase) {
+        if (finished.compareAndSet(false, true)) {
+            scheduler.shutdownNow();
+            clearListeners(code, phrase);
+        }
+    }
+
+    private static void closeQuietly(EventStream eventStream) {
+        try {
+            eventStream.close();
+        } catch (IOException e) {
+            // the stream is abandoned anyway
+        }
+    }
+
+    /**
+     * Returns the number of times the stream has been reconnected.
+     *
+     * @return the number of successful reconnections
+     */
+    public int getReconnectCount() {
+        return reconnects.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stream is not considered closed while it is reconnecting.
+     */
+    @Override
+    public boolean isEventStreamClosed() {
+        return finished.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed.compareAndSet(false, true)) {
+            EventStream current = stream;
+            if (current.isEventStreamClosed()) {
+                // reconnecting, no close event will arrive
+                finish(CloseCodes.GOING_AWAY.getCode(),
+                        "The listener has closed the event stream");
+            } else {
+                current.close();
+            }
+        }
+    }
+}
@@ -98,12 +98,25 @@ public class RunnerReturnEvent {
     }
 
     /**
-     * Utility method to parse a generic event into a more specific one.
+     * Utility method to parse a generic event into a more specific one. The result is
+     * kept by the event, so it is only decoded once no matter how many listeners parse
+     * the same event. It is shared by them and must not be modified.
      *
      * @param event the generic event to parse
      * @return an option containing the parsed value or non if it could not be parsed
      */
     public static Optional<RunnerReturnEvent> parse(Event event) {
+        return event.as(RunnerReturnEvent.class);
+    }
+
+    /**
+     * Decodes a generic event of the {@link EventFamily#RUNNER_RETURN} family, called at most
+     * once per event through {@link Event#as(Class)}.
+     *
+     * @param event the generic event to decode
+     * @return an option containing the decoded value or none if it could not be decoded
+     */
+    static Optional<RunnerReturnEvent> decode(Event event) {
         Matcher matcher = PATTERN.matcher(event.getTag());
         if (matcher.matches()) {
             Data data = event.getData(Data.class);
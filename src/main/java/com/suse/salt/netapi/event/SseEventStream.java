@@ -0,0 +1,272 @@
+package com.suse.salt.netapi.event;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.client.AsyncHttpClient;
+import com.suse.salt.netapi.datatypes.LazyEvent;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.exception.MessageTooBigException;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Event stream implementation reading the server-sent events of the {@code /events}
+ * endpoint with an {@link AsyncHttpClient}, so no WebSocket container is needed.
+ * <p>
+ * Frames are parsed while the response is received: lines are split directly in a
+ * reusable byte buffer, the data fields of an event are collected in a second reusable
+ * buffer and decoded into the string the event is parsed from. Buffers grown by a large
+ * event are shrunk again afterwards. This requires an http client that hands the response body to the
+ * parser while it is being received, like
+ * {@link com.suse.salt.netapi.client.impl.HttpAsyncClientImpl} in streaming mode or
+ * {@link com.suse.salt.netapi.client.impl.JavaHttpClientImpl}. Listeners are notified on
+ * the thread running the parser, which is occupied for the lifetime of the stream.
+ * <p>
+ * Listeners are notified of the stream being closed with the codes a
+ * {@link WebSocketEventStream} would use.
+ */
+public class SseEventStream extends AbstractEventStream {
+
+    /** Close code of a stream ended by the server */
+    private static final int NORMAL_CLOSURE = 1000;
+
+    /** Close code of a stream closed by calling {@link #close()} */
+    private static final int GOING_AWAY = 1001;
+
+    /** Close code of a stream failing with an error */
+    private static final int CLOSED_ABNORMALLY = 1006;
+
+    /** Close code of a stream receiving an event exceeding the maximum size */
+    private static final int TOO_BIG = 1009;
+
+    /** Initial size of the line and data buffers in bytes */
+    private static final int BUFFER_SIZE = 0x2000;
+
+    /** Size up to which grown line and data buffers are kept for the next events */
+    private static final int RETAINED_SIZE = 0x20000;
+
+    private static final byte[] DATA_FIELD = "data:".getBytes(StandardCharsets.US_ASCII);
+
+    private final int maxMessageLength;
+    private final CompletableFuture<Void> request;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates an event stream and starts receiving events.
+     *
+     * @param uri salt api url
+     * @param token salt session token to use for authentication
+     * @param asyncHttpClient http client to receive the events with
+     * @param maxMsgSize maximum event data size to accept in bytes, 0 for no limit
+     * @param listeners event listeners to be added before the stream is initialized
+     */
+    public SseEventStream(URI uri, Token token, AsyncHttpClient asyncHttpClient,
+            int maxMsgSize, EventListener... listeners) {
+        this.maxMessageLength = maxMsgSize > 0 ? maxMsgSize : Integer.MAX_VALUE;
+        Arrays.asList(listeners).forEach(this::addEventListener);
+
+        // the endpoint only accepts the token as query parameter
+        URI events = uri.resolve("/").resolve("events?token=" +
+                URLEncoder.encode(token.getToken(), StandardCharsets.UTF_8));
+        this.request = asyncHttpClient.get(events, Collections.emptyMap(), new FrameParser())
+                .toCompletableFuture();
+        request.whenComplete((v, error) -> onEnd(error));
+    }
+
+    private void onEnd(Throwable error) {
+        if (closed) {
+            clearListeners(GOING_AWAY, "The listener has closed the event stream");
+        } else if (error == null) {
+            clearListeners(NORMAL_CLOSURE, "The server has ended the event stream");
+        } else {
+            Throwable cause = error;
+            while (cause instanceof CompletionException || cause instanceof UncheckedIOException ||
+                    (cause instanceof IllegalStateException && cause.getCause() != null)) {
+                cause = cause.getCause();
+            }
+            clearListeners(cause instanceof MessageTooBigException ? TOO_BIG : CLOSED_ABNORMALLY,
+                    String.valueOf(cause.getMessage()));
+        }
+    }
+
+    /**
+     * Parser reading the frames of the event stream until it ends.
+     */
+    private final class FrameParser extends JsonParser<Void> {
+
+        private byte[] line = new byte[BUFFER_SIZE];
+        private int start = 0;
+        private int end = 0;
+        /** Position up to which the line buffer has been searched for a newline */
+        private int scanned = 0;
+
+        private byte[] data = new byte[BUFFER_SIZE];
+        private int dataLength = 0;
+        private boolean hasData = false;
+
+        private FrameParser() {
+            super(TypeToken.get(Void.class));
+        }
+
+        @Override
+        public Void parse(InputStream inputStream) {
+            try {
+                read(inputStream);
+            } catch (IOException e) {
+                if (!closed) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void parse(String frames) {
+            return parse(new ByteArrayInputStream(frames.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private void read(InputStream in) throws IOException {
+            while (!closed) {
+                int newline = indexOf('\n');
+                if (newline < 0) {
+                    if (!fill(in)) {
+                        return;
+                    }
+                    continue;
+                }
+                int lineEnd = newline > start && line[newline - 1] == '\r' ?
+                        newline - 1 : newline;
+                if (lineEnd == start) {
+                    dispatch();
+                } else if (isDataField(lineEnd)) {
+                    int from = start + DATA_FIELD.length;
+                    if (from < lineEnd && line[from] == ' ') {
+                        from++;
+                    }
+                    appendData(from, lineEnd);
+                }
+                // other fields like event, id and retry are not used by Salt API
+                start = newline + 1;
+            }
+        }
+
+        /**
+         * Searches the next line end, continuing where the previous search stopped so
+         * that a long line arriving in many chunks is only searched once.
+         */
+        private int indexOf(char c) {
+            for (int i = Math.max(start, scanned); i < end; i++) {
+                if (line[i] == c) {
+                    scanned = i + 1;
+                    return i;
+                }
+            }
+            scanned = end;
+            return -1;
+        }
+
+        /**
+         * Reads more bytes, moving the incomplete line to the front of the buffer or
+         * growing it if the line fills it already.
+         *
+         * @return false if the stream has ended
+         */
+        private boolean fill(InputStream in) throws IOException {
+            if (start > 0) {
+                int pending = end - start;
+                if (line.length > RETAINED_SIZE && pending <= BUFFER_SIZE) {
+                    // the line that grew the buffer has been read
+                    line = Arrays.copyOfRange(line, start, start + BUFFER_SIZE);
+                } else {
+                    System.arraycopy(line, start, line, 0, pending);
+                }
+                scanned -= start;
+                end = pending;
+                start = 0;
+            }
+            if (end == line.length) {
+                if (line.length - DATA_FIELD.length > maxMessageLength) {
+                    throw new IllegalStateException(new MessageTooBigException(maxMessageLength));
+                }
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            int read = in.read(line, end, line.length - end);
+            if (read < 0) {
+                return false;
+            }
+            end += read;
+            return true;
+        }
+
+        private boolean isDataField(int lineEnd) {
+            if (lineEnd - start < DATA_FIELD.length) {
+                return false;
+            }
+            for (int i = 0; i < DATA_FIELD.length; i++) {
+                if (line[start + i] != DATA_FIELD[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Appends the value of a data field to the data of the current event, joining
+         * multiple data fields with a newline.
+         */
+        private void appendData(int from, int to) {
+            int length = to - from + (hasData ? 1 : 0);
+            if (length > maxMessageLength - dataLength) {
+                throw new IllegalStateException(new MessageTooBigException(maxMessageLength));
+            }
+            if (dataLength + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + length));
+            }
+            if (hasData) {
+                data[dataLength++] = '\n';
+            }
+            System.arraycopy(line, from, data, dataLength, to - from);
+            dataLength += to - from;
+            hasData = true;
+        }
+
+        private void dispatch() {
+            if (hasData) {
+                String json = new String(data, 0, dataLength, StandardCharsets.UTF_8);
+                dataLength = 0;
+                hasData = false;
+                if (data.length > RETAINED_SIZE) {
+                    data = new byte[BUFFER_SIZE];
+                }
+                notifyListeners(LazyEvent.parse(json));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEventStreamClosed() {
+        return closed || request.isDone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        closed = true;
+        request.cancel(false);
+    }
+}
@@ -0,0 +1,431 @@
+package com.suse.salt.netapi.event;
+
+import com.suse.salt.netapi.datatypes.Event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatches events to listeners subscribed to a tag pattern. Patterns are indexed in a
+ * trie of their tag segments, so an event is only compared with the segments along
+ * the paths its tag can match and listeners subscribed to other tags cost nothing.
+ * <p>
+ * A pattern without wildcards matches the tag itself and all tags below it, like
+ * {@code salt/job} matching {@code salt/job/<jid>/new}. Other patterns must match the
+ * whole tag, where {@code *} and {@code ?} match within a segment and character classes
+ * like {@code [0-9]} are supported. Wildcards in the last segment of a pattern also
+ * match further segments, so {@code salt/beacon/*}{@code /inotify/*} matches the paths
+ * reported by the inotify beacon. Trailing slashes of patterns without wildcards are
+ * ignored, so {@code salt/job/} is the same as {@code salt/job}.
+ * <p>
+ * Subscriptions are added and removed under a lock while events are dispatched without
+ * locking.
+ */
+class TagPatternDispatcher {
+
+    /**
+     * Listener subscribed to a pattern.
+     */
+    private static final class Subscription {
+        private final String pattern;
+        private final EventListener listener;
+
+        private Subscription(String pattern, EventListener listener) {
+            this.pattern = pattern;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Segment containing wildcards, matched by a regular expression.
+     */
+    private static final class Glob<T> {
+        private final String glob;
+        private final Pattern pattern;
+        private final T target;
+
+        private Glob(String glob, Pattern pattern, T target) {
+            this.glob = glob;
+            this.pattern = pattern;
+            this.target = target;
+        }
+    }
+
+    /**
+     * Node of the trie reached by a sequence of pattern segments.
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new ConcurrentHashMap<>();
+        private final List<Glob<Node>> globs = new CopyOnWriteArrayList<>();
+        private volatile Node wildcard;
+
+        /** Listeners of the pattern ending at this node */
+        private final List<EventListener> exact = new CopyOnWriteArrayList<>();
+
+        /** Listeners of the prefix ending at this node */
+        private final List<EventListener> prefix = new CopyOnWriteArrayList<>();
+
+        /** Listeners of the pattern ending with a single {@code *} after this node */
+        private final List<EventListener> remainder = new CopyOnWriteArrayList<>();
+
+        /** Listeners of the patterns ending with another glob after this node */
+        private final List<Glob<List<EventListener>>> terminals = new CopyOnWriteArrayList<>();
+    }
+
+    private volatile Node root = new Node();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns a listener forwarding the events matching a tag pattern to the given
+     * listener, for event streams that do not index subscriptions themselves.
+     *
+     * @param pattern the tag pattern
+     * @param listener the listener to notify of matching events
+     * @return the filtering listener
+     * @throws IllegalArgumentException if the pattern is empty
+     */
+    static EventListener filter(String pattern, EventListener listener) {
+        TagPatternDispatcher dispatcher = new TagPatternDispatcher();
+        dispatcher.add(pattern, listener);
+        return new EventListener() {
+            @Override
+            public void notify(Event event) {
+                dispatcher.dispatch(event);
+            }
+
+            @Override
+            public void eventStreamClosed(int code, String phrase) {
+                listener.eventStreamClosed(code, phrase);
+            }
+        };
+    }
+
+    /**
+     * Subscribes a listener to a tag pattern.
+     *
+     * @param pattern the tag pattern
+     * @param listener the listener to notify of matching events
+     * @throws IllegalArgumentException if the pattern is empty
+     */
+    synchronized void add(String pattern, EventListener listener) {
+        String normalized = normalize(pattern);
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Empty tag pattern");
+        }
+        listeners(normalized).add(listener);
+        subscriptions.add(new Subscription(normalized, listener));
+    }
+
+    /**
+     * Removes all subscriptions of a listener.
+     *
+     * @param listener the listener
+     * @return true if the listener was subscribed to a pattern
+     */
+    synchronized boolean remove(EventListener listener) {
+        boolean removed = false;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                unsubscribe(subscription.pattern, listener);
+                subscriptions.remove(subscription);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of subscriptions.
+     *
+     * @return the number of subscriptions
+     */
+    int size() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Returns the distinct listeners of all subscriptions.
+     *
+     * @return the subscribed listeners
+     */
+    List<EventListener> getListeners() {
+        List<EventListener> result = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            if (result.stream().noneMatch(l -> l == subscription.listener)) {
+                result.add(subscription.listener);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all subscriptions.
+     */
+    synchronized void clear() {
+        subscriptions.clear();
+        root = new Node();
+    }
+
+    /**
+     * Notifies the listeners of all patterns matching the tag of an event, once per
+     * matching subscription.
+     *
+     * @param event the event
+     */
+    void dispatch(Event event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        String tag = event.getTag();
+        dispatch(root, tag, 0, event);
+    }
+
+    /**
+     * Walks the trie along the tag segments starting at the given index.
+     */
+    private static void dispatch(Node node, String tag, int start, Event event) {
+        notify(node.prefix, event);
+        if (start > tag.length()) {
+            // all segments are consumed
+            notify(node.exact, event);
+            return;
+        }
+        notify(node.remainder, event);
+        if (!node.terminals.isEmpty()) {
+            String rest = tag.substring(start);
+            for (Glob<List<EventListener>> terminal : node.terminals) {
+                if (terminal.pattern.matcher(rest).matches()) {
+                    notify(terminal.target, event);
+                }
+            }
+        }
+        int end = tag.indexOf('/', start);
+        if (end < 0) {
+            end = tag.length();
+        }
+        String segment = tag.substring(start, end);
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            dispatch(literal, tag, end + 1, event);
+        }
+        Node wildcard = node.wildcard;
+        if (wildcard != null) {
+            dispatch(wildcard, tag, end + 1, event);
+        }
+        for (Glob<Node> glob : node.globs) {
+            if (glob.pattern.matcher(segment).matches()) {
+                dispatch(glob.target, tag, end + 1, event);
+            }
+        }
+    }
+
+    private static void notify(Collection<EventListener> listeners, Event event) {
+        for (EventListener listener : listeners) {
+            listener.notify(event);
+        }
+    }
+
+    /**
+     * Strips the trailing slashes of a pattern without wildcards.
+     */
+    private static String normalize(String pattern) {
+        if (isGlob(pattern)) {
+            return pattern;
+        }
+        int end = pattern.length();
+        while (end > 0 && pattern.charAt(end - 1) == '/') {
+            end--;
+        }
+        return pattern.substring(0, end);
+    }
+
+    /**
+     * Removes a listener from the list of a pattern and prunes the nodes, globs and
+     * terminals left without subscriptions along its path.
+     */
+    private void unsubscribe(String pattern, EventListener listener) {
+        List<Node> path = new ArrayList<>();
+        List<String> segments = new ArrayList<>(List.of(pattern.split("/", -1)));
+        String last = segments.remove(segments.size() - 1);
+        Node node = root;
+        path.add(node);
+        for (String segment : segments) {
+            node = existingChild(node, segment);
+            if (node == null) {
+                return;
+            }
+            path.add(node);
+        }
+        if (!isGlob(pattern) || (!last.equals("*") && !isGlob(last))) {
+            Node leaf = existingChild(node, last);
+            if (leaf == null) {
+                return;
+            }
+            (isGlob(pattern) ? leaf.exact : leaf.prefix).remove(listener);
+            segments.add(last);
+            path.add(leaf);
+        } else if (last.equals("*")) {
+            node.remainder.remove(listener);
+        } else {
+            for (Glob<List<EventListener>> terminal : node.terminals) {
+                if (terminal.glob.equals(last)) {
+                    terminal.target.remove(listener);
+                    if (terminal.target.isEmpty()) {
+                        node.terminals.remove(terminal);
+                    }
+                }
+            }
+        }
+        for (int i = path.size() - 1; i > 0 && isEmpty(path.get(i)); i--) {
+            removeChild(path.get(i - 1), segments.get(i - 1));
+        }
+    }
+
+    /**
+     * Returns true if no subscription ends at or below a node.
+     */
+    private static boolean isEmpty(Node node) {
+        return node.literals.isEmpty() && node.globs.isEmpty() && node.wildcard == null &&
+                node.exact.isEmpty() && node.prefix.isEmpty() && node.remainder.isEmpty() &&
+                node.terminals.isEmpty();
+    }
+
+    /**
+     * Returns the number of nodes in the trie, including the root.
+     *
+     * @return the number of nodes
+     */
+    int nodeCount() {
+        return nodeCount(root);
+    }
+
+    private static int nodeCount(Node node) {
+        int count = 1;
+        for (Node literal : node.literals.values()) {
+            count += nodeCount(literal);
+        }
+        for (Glob<Node> glob : node.globs) {
+            count += nodeCount(glob.target);
+        }
+        Node wildcard = node.wildcard;
+        return wildcard == null ? count : count + nodeCount(wildcard);
+    }
+
+    /**
+     * Returns the list of listeners of a pattern, creating the nodes along its path.
+     */
+    private List<EventListener> listeners(String pattern) {
+        boolean glob = isGlob(pattern);
+        Node node = root;
+        int start = 0;
+        int end = pattern.indexOf('/');
+        while (end >= 0) {
+            node = child(node, pattern.substring(start, end));
+            start = end + 1;
+            end = pattern.indexOf('/', start);
+        }
+        String last = pattern.substring(start);
+        if (!glob) {
+            return child(node, last).prefix;
+        } else if (last.equals("*")) {
+            return node.remainder;
+        } else if (!isGlob(last)) {
+            return child(node, last).exact;
+        }
+        for (Glob<List<EventListener>> terminal : node.terminals) {
+            if (terminal.glob.equals(last)) {
+                return terminal.target;
+            }
+        }
+        Glob<List<EventListener>> terminal =
+                new Glob<>(last, compile(last, "."), new CopyOnWriteArrayList<>());
+        node.terminals.add(terminal);
+        return terminal.target;
+    }
+
+    private static Node child(Node node, String segment) {
+        if (segment.equals("*")) {
+            if (node.wildcard == null) {
+                node.wildcard = new Node();
+            }
+            return node.wildcard;
+        } else if (!isGlob(segment)) {
+            return node.literals.computeIfAbsent(segment, s -> new Node());
+        }
+        for (Glob<Node> glob : node.globs) {
+            if (glob.glob.equals(segment)) {
+                return glob.target;
+            }
+        }
+        Glob<Node> glob = new Glob<>(segment, compile(segment, "[^/]"), new Node());
+        node.globs.add(glob);
+        return glob.target;
+    }
+
+    private static Node existingChild(Node node, String segment) {
+        if (segment.equals("*")) {
+            return node.wildcard;
+        } else if (!isGlob(segment)) {
+            return node.literals.get(segment);
+        }
+        for (Glob<Node> glob : node.globs) {
+            if (glob.glob.equals(segment)) {
+                return glob.target;
+            }
+        }
+        return null;
+    }
+
+    private static void removeChild(Node node, String segment) {
+        if (segment.equals("*")) {
+            node.wildcard = null;
+        } else if (!isGlob(segment)) {
+            node.literals.remove(segment);
+        } else {
+            node.globs.removeIf(glob -> glob.glob.equals(segment));
+        }
+    }
+
+    private static boolean isGlob(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 ||
+                pattern.indexOf('[') >= 0;
+    }
+
+    /**
+     * Translates a glob segment into a regular expression.
+     *
+     * @param glob the glob
+     * @param any the expression matching any single character
+     */
+    private static Pattern compile(String glob, String any) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            int close = c == '[' ? glob.indexOf(']', i + 2) : -1;
+            if (c == '*') {
+                regex.append(any).append('*');
+            } else if (c == '?') {
+                regex.append(any);
+            } else if (close > 0) {
+                String set = glob.substring(i + 1, close);
+                regex.append('[');
+                if (set.charAt(0) == '!') {
+                    regex.append('^');
+                    set = set.substring(1);
+                }
+                regex.append(set.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+                i = close;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            i++;
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
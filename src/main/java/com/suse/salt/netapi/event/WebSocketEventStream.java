@@ -15,15 +15,17 @@ import jakarta.websocket.WebSocketContainer;
 import jakarta.websocket.server.ServerEndpoint;
 
 import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.datatypes.LazyEvent;
 import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.exception.EventQueueFullException;
 import com.suse.salt.netapi.exception.MessageTooBigException;
 import com.suse.salt.netapi.exception.SaltException;
-import com.suse.salt.netapi.parser.JsonParser;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Optional;
 
 /**
  * Event stream implementation based on a {@link ClientEndpoint} WebSocket.
@@ -33,20 +35,10 @@ import java.util.Arrays;
 @ClientEndpoint
 public class WebSocketEventStream extends AbstractEventStream {
 
-    /**
-     * Default message buffer size in characters.
-     */
-    private final int defaultBufferSize = 0x400;
-
-    /**
-     * Maximum message length in characters
-     */
-    private final int maxMessageLength;
-
     /**
      * Buffer for partial messages.
      */
-    private final StringBuilder messageBuffer = new StringBuilder(defaultBufferSize);
+    private final MessageBuffer messageBuffer;
 
     /**
      * The {@link WebSocketContainer} object for a @ClientEndpoint implementation.
@@ -54,6 +46,11 @@ public class WebSocketEventStream extends AbstractEventStream {
     private final WebSocketContainer websocketContainer =
             ContainerProvider.getWebSocketContainer();
 
+    /**
+     * Dispatcher for notifying listeners asynchronously, if enabled.
+     */
+    private final Optional<EventDispatcher> dispatcher;
+
     /**
      * The WebSocket {@link Session}.
      */
@@ -66,7 +63,8 @@ public class WebSocketEventStream extends AbstractEventStream {
      * @param uri salt api url
      * @param listeners event listeners to be added before stream initialization
      * @param idleTimeout idle timeout to pass to the http client config
-     * @param maxMsgSize maximum event data size to accept
+     * @param maxMsgSize maximum event data size to accept, which also bounds the buffer
+     * kept for assembling the next events
      * @param sessionIdleTimeout session idle timeout to pass to the http client config
      * @param token salt session token to use for authentication
      * @throws SaltException in case of an error during stream initialization
@@ -74,10 +72,38 @@ public class WebSocketEventStream extends AbstractEventStream {
     public WebSocketEventStream(URI uri, Token token, long sessionIdleTimeout, long idleTimeout,
                                 int maxMsgSize, EventListener... listeners)
             throws SaltException {
-        maxMessageLength = maxMsgSize > 0 ?
-                maxMsgSize : Integer.MAX_VALUE;
+        this(uri, token, sessionIdleTimeout, idleTimeout, maxMsgSize, Optional.empty(), listeners);
+    }
+
+    /**
+     * Constructor used to create an event stream that notifies listeners asynchronously
+     * through a bounded queue: open a websocket connection and start event processing.
+     *
+     * @param uri salt api url
+     * @param listeners event listeners to be added before stream initialization
+     * @param idleTimeout idle timeout to pass to the http client config
+     * @param maxMsgSize maximum event data size to accept, which also bounds the buffer
+     * kept for assembling the next events
+     * @param sessionIdleTimeout session idle timeout to pass to the http client config
+     * @param token salt session token to use for authentication
+     * @param dispatchConfig configuration of the event dispatch queue, empty to notify
+     * listeners on the websocket thread
+     * @throws SaltException in case of an error during stream initialization
+     */
+    public WebSocketEventStream(URI uri, Token token, long sessionIdleTimeout, long idleTimeout,
+                                int maxMsgSize, Optional<EventDispatchConfig> dispatchConfig,
+                                EventListener... listeners)
+            throws SaltException {
+        messageBuffer = new MessageBuffer(maxMsgSize > 0 ? maxMsgSize : Integer.MAX_VALUE);
+        dispatcher = dispatchConfig.map(config ->
+                new EventDispatcher(config, this::notifyListeners, this::onListenerError));
         Arrays.asList(listeners).forEach(this::addEventListener);
-        initializeStream(uri.resolve("/"), token, sessionIdleTimeout, idleTimeout);
+        try {
+            initializeStream(uri.resolve("/"), token, sessionIdleTimeout, idleTimeout);
+        } catch (SaltException e) {
+            dispatcher.ifPresent(d -> d.shutdown(() -> { }));
+            throw e;
+        }
     }
 
     /**
@@ -103,6 +129,16 @@ public class WebSocketEventStream extends AbstractEventStream {
         }
     }
 
+    /**
+     * Returns the dispatcher notifying listeners asynchronously, giving access to the
+     * queue depth and drop counters.
+     *
+     * @return the event dispatcher or empty if listeners are notified synchronously
+     */
+    public Optional<EventDispatcher> getDispatcher() {
+        return dispatcher;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -153,33 +189,32 @@ public class WebSocketEventStream extends AbstractEventStream {
      * @param partialMessage partial message received on this websocket
      * @param last indicate the last part of a message
      * @throws MessageTooBigException in case the message is longer than maxMessageLength
+     * @throws EventQueueFullException in case the dispatch queue is full and configured
+     * to fail the stream
      */
     @OnMessage
     public void onMessage(String partialMessage, boolean last)
-            throws MessageTooBigException {
-        if (partialMessage.length() > maxMessageLength - messageBuffer.length()) {
-            throw new MessageTooBigException(maxMessageLength);
-        }
-
+            throws MessageTooBigException, EventQueueFullException {
         if (last) {
             String message;
-            if (messageBuffer.length() == 0) {
+            if (messageBuffer.isEmpty()) {
+                messageBuffer.checkLength(partialMessage);
                 message = partialMessage;
             } else {
                 messageBuffer.append(partialMessage);
-                message = messageBuffer.toString();
-
-                // Reset the size to the defaultBufferSize and empty the buffer
-                messageBuffer.setLength(defaultBufferSize);
-                messageBuffer.trimToSize();
-                messageBuffer.setLength(0);
+                message = messageBuffer.take();
             }
 
             // Notify all registered listeners
             if (!message.equals("server received message")) {
                 // Salt API adds a "data: " prefix that we need to ignore
-                Event event = JsonParser.EVENTS.parse(message.substring(6));
-                notifyListeners(event);
+                Event event = LazyEvent.parse(message, 6);
+                if (!dispatcher.isPresent()) {
+                    notifyListeners(event);
+                } else if (!dispatcher.get().dispatch(event)) {
+                    throw new EventQueueFullException(
+                            dispatcher.get().getConfig().getQueueCapacity());
+                }
             }
         } else {
             messageBuffer.append(partialMessage);
@@ -194,13 +229,33 @@ public class WebSocketEventStream extends AbstractEventStream {
      */
     @OnError
     public void onError(Throwable throwable) throws IOException {
-        close(new CloseReason(throwable instanceof MessageTooBigException ?
-                CloseCodes.TOO_BIG : CloseCodes.CLOSED_ABNORMALLY, throwable.getMessage()));
+        CloseCodes closeCode = CloseCodes.CLOSED_ABNORMALLY;
+        if (throwable instanceof MessageTooBigException) {
+            closeCode = CloseCodes.TOO_BIG;
+        } else if (throwable instanceof EventQueueFullException) {
+            closeCode = CloseCodes.TRY_AGAIN_LATER;
+        }
+        close(new CloseReason(closeCode, throwable.getMessage()));
+    }
+
+    /**
+     * Closes the session after a listener failed on the dispatcher thread, like an
+     * exception thrown by a listener notified on the websocket thread does.
+     *
+     * @param e the exception thrown by the listener
+     */
+    private void onListenerError(RuntimeException e) {
+        try {
+            onError(e);
+        } catch (IOException ex) {
+            // nothing left to do if the session cannot be closed
+        }
     }
 
     /**
      * On closing the websocket, refresh the session and notify all subscribed listeners.
-     * Upon exit from this method, all subscribed listeners will be removed.
+     * Upon exit from this method, all subscribed listeners will be removed. With
+     * asynchronous dispatching this happens after all queued events were delivered.
      *
      * @param session the websocket {@link Session}
      * @param closeReason the {@link CloseReason} for the websocket closure
@@ -209,6 +264,12 @@ public class WebSocketEventStream extends AbstractEventStream {
     public void onClose(Session session, CloseReason closeReason) {
         this.session = session;
 
-        clearListeners(closeReason.getCloseCode().getCode(), closeReason.getReasonPhrase());
+        int code = closeReason.getCloseCode().getCode();
+        String phrase = closeReason.getReasonPhrase();
+        if (dispatcher.isPresent()) {
+            dispatcher.get().shutdown(() -> clearListeners(code, phrase));
+        } else {
+            clearListeners(code, phrase);
+        }
     }
 }
@@ -0,0 +1,129 @@
+package com.suse.salt.netapi.event;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Representation of wheel return events fired each time a wheel job finishes.
+ */
+public class WheelReturnEvent {
+
+    private static final Pattern PATTERN =
+            Pattern.compile("^salt/wheel/(\\d+)/ret$");
+
+    private final String jobId;
+    private final Data data;
+
+    private static final Gson GSON = JsonParser.GSON;
+
+    /**
+     * Data object of the wheel return event
+     */
+    public static class Data {
+        @SerializedName("_stamp")
+        private String timestamp;
+        private String fun;
+        private String jid;
+        @SerializedName("return")
+        private JsonElement result;
+        private String user;
+        private boolean success = false;
+
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        public String getFun() {
+            return fun;
+        }
+
+        public String getJid() {
+            return jid;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public Object getResult() {
+            return GSON.fromJson(result, Object.class);
+        }
+
+        public <R> R getResult(Class<R> dataType) {
+            return GSON.fromJson(result, dataType);
+        }
+
+        public <R> R getResult(TypeToken<R> dataType) {
+            return GSON.fromJson(result, dataType.getType());
+        }
+    }
+
+    /**
+     * Creates a new WheelReturnEvent
+     *
+     * @param jobIdIn    the id of the job
+     * @param dataIn     data containing more information about this event
+     */
+    private WheelReturnEvent(String jobIdIn, Data dataIn) {
+        this.jobId = jobIdIn;
+        this.data = dataIn;
+    }
+
+    /**
+     * The id of the job
+     *
+     * @return job id
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @return the event data
+     */
+    public Data getData() {
+        return data;
+    }
+
+    /**
+     * Utility method to parse a generic event into a more specific one. The result is
+     * kept by the event, so it is only decoded once no matter how many listeners parse
+     * the same event. It is shared by them and must not be modified.
+     *
+     * @param event the generic event to parse
+     * @return an option containing the parsed value or non if it could not be parsed
+     */
+    public static Optional<WheelReturnEvent> parse(Event event) {
+        return event.as(WheelReturnEvent.class);
+    }
+
+    /**
+     * Decodes a generic event of the {@link EventFamily#WHEEL_RETURN} family, called at most
+     * once per event through {@link Event#as(Class)}.
+     *
+     * @param event the generic event to decode
+     * @return an option containing the decoded value or none if it could not be decoded
+     */
+    static Optional<WheelReturnEvent> decode(Event event) {
+        Matcher matcher = PATTERN.matcher(event.getTag());
+        if (matcher.matches()) {
+            Data data = event.getData(Data.class);
+            WheelReturnEvent result = new WheelReturnEvent(matcher.group(1), data);
+            return Optional.of(result);
+        } else {
+            return Optional.empty();
+        }
+    }
+}
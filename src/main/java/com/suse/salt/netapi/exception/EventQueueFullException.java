@@ -0,0 +1,18 @@
+package com.suse.salt.netapi.exception;
+
+/**
+ * Exception to be thrown in case an event can not be queued for dispatching because the
+ * bounded event queue is full.
+ */
+public class EventQueueFullException extends SaltException {
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the queue capacity to be mentioned in the message
+     */
+    public EventQueueFullException(int capacity) {
+        super("Event queue exceeded the configured capacity (" +
+                capacity + " events)");
+    }
+}
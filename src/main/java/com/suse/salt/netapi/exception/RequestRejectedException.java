@@ -0,0 +1,17 @@
+package com.suse.salt.netapi.exception;
+
+/**
+ * Exception to be thrown in case a request is not sent because the concurrency limit is
+ * reached and it can not be queued or was queued for too long.
+ */
+public class RequestRejectedException extends SaltException {
+
+    /**
+     * Constructor.
+     *
+     * @param message the message
+     */
+    public RequestRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package com.suse.salt.netapi.exception;
+
+/**
+ * Exception to be thrown in case the Salt API answers a request with an unexpected HTTP
+ * status code.
+ */
+public class SaltResponseException extends SaltException {
+
+    private final int statusCode;
+
+    /**
+     * Constructor.
+     *
+     * @param statusCode the HTTP status code of the response
+     * @param message the message
+     */
+    public SaltResponseException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Returns the HTTP status code of the response.
+     *
+     * @return the status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
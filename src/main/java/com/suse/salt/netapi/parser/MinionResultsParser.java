@@ -0,0 +1,97 @@
+package com.suse.salt.netapi.parser;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.suse.salt.netapi.results.Result;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.BiConsumer;
+
+/**
+ * Parser for Salt API responses of the form {@code {"return": [{"minion": result}]}}
+ * that hands every minion result to a consumer as soon as it is decoded instead of
+ * collecting all of them into a map. Results of later entries of the return list are
+ * skipped. The consumer is called on the thread doing the parsing.
+ *
+ * @param <R> the type of the minion results
+ */
+public class MinionResultsParser<R> extends JsonParser<Integer> {
+
+    private final TypeAdapter<Result<R>> resultAdapter;
+    private final BiConsumer<String, Result<R>> consumer;
+
+    /**
+     * Creates a new MinionResultsParser.
+     *
+     * @param resultType A TypeToken describing the type of a single minion result.
+     * @param consumer consumer accepting the minion id and result for every minion
+     */
+    public MinionResultsParser(TypeToken<Result<R>> resultType,
+            BiConsumer<String, Result<R>> consumer) {
+        super(TypeToken.get(Integer.class));
+        this.resultAdapter = GSON.getAdapter(resultType);
+        this.consumer = consumer;
+    }
+
+    /**
+     * Parses the response, passing the minion results to the consumer.
+     *
+     * @param inputStream result stream to parse.
+     * @return the number of minion results passed to the consumer
+     */
+    @Override
+    public Integer parse(InputStream inputStream) {
+        return read(new BufferedReader(new InputStreamReader(inputStream)));
+    }
+
+    /**
+     * Parses the response given as string, passing the minion results to the consumer.
+     *
+     * @param jsonString JSON input given as string
+     * @return the number of minion results passed to the consumer
+     */
+    @Override
+    public Integer parse(String jsonString) {
+        return read(new StringReader(jsonString));
+    }
+
+    private Integer read(Reader reader) {
+        try (JsonReader in = new JsonReader(reader)) {
+            in.setLenient(true);
+            int count = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("return") && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    if (in.hasNext() && in.peek() == JsonToken.BEGIN_OBJECT) {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            String minionId = in.nextName();
+                            consumer.accept(minionId, resultAdapter.read(in));
+                            count++;
+                        }
+                        in.endObject();
+                    }
+                    while (in.hasNext()) {
+                        in.skipValue();
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return count;
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.suse.salt.netapi.parser;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for Salt API responses of the form {@code {"return": [result1, result2]}} in
+ * which every element of the return list has its own type, as is the case for requests
+ * containing several lowstate chunks. Every element is parsed directly into the type
+ * given for its position, elements beyond the given types are skipped.
+ */
+public class ReturnListParser extends JsonParser<List<Object>> {
+
+    private final List<TypeAdapter<?>> adapters = new ArrayList<>();
+
+    /**
+     * Creates a new ReturnListParser.
+     *
+     * @param types TypeTokens describing the types of the return list elements in order
+     */
+    public ReturnListParser(List<TypeToken<?>> types) {
+        super(new TypeToken<List<Object>>() { });
+        types.forEach(type -> adapters.add(GSON.getAdapter(type)));
+    }
+
+    /**
+     * Parses the return list elements from the given stream.
+     *
+     * @param inputStream result stream to parse.
+     * @return the parsed elements in order
+     */
+    @Override
+    public List<Object> parse(InputStream inputStream) {
+        return read(new BufferedReader(new InputStreamReader(inputStream)));
+    }
+
+    /**
+     * Parses the return list elements from the given string.
+     *
+     * @param jsonString JSON input given as string
+     * @return the parsed elements in order
+     */
+    @Override
+    public List<Object> parse(String jsonString) {
+        return read(new StringReader(jsonString));
+    }
+
+    private List<Object> read(Reader reader) {
+        try (JsonReader in = new JsonReader(reader)) {
+            in.setLenient(true);
+            List<Object> results = new ArrayList<>(adapters.size());
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("return") && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (results.size() < adapters.size()) {
+                            results.add(adapters.get(results.size()).read(in));
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return results;
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.suse.salt.netapi.parser;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
 import com.google.gson.internal.bind.TypeAdapters;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import com.suse.salt.netapi.errors.JsonParsingError;
@@ -18,7 +21,11 @@ import com.suse.salt.netapi.utils.Xor;
 import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -41,13 +48,18 @@ public class XorTypeAdapterFactory implements TypeAdapterFactory {
         if (isXor && isParameterized && !isSSHResult) {
             Type leftType = ((ParameterizedType) type).getActualTypeArguments()[0];
             Type rightType = ((ParameterizedType) type).getActualTypeArguments()[1];
-            TypeAdapter<?> rightAdapter = gson.getAdapter(TypeToken.get(rightType));
+            TypeToken<?> rightToken = TypeToken.get(rightType);
+            TypeAdapter<?> rightAdapter = gson.getAdapter(rightToken);
+            Shape rightShape = Shape.of(rightAdapter, rightToken.getRawType());
             if (leftType.equals(SaltError.class)) {
-                return (TypeAdapter<A>) errorAdapter(rightAdapter);
+                return (TypeAdapter<A>) errorAdapter(rightAdapter, rightShape);
             }
 
-            TypeAdapter<?> leftAdapter = gson.getAdapter(TypeToken.get(leftType));
-            return (TypeAdapter<A>) xorAdapter(leftAdapter, rightAdapter);
+            TypeToken<?> leftToken = TypeToken.get(leftType);
+            TypeAdapter<?> leftAdapter = gson.getAdapter(leftToken);
+            Shape leftShape = Shape.of(leftAdapter, leftToken.getRawType());
+            return (TypeAdapter<A>) xorAdapter(leftAdapter, leftShape, rightAdapter,
+                    rightShape);
         } else {
             return null;
         }
@@ -55,8 +67,10 @@ public class XorTypeAdapterFactory implements TypeAdapterFactory {
 
     /**
      * Creates a generic Xor adapter by combining two other adapters - one for each side of
-     * the Xor type. It will first try to parse incoming JSON data as the right type and, if
-     * that does not succeed, it will try again with the left type.
+     * the Xor type. If the first token of the incoming JSON data can only be parsed by one
+     * of the sides, or the right side parses any value, it is parsed directly from the
+     * stream. Otherwise it will first try to parse it as the right type and, if that does
+     * not succeed, it will try again with the left type.
      *
      * All exceptions besides the possible parsing Exception of the left type are not
      * caught.
@@ -64,22 +78,38 @@ public class XorTypeAdapterFactory implements TypeAdapterFactory {
      * @param <L> the generic type for the left side of the Xor
      * @param <R> the generic type for the right side of the Xor
      * @param leftAdapter the left adapter
+     * @param leftShape the shape of values accepted by the left adapter
      * @param rightAdapter the right adapter
+     * @param rightShape the shape of values accepted by the right adapter
      * @return the Xor adapter
      */
     private <L, R> TypeAdapter<Xor<L, R>> xorAdapter(TypeAdapter<L> leftAdapter,
-            TypeAdapter<R> rightAdapter) {
+            Shape leftShape, TypeAdapter<R> rightAdapter, Shape rightShape) {
         return new TypeAdapter<Xor<L, R>>() {
             @Override
             public Xor<L, R> read(JsonReader in) throws IOException {
+                JsonToken token = in.peek();
+                if (isStructured(token)) {
+                    if (rightShape.acceptsAll(token)) {
+                        return Xor.right(rightAdapter.read(in));
+                    } else if (rightShape.rejects(token)) {
+                        return Xor.left(leftAdapter.read(in));
+                    } else if (leftShape.rejects(token)) {
+                        return Xor.right(rightAdapter.read(in));
+                    }
+                }
+
                 JsonElement json = TypeAdapters.JSON_ELEMENT.read(in);
-                try {
-                    R value = rightAdapter.fromJsonTree(json);
-                    return Xor.right(value);
-                } catch (Throwable e) {
-                    L value = leftAdapter.fromJsonTree(json);
-                    return Xor.left(value);
+                if (!rightShape.rejects(json)) {
+                    try {
+                        R value = rightAdapter.fromJsonTree(json);
+                        return Xor.right(value);
+                    } catch (Throwable e) {
+                        // fall through to the left type
+                    }
                 }
+                L value = leftAdapter.fromJsonTree(json);
+                return Xor.left(value);
             }
 
             @Override
@@ -92,26 +122,59 @@ public class XorTypeAdapterFactory implements TypeAdapterFactory {
     /**
      * Creates a Xor adapter specifically for the case in which the left side is a
      * SaltError. This is used to catch any Salt-side or JSON parsing errors.
+     * <p>
+     * Values are parsed in a single pass: scalars are read as a single token and
+     * structured values directly from the stream. Values that can not be parsed by the
+     * inner adapter judging from their first token are turned into errors without trying.
+     * If parsing a structured value fails halfway its remaining tokens are skipped and
+     * the error holds JSON null instead of the value. Callers that need to recover such
+     * values, like batch calls stripping the retcode injected by Salt, decode them from a
+     * tree of their own.
      *
      * @param <R> the generic type for the right side of the Xor
      * @param innerAdapter the inner adapter
+     * @param innerShape the shape of values accepted by the inner adapter
      * @return the Xor type adapter
      */
-    private <R> TypeAdapter<Xor<SaltError, R>> errorAdapter(TypeAdapter<R> innerAdapter) {
+    private <R> TypeAdapter<Xor<SaltError, R>> errorAdapter(TypeAdapter<R> innerAdapter,
+            Shape innerShape) {
         return new TypeAdapter<Xor<SaltError, R>>() {
             @Override
             public Xor<SaltError, R> read(JsonReader in) throws IOException {
+                JsonToken token = in.peek();
+                if (isStructured(token) && !innerShape.rejects(token)) {
+                    return readStructured(in);
+                }
+
                 JsonElement json = TypeAdapters.JSON_ELEMENT.read(in);
+                if (innerShape.rejects(json)) {
+                    return Xor.left(error(json, null));
+                }
                 try {
                     R value = innerAdapter.fromJsonTree(json);
                     return Xor.right(value);
                 } catch (Throwable e) {
-                    Optional<SaltError> saltError =
-                            extractErrorString(json).flatMap(SaltErrorUtils::deriveError);
-                    return Xor.left(saltError.orElse(new JsonParsingError(json, e)));
+                    return Xor.left(error(json, e));
                 }
             }
 
+            private Xor<SaltError, R> readStructured(JsonReader in) throws IOException {
+                String path = in.getPath();
+                try {
+                    return Xor.right(innerAdapter.read(in));
+                } catch (RuntimeException e) {
+                    skipRemaining(in, path);
+                    return Xor.left(new JsonParsingError(JsonNull.INSTANCE, e));
+                }
+            }
+
+            private SaltError error(JsonElement json, Throwable e) {
+                Optional<SaltError> saltError =
+                        extractErrorString(json).flatMap(SaltErrorUtils::deriveError);
+                return saltError.orElseGet(() -> new JsonParsingError(json,
+                        e != null ? e : new ShapeMismatchException()));
+            }
+
             private Optional<String> extractErrorString(JsonElement json) {
                 if (json.isJsonPrimitive() && json.getAsJsonPrimitive().isString()) {
                     return Optional.of(json.getAsJsonPrimitive().getAsString());
@@ -125,4 +188,137 @@ public class XorTypeAdapterFactory implements TypeAdapterFactory {
             }
         };
     }
+
+    private static boolean isStructured(JsonToken token) {
+        return token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY;
+    }
+
+    /**
+     * Skips the rest of a value of which parsing failed, leaving the reader positioned
+     * after it.
+     *
+     * @param in the reader
+     * @param path the path of the reader before the value was started
+     * @throws IOException if the JSON is malformed
+     */
+    private static void skipRemaining(JsonReader in, String path) throws IOException {
+        while (isBelow(in.getPath(), path)) {
+            JsonToken token = in.peek();
+            if (token == JsonToken.END_OBJECT) {
+                in.endObject();
+            } else if (token == JsonToken.END_ARRAY) {
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        // the value was not started at all
+        if (in.getPath().equals(path) && isStructured(in.peek())) {
+            in.skipValue();
+        }
+    }
+
+    private static boolean isBelow(String path, String parent) {
+        return path.length() > parent.length() && path.startsWith(parent) &&
+                (path.charAt(parent.length()) == '.' || path.charAt(parent.length()) == '[');
+    }
+
+    /**
+     * The kinds of JSON values a type adapter is known to accept, judged by their first
+     * token. Adapters nothing is known about accept everything, but may still fail on
+     * the contents of a value.
+     */
+    private static final class Shape {
+
+        private static final Shape ANY =
+                new Shape(EnumSet.allOf(JsonToken.class), false, false);
+
+        /**
+         * Shape of adapters that parse any JSON value without failing.
+         */
+        private static final Shape TOTAL =
+                new Shape(EnumSet.allOf(JsonToken.class), false, true);
+
+        private static final Pattern NUMBER =
+                Pattern.compile("-?(\\d+(\\.\\d*)?([eE][+-]?\\d+)?|NaN|Infinity)");
+
+        private final Set<JsonToken> tokens;
+        private final boolean numericStrings;
+        private final boolean total;
+
+        private Shape(Set<JsonToken> tokens, boolean numericStrings, boolean total) {
+            this.tokens = tokens;
+            this.numericStrings = numericStrings;
+            this.total = total;
+        }
+
+        private Shape(Set<JsonToken> tokens, boolean numericStrings) {
+            this(tokens, numericStrings, false);
+        }
+
+        static Shape of(TypeAdapter<?> adapter, Class<?> rawType) {
+            if (rawType == Object.class || rawType == JsonElement.class) {
+                return TOTAL;
+            } else if (adapter == Adapters.BOOLEAN) {
+                return new Shape(EnumSet.of(JsonToken.BOOLEAN), false);
+            } else if (adapter == Adapters.INTEGER || adapter == Adapters.LONG ||
+                    adapter == Adapters.DOUBLE) {
+                return new Shape(EnumSet.of(JsonToken.NUMBER), true);
+            } else if (adapter == Adapters.STRING) {
+                return new Shape(EnumSet.of(JsonToken.STRING, JsonToken.NUMBER), false);
+            } else if (Collection.class.isAssignableFrom(rawType)) {
+                return new Shape(EnumSet.of(JsonToken.BEGIN_ARRAY), false);
+            } else if (rawType.isArray()) {
+                return new Shape(EnumSet.of(JsonToken.BEGIN_ARRAY, JsonToken.NULL), false);
+            } else if (Map.class.isAssignableFrom(rawType)) {
+                return new Shape(EnumSet.of(JsonToken.BEGIN_OBJECT, JsonToken.BEGIN_ARRAY,
+                        JsonToken.NULL), false);
+            } else if (adapter instanceof ReflectiveTypeAdapterFactory.Adapter) {
+                return new Shape(EnumSet.of(JsonToken.BEGIN_OBJECT, JsonToken.NULL), false);
+            }
+            return ANY;
+        }
+
+        boolean rejects(JsonToken token) {
+            return !tokens.contains(token);
+        }
+
+        boolean acceptsAll(JsonToken token) {
+            return total && tokens.contains(token);
+        }
+
+        boolean rejects(JsonElement json) {
+            if (json.isJsonNull()) {
+                return rejects(JsonToken.NULL);
+            } else if (json.isJsonObject()) {
+                return rejects(JsonToken.BEGIN_OBJECT);
+            } else if (json.isJsonArray()) {
+                return rejects(JsonToken.BEGIN_ARRAY);
+            } else if (json.getAsJsonPrimitive().isBoolean()) {
+                return rejects(JsonToken.BOOLEAN);
+            } else if (json.getAsJsonPrimitive().isNumber()) {
+                return rejects(JsonToken.NUMBER);
+            }
+            return rejects(JsonToken.STRING) &&
+                    !(numericStrings && NUMBER.matcher(json.getAsString()).matches());
+        }
+    }
+
+    /**
+     * Cause of a {@link JsonParsingError} for a value the inner adapter was not tried
+     * on since it can not parse it. Created without a stack trace as it is thrown nowhere.
+     */
+    private static final class ShapeMismatchException extends JsonParseException {
+
+        private static final long serialVersionUID = 1L;
+
+        ShapeMismatchException() {
+            super("Value does not match the expected type");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
 }
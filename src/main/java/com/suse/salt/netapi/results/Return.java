@@ -12,6 +12,18 @@ public class Return<T> {
     @SerializedName("return")
     private T result;
 
+    public Return() {
+    }
+
+    /**
+     * Creates a Return holding the given value.
+     *
+     * @param result the value
+     */
+    public Return(T result) {
+        this.result = result;
+    }
+
     /**
      * Returns the value of this result.
      *
@@ -0,0 +1,231 @@
+package com.suse.salt.netapi.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for large numbers of coarse deadlines, like the deadlines of the minions of
+ * asynchronous calls. Deadlines are hashed into the buckets of a wheel that a single
+ * thread advances tick by tick, so scheduling and cancelling take constant time no matter
+ * how many deadlines are pending, unlike a scheduled executor keeping them in a heap.
+ * <p>
+ * Tasks expire up to one tick late and are run on the timer thread, so they should
+ * only do little work like completing a future. The thread is started with the first
+ * scheduled task.
+ */
+public class HashedWheelTimer {
+
+    /**
+     * Timer shared by all calls, ticking every 100 milliseconds.
+     */
+    private static final class Shared {
+        private static final HashedWheelTimer INSTANCE =
+                new HashedWheelTimer("salt-deadline-timer", 100, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels the task unless it has been run already.
+         *
+         * @return true if the task was cancelled, false if it has been run or cancelled
+         * before
+         */
+        boolean cancel();
+    }
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * Scheduled task, linked into the bucket of its deadline by the timer thread.
+     */
+    private final class Entry implements Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long rounds;
+        private Bucket bucket;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+    }
+
+    /**
+     * Doubly linked list of the entries hashed to one slot of the wheel.
+     */
+    private static final class Bucket {
+        private Entry head;
+
+        private void add(Entry entry) {
+            entry.bucket = this;
+            entry.next = head;
+            if (head != null) {
+                head.previous = entry;
+            }
+            head = entry;
+        }
+
+        private void remove(Entry entry) {
+            if (entry.previous != null) {
+                entry.previous.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.previous = entry.previous;
+            }
+            entry.bucket = null;
+            entry.previous = null;
+            entry.next = null;
+        }
+    }
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Creates a timer.
+     *
+     * @param name the name of the timer thread
+     * @param tick the duration of a tick, which must be greater than 0
+     * @param unit the unit of the tick duration
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                    "valid tick duration");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                    "valid wheel size");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        size = size < wheelSize ? size << 1 : size;
+        this.name = name;
+        this.tickNanos = unit.toNanos(tick);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the timer shared by all calls, ticking every 100 milliseconds.
+     *
+     * @return the shared timer
+     */
+    public static HashedWheelTimer shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Schedules a task to run once the given delay has elapsed.
+     *
+     * @param task the task
+     * @param delay the delay
+     * @param unit the unit of the delay
+     * @return the handle to cancel the task with
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        start();
+        long deadline = System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startTime;
+        // guard against overflow
+        Entry entry = new Entry(task, deadline < 0 ? Long.MAX_VALUE : deadline);
+        added.add(entry);
+        return entry;
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        long tick = (System.nanoTime() - startTime) / tickNanos;
+        while (true) {
+            long deadline = tickNanos * (tick + 1);
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            removeCancelled();
+            transferAdded(tick);
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        for (Entry entry = cancelled.poll(); entry != null; entry = cancelled.poll()) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void transferAdded(long tick) {
+        for (Entry entry = added.poll(); entry != null; entry = added.poll()) {
+            if (entry.state.get() != PENDING) {
+                continue;
+            }
+            long ticks = entry.deadline / tickNanos;
+            entry.rounds = (ticks - tick) / wheel.length;
+            // deadlines that have passed already expire with the current tick
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(entry);
+        }
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+        Entry entry = bucket.head;
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.rounds <= 0 && entry.deadline <= deadline) {
+                bucket.remove(entry);
+                if (entry.state.compareAndSet(PENDING, EXPIRED)) {
+                    try {
+                        entry.task.run();
+                    } catch (RuntimeException e) {
+                        // a failing task must not stop the timer
+                    }
+                }
+            } else {
+                entry.rounds--;
+            }
+            entry = next;
+        }
+    }
+}
@@ -2,9 +2,26 @@ package com.suse.salt.netapi.utils;
 
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helpers for creating an async http client
@@ -30,4 +47,220 @@ public class HttpClientUtils {
         return asyncHttpClient;
     }
 
+    /**
+     * Creates a simple default http client of the JDK preferring HTTP/2, to be used
+     * with {@link com.suse.salt.netapi.client.impl.JavaHttpClientImpl}
+     * @return HttpClient
+     */
+    public static HttpClient defaultJavaClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(10000))
+                .build();
+    }
+
+    /**
+     * Returns a PooledHttpClientBuilder for creating a client with a tuned connection
+     * pool.
+     *
+     * @return a PooledHttpClientBuilder instance.
+     */
+    public static PooledHttpClientBuilder custom() {
+        return new PooledHttpClientBuilder();
+    }
+
+    /**
+     * Helper class for building an async http client with a tuned connection pool.
+     * Timeouts default to the ones of {@link #defaultClient()}, pool limits and
+     * threads to the ones of the underlying library unless set.
+     */
+    public static class PooledHttpClientBuilder {
+        private int maxTotal = 20;
+        private int maxPerRoute = 2;
+        private int ioThreads = Runtime.getRuntime().availableProcessors();
+        private int connectTimeout = 10000;
+        private int socketTimeout = 20000;
+        private int connectionRequestTimeout = 0;
+        private long keepAlive = -1;
+        private long connectionTimeToLive = -1;
+        private long maxIdleTime = -1;
+
+        private PooledHttpClientBuilder() {
+        }
+
+        /**
+         * Sets the maximum number of connections over all routes.
+         *
+         * @param value the maximum number of connections, which must be greater than 0
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withMaxTotal(int value) {
+            this.maxTotal = requirePositive(value, "number of connections");
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of connections per route, which limits the number of
+         * concurrent requests to a single Salt API.
+         *
+         * @param value the maximum number of connections, which must be greater than 0
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withMaxPerRoute(int value) {
+            this.maxPerRoute = requirePositive(value, "number of connections");
+            return this;
+        }
+
+        /**
+         * Sets the number of I/O reactor threads.
+         *
+         * @param value the number of threads, which must be greater than 0
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withIoThreads(int value) {
+            this.ioThreads = requirePositive(value, "number of threads");
+            return this;
+        }
+
+        /**
+         * Sets the connect timeout.
+         *
+         * @param value the timeout in milliseconds, 0 meaning infinite
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withConnectTimeout(int value) {
+            this.connectTimeout = value;
+            return this;
+        }
+
+        /**
+         * Sets the timeout for waiting for data of a response.
+         *
+         * @param value the timeout in milliseconds, 0 meaning infinite
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withSocketTimeout(int value) {
+            this.socketTimeout = value;
+            return this;
+        }
+
+        /**
+         * Sets the timeout for waiting for a connection from the pool.
+         *
+         * @param value the timeout in milliseconds, 0 meaning infinite
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withConnectionRequestTimeout(int value) {
+            this.connectionRequestTimeout = value;
+            return this;
+        }
+
+        /**
+         * Sets how long idle connections are kept alive if the server does not send a
+         * Keep-Alive header.
+         *
+         * @param value the time in milliseconds, a negative value meaning indefinitely
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withKeepAlive(long value) {
+            this.keepAlive = value;
+            return this;
+        }
+
+        /**
+         * Sets the time after which connections are not reused anymore.
+         *
+         * @param value the time in milliseconds, a negative value meaning indefinitely
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withConnectionTimeToLive(long value) {
+            this.connectionTimeToLive = value;
+            return this;
+        }
+
+        /**
+         * Sets the time after which idle connections are closed, so that connections
+         * silently dropped by the server or a proxy in between are not leased.
+         * Connections are checked by a background thread at a quarter of this interval.
+         *
+         * @param value the time in milliseconds, a negative value meaning indefinitely
+         * @return the builder
+         */
+        public PooledHttpClientBuilder withMaxIdleTime(long value) {
+            this.maxIdleTime = value;
+            return this;
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Expected value greater than 0 to make a " +
+                        "valid " + name);
+            }
+            return value;
+        }
+
+        /**
+         * Builds and starts the client.
+         *
+         * @return the client together with its connection pool
+         * @throws IOReactorException if the I/O reactor can not be created
+         */
+        public PooledHttpClient build() throws IOReactorException {
+            IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(ioThreads)
+                    .setConnectTimeout(connectTimeout)
+                    .setSoTimeout(socketTimeout)
+                    .build();
+            PoolingNHttpClientConnectionManager connectionManager =
+                    new PoolingNHttpClientConnectionManager(
+                            new DefaultConnectingIOReactor(reactorConfig),
+                            null,
+                            RegistryBuilder.<SchemeIOSessionStrategy>create()
+                                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                                    .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                                    .build(),
+                            null,
+                            null,
+                            connectionTimeToLive,
+                            TimeUnit.MILLISECONDS);
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectionRequestTimeout(connectionRequestTimeout)
+                    .setConnectTimeout(connectTimeout)
+                    .setSocketTimeout(socketTimeout)
+                    .setCookieSpec(CookieSpecs.STANDARD)
+                    .build();
+            ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+                        .getKeepAliveDuration(response, context);
+                return duration >= 0 ? duration : keepAlive;
+            };
+            CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(keepAliveStrategy)
+                    .setDefaultRequestConfig(requestConfig)
+                    .build();
+            client.start();
+
+            Optional<ScheduledExecutorService> evictor = Optional.empty();
+            if (maxIdleTime >= 0) {
+                ScheduledExecutorService executor =
+                        Executors.newSingleThreadScheduledExecutor(runnable -> {
+                            Thread thread = new Thread(runnable, "salt-connection-evictor");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                long interval = Math.max(maxIdleTime / 4, 1);
+                executor.scheduleWithFixedDelay(() -> {
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+                }, interval, interval, TimeUnit.MILLISECONDS);
+                evictor = Optional.of(executor);
+            }
+            return new PooledHttpClient(client, connectionManager, evictor);
+        }
+    }
+
 }
@@ -0,0 +1,58 @@
+package com.suse.salt.netapi.utils;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * An async http client together with its connection pool, created by
+ * {@link HttpClientUtils#custom()}. Closing it closes the client and shuts the pool down.
+ */
+public class PooledHttpClient implements Closeable {
+
+    private final CloseableHttpAsyncClient client;
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final Optional<ScheduledExecutorService> evictor;
+
+    PooledHttpClient(CloseableHttpAsyncClient client,
+            PoolingNHttpClientConnectionManager connectionManager,
+            Optional<ScheduledExecutorService> evictor) {
+        this.client = client;
+        this.connectionManager = connectionManager;
+        this.evictor = evictor;
+    }
+
+    /**
+     * Returns the started client.
+     *
+     * @return the client
+     */
+    public CloseableHttpAsyncClient getClient() {
+        return client;
+    }
+
+    /**
+     * Returns the current statistics of the connection pool over all routes. A growing
+     * number of pending requests while all connections are leased is a sign that the
+     * pool is too small.
+     *
+     * @return the leased, pending and available connections and the maximum
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        evictor.ifPresent(ScheduledExecutorService::shutdownNow);
+        client.close();
+    }
+}
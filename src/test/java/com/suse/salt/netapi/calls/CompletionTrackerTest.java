@@ -0,0 +1,113 @@
+package com.suse.salt.netapi.calls;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.datatypes.target.MinionIdRegistry;
+import com.suse.salt.netapi.datatypes.target.MinionSet;
+import com.suse.salt.netapi.errors.GenericError;
+import com.suse.salt.netapi.results.Result;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * CompletionTracker test class
+ */
+public class CompletionTrackerTest {
+
+    @Test
+    public void testCompletion() {
+        CompletionTracker<Boolean> tracker =
+                new CompletionTracker<>(Arrays.asList("m3", "m1", "m2", "m1"));
+        CompletableFuture<Void> allDone = tracker.allDone().toCompletableFuture();
+        assertEquals(3, tracker.getTotal());
+        assertEquals(0, tracker.getCompleted());
+
+        CompletableFuture<Result<Boolean>> m1 = tracker.getStage("m1").get().toCompletableFuture();
+        assertTrue(tracker.complete("m1", Result.success(true)));
+        assertFalse(tracker.complete("m1", Result.success(false)));
+        assertFalse(tracker.complete("unknown", Result.success(true)));
+        assertEquals(Optional.of(true), m1.join().result());
+        assertEquals(Optional.of(true), tracker.getResult("m1").get().result());
+        assertEquals(Set.of("m2", "m3"), tracker.getPendingMinions());
+        assertEquals(1, tracker.getCompleted());
+        assertFalse(allDone.isDone());
+
+        // stages asked for after completion are completed right away
+        assertTrue(tracker.complete("m2", Result.success(false)));
+        assertEquals(Optional.of(false),
+                tracker.getStage("m2").get().toCompletableFuture().join().result());
+
+        assertEquals(1, tracker.completeAll(Result.error(new GenericError("closed"))));
+        assertTrue(allDone.isDone());
+        assertTrue(tracker.isDone("m3"));
+        assertTrue(tracker.getResult("m3").get().error().isPresent());
+        assertEquals(Collections.emptySet(), tracker.getPendingMinions());
+        assertEquals(3, tracker.getCompleted());
+    }
+
+    @Test
+    public void testRegistry() {
+        MinionIdRegistry registry = new MinionIdRegistry();
+        String m1 = registry.intern("m1");
+        CompletionTracker<Boolean> tracker =
+                new CompletionTracker<>(Arrays.asList(new String("m1"), "m2"), registry);
+        assertEquals(2, registry.size());
+        assertSame(m1, tracker.asMap().keySet().iterator().next());
+
+        tracker.complete("m2", Result.success(true));
+        assertEquals(MinionSet.of(registry, "m1"), tracker.getPendingMinions());
+        assertSame(registry, ((MinionSet) tracker.getPendingMinions()).getRegistry());
+    }
+
+    @Test
+    public void testCompleteExceptionally() {
+        CompletionTracker<Boolean> tracker = new CompletionTracker<>(Arrays.asList("m1", "m2"));
+        CompletionStage<Result<Boolean>> m1 = tracker.getStage("m1").get();
+        IllegalStateException failure = new IllegalStateException("cancelled");
+        assertEquals(2, tracker.completeAllExceptionally(failure));
+
+        try {
+            m1.toCompletableFuture().get();
+        } catch (InterruptedException | ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertTrue(m1.toCompletableFuture().isCompletedExceptionally());
+        assertEquals(Optional.empty(), tracker.getResult("m2"));
+        assertTrue(tracker.allDone().toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void testMapView() {
+        CompletionTracker<Boolean> tracker = new CompletionTracker<>(Arrays.asList("m2", "m1"));
+        Map<String, CompletionStage<Result<Boolean>>> map = tracker.asMap();
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey("m1"));
+        assertFalse(map.containsKey("m3"));
+        assertNull(map.get("m3"));
+        assertSame(map.get("m1"), tracker.getStage("m1").get());
+        assertEquals(Set.of("m1", "m2"), map.keySet());
+
+        tracker.complete("m2", Result.success(true));
+        assertEquals(Optional.of(true), map.get("m2").toCompletableFuture().join().result());
+    }
+
+    @Test
+    public void testEmpty() {
+        CompletionTracker<Boolean> tracker = new CompletionTracker<>(Collections.emptyList());
+        assertTrue(tracker.allDone().toCompletableFuture().isDone());
+        assertEquals(0, tracker.getTotal());
+    }
+}
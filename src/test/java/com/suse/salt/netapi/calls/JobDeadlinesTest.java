@@ -0,0 +1,108 @@
+package com.suse.salt.netapi.calls;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.errors.GenericError;
+import com.suse.salt.netapi.errors.TimeoutError;
+import com.suse.salt.netapi.parser.JsonParser;
+import com.suse.salt.netapi.results.Result;
+import com.suse.salt.netapi.utils.TestEventStream;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JobDeadlines test class
+ */
+public class JobDeadlinesTest {
+
+    private static final String JID = "20241018123456789012";
+
+    @Test
+    public void testGetTimeout() {
+        JobDeadlines deadlines = JobDeadlines.custom()
+                .withMinionTimeout(Duration.ofSeconds(10))
+                .withMinionTimeout("slow", Duration.ofSeconds(60))
+                .withJobTimeout(Duration.ofSeconds(30))
+                .build();
+        assertEquals(Optional.of(Duration.ofSeconds(10)), deadlines.getTimeout("minion"));
+        assertEquals(Optional.of(Duration.ofSeconds(30)), deadlines.getTimeout("slow"));
+
+        assertEquals(Optional.empty(), JobDeadlines.NONE.getTimeout("minion"));
+        assertEquals(Optional.of(Duration.ofSeconds(25)), JobDeadlines.fromTimeouts(
+                Optional.of(20), Optional.of(5)).getTimeout("minion"));
+        assertEquals(Optional.of(Duration.ofSeconds(30)), JobDeadlines.fromTimeouts(
+                Optional.of(20), Optional.empty()).getTimeout("minion"));
+        assertEquals(Optional.empty(), JobDeadlines.fromTimeouts(
+                Optional.empty(), Optional.of(5)).getTimeout("minion"));
+    }
+
+    @Test
+    public void testFromCallTimeouts() {
+        LocalCall<Boolean> ping = com.suse.salt.netapi.calls.modules.Test.ping();
+        assertEquals(Optional.of(Duration.ofSeconds(25)), JobDeadlines.fromTimeouts(
+                ping.withTimeouts(Optional.of(20), Optional.of(5))).getTimeout("minion"));
+        assertEquals(Optional.of(Duration.ofSeconds(30)), JobDeadlines.fromTimeouts(
+                ping.withTimeouts(Optional.of(20), Optional.empty())).getTimeout("minion"));
+        assertEquals(Optional.empty(), JobDeadlines.fromTimeouts(ping.withoutTimeouts())
+                .getTimeout("minion"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTimeout() {
+        JobDeadlines.custom().withJobTimeout(Duration.ZERO);
+    }
+
+    @Test
+    public void testCallAsyncDeadlines() throws Exception {
+        @SuppressWarnings("unchecked")
+        LocalAsyncResult<Boolean> lar = JsonParser.GSON.fromJson("{\"jid\": \"" + JID + "\", " +
+                "\"minions\": [\"m1\", \"m2\", \"m3\"]}", LocalAsyncResult.class);
+        lar.setType(com.suse.salt.netapi.calls.modules.Test.ping().getReturnType());
+        JobDeadlines deadlines = JobDeadlines.custom()
+                .withMinionTimeout(Duration.ofMillis(200))
+                .withMinionTimeout("m3", Duration.ofSeconds(30))
+                .withJobTimeout(Duration.ofMillis(500))
+                .build();
+        TestEventStream events = new TestEventStream();
+
+        Map<String, CompletionStage<Result<Boolean>>> results =
+                com.suse.salt.netapi.calls.modules.Test.ping().callAsync(
+                        call -> CompletableFuture.completedFuture(Optional.of(lar)),
+                        call -> new CompletableFuture<>(),
+                        events,
+                        new CompletableFuture<GenericError>(),
+                        deadlines
+                ).toCompletableFuture().get().get();
+        events.post("{\"tag\": \"salt/job/" + JID + "/ret/m1\", \"data\": {\"fun\": " +
+                "\"test.ping\", \"jid\": \"" + JID + "\", \"id\": \"m1\", \"success\": true, " +
+                "\"return\": true}}");
+
+        assertEquals(Optional.of(true), get(results, "m1").result());
+        Result<Boolean> m2 = get(results, "m2");
+        assertEquals(new TimeoutError(JID, "m2", Duration.ofMillis(200)), m2.error().get());
+        Result<Boolean> m3 = get(results, "m3");
+        assertEquals(new TimeoutError(JID, "m3", Duration.ofMillis(500)), m3.error().get());
+        assertTrue(m3.error().get().fold(e -> false, e -> false, e -> false, e -> false,
+                e -> false, e -> true));
+        assertTrue(m3.error().get().fold(e -> false, e -> false, e -> false,
+                e -> e.getMessage().contains("m3"), e -> false));
+        assertEquals(0, events.getJobReturnRouter().getJobIds().size());
+
+        // the results are a copy the caller may modify
+        results.remove("m1");
+        assertEquals(2, results.size());
+    }
+
+    private static Result<Boolean> get(Map<String, CompletionStage<Result<Boolean>>> results,
+            String minion) throws Exception {
+        return results.get(minion).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+}
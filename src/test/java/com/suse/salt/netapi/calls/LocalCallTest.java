@@ -2,6 +2,7 @@ package com.suse.salt.netapi.calls;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
@@ -17,6 +18,7 @@ import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.google.gson.reflect.TypeToken;
 import com.suse.salt.netapi.AuthModule;
 import com.suse.salt.netapi.calls.modules.Cmd;
+import com.suse.salt.netapi.client.CoalescingConfig;
 import com.suse.salt.netapi.client.SaltClient;
 import com.suse.salt.netapi.client.SaltClientTest;
 import com.suse.salt.netapi.client.impl.HttpAsyncClientImpl;
@@ -27,6 +29,7 @@ import com.suse.salt.netapi.datatypes.Token;
 import com.suse.salt.netapi.datatypes.target.Glob;
 import com.suse.salt.netapi.datatypes.target.SSHTarget;
 import com.suse.salt.netapi.datatypes.target.Target;
+import com.suse.salt.netapi.results.Result;
 import com.suse.salt.netapi.utils.ClientUtils;
 import com.suse.salt.netapi.utils.TestUtils;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
@@ -41,6 +44,7 @@ import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Tests for LocalCall
@@ -218,6 +222,70 @@ public class LocalCallTest {
                 .withRequestBody(equalToJson(JSON_CALL_SYNC_BATCH_PING_REQUEST)));
     }
 
+    /**
+     * Verify that a batch call is not coalesced with a plain call of the same window.
+     */
+    @Test
+    public void testCallSyncWithBatchCoalescing() {
+        stubFor(any(urlMatching("/run"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody(JSON_CALL_SYNC_PING_RESPONSE)));
+        stubFor(any(urlMatching("/run"))
+                .withRequestBody(containing("local_batch"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody(JSON_CALL_SYNC_BATCH_PING_RESPONSE)));
+
+        SaltClient coalescing = new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                new HttpAsyncClientImpl(closeableHttpAsyncClient),
+                CoalescingConfig.custom()
+                        .withWindowMillis(200)
+                        .withClients(Client.LOCAL)
+                        .build());
+        LocalCall<Boolean> run = com.suse.salt.netapi.calls.modules.Test.ping();
+        Target<String> target = new Glob("*");
+
+        CompletableFuture<List<Map<String, Result<Boolean>>>> batched = run
+                .callSync(coalescing, target, AUTH, Batch.asAmount(1)).toCompletableFuture();
+        CompletableFuture<Map<String, Result<Boolean>>> plain = run
+                .callSync(coalescing, target, AUTH).toCompletableFuture();
+
+        assertEquals(2, batched.join().size());
+        assertEquals(2, plain.join().size());
+        verify(2, postRequestedFor(urlEqualTo("/run")));
+        verify(1, postRequestedFor(urlEqualTo("/run"))
+                .withRequestBody(equalToJson(JSON_CALL_SYNC_BATCH_PING_REQUEST)));
+        verify(1, postRequestedFor(urlEqualTo("/run"))
+                .withRequestBody(equalToJson(JSON_CALL_SYNC_PING_REQUEST)));
+        coalescing.close();
+    }
+
+    /**
+     * Verify that results of a batch call failing on the retcode injected by Salt are
+     * recovered.
+     */
+    @Test
+    public void testCallSyncWithBatchRetcode() {
+        stubFor(any(urlMatching("/run"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"return\": [{\"minion1\": {\"vim\": [\"8.0\"], \"retcode\": 0}}, " +
+                        "{\"minion2\": {\"vim\": [\"8.1\"], \"retcode\": 0}}]}")));
+
+        LocalCall<Map<String, List<String>>> call = new LocalCall<>("pkg.list_pkgs",
+                Optional.empty(), Optional.empty(), new TypeToken<Map<String, List<String>>>(){});
+        List<Map<String, Result<Map<String, List<String>>>>> results = call.callSync(
+                client, new Glob("*"), AUTH, Batch.asAmount(1)).toCompletableFuture().join();
+
+        assertEquals(2, results.size());
+        assertEquals(Map.of("vim", List.of("8.0")), results.get(0).get("minion1").result().get());
+        assertEquals(Map.of("vim", List.of("8.1")), results.get(1).get("minion2").result().get());
+    }
+
     /**
      * Verify correctness of the request body with an exemplary salt-ssh call.
      */
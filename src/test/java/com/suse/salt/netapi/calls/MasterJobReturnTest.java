@@ -0,0 +1,129 @@
+package com.suse.salt.netapi.calls;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.errors.GenericError;
+import com.suse.salt.netapi.results.Result;
+import com.suse.salt.netapi.utils.TestEventStream;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the event driven callAsync of runner and wheel calls.
+ */
+public class MasterJobReturnTest {
+
+    private static final String JID = "20241018123456789012";
+    private static final AuthMethod AUTH = new AuthMethod(new Token("token"));
+    private static final RunnerCall<Map<String, Integer>> RUNNER_CALL = new RunnerCall<>(
+            "state.orchestrate", Optional.empty(), new TypeToken<Map<String, Integer>>(){});
+    private static final WheelCall<List<String>> WHEEL_CALL = new WheelCall<>(
+            "key.list_all", Optional.empty(), new TypeToken<List<String>>(){});
+
+    /**
+     * Returns an http client scheduling every async call as the same job and answering
+     * lookups of the job with the given result.
+     */
+    private static TestHttpClient jobHttpClient(String lookup) {
+        return new TestHttpClient(request -> request.respond("{\"return\": [" +
+                (request.getData().contains("_async\"") ?
+                        "{\"jid\": \"" + JID + "\", \"tag\": \"salt/run/" + JID + "\"}" :
+                        lookup) + "]}"));
+    }
+
+    private static String returnEvent(String kind, String result) {
+        return "{\"tag\": \"salt/" + kind + "/" + JID + "/ret\", \"data\": {\"jid\": \"" +
+                JID + "\", \"fun\": \"" + kind + ".function\", \"success\": true, " +
+                "\"return\": " + result + "}}";
+    }
+
+    @Test
+    public void testRunnerReturnEvent() throws Exception {
+        TestHttpClient http = jobHttpClient("{}");
+        TestEventStream events = new TestEventStream();
+        CompletableFuture<GenericError> cancel = new CompletableFuture<>();
+        CompletableFuture<Result<Map<String, Integer>>> result = RUNNER_CALL.callAsync(
+                new SaltClient(URI.create("http://localhost/"), http), AUTH, events, cancel)
+                .toCompletableFuture();
+
+        // the job is looked up once in case it finished before the subscription
+        assertEquals(2, http.getRequests().size());
+        assertTrue(http.getBodies().get(1).contains("jobs.lookup_jid"));
+        assertFalse(result.isDone());
+        assertEquals(1, events.getListenerCount());
+
+        events.post("{\"tag\": \"salt/run/" + JID + "/new\", \"data\": {}}");
+        events.post(returnEvent("wheel", "[\"m1\"]"));
+        assertFalse(result.isDone());
+
+        events.post(returnEvent("run", "{\"changed\": 3}"));
+        assertEquals(Map.of("changed", 3),
+                result.get(1, TimeUnit.SECONDS).result().get());
+        assertEquals(0, events.getListenerCount());
+        assertEquals(2, http.getRequests().size());
+    }
+
+    @Test
+    public void testWheelReturnEvent() throws Exception {
+        TestEventStream events = new TestEventStream();
+        CompletableFuture<Result<List<String>>> result = WHEEL_CALL.callAsync(
+                new SaltClient(URI.create("http://localhost/"), jobHttpClient("{}")),
+                AUTH, events, new CompletableFuture<>()).toCompletableFuture();
+
+        events.post(returnEvent("run", "{\"changed\": 3}"));
+        assertFalse(result.isDone());
+
+        events.post(returnEvent("wheel", "[\"m1\", \"m2\"]"));
+        assertEquals(List.of("m1", "m2"), result.get(1, TimeUnit.SECONDS).result().get());
+        assertEquals(0, events.getListenerCount());
+    }
+
+    @Test
+    public void testFinishedBeforeSubscription() throws Exception {
+        TestEventStream events = new TestEventStream();
+        TestHttpClient http = jobHttpClient("{\"master_master\": {\"jid\": \"" + JID +
+                "\", \"success\": true, \"return\": {\"changed\": 1}}}");
+        CompletableFuture<Result<Map<String, Integer>>> result = RUNNER_CALL.callAsync(
+                new SaltClient(URI.create("http://localhost/"), http), AUTH, events,
+                new CompletableFuture<>()).toCompletableFuture();
+
+        assertEquals(Map.of("changed", 1), result.get(1, TimeUnit.SECONDS).result().get());
+        assertEquals(0, events.getListenerCount());
+    }
+
+    @Test
+    public void testCancelAndClose() throws Exception {
+        SaltClient client = new SaltClient(URI.create("http://localhost/"),
+                jobHttpClient("{}"));
+        TestEventStream events = new TestEventStream();
+        CompletableFuture<GenericError> cancel = new CompletableFuture<>();
+        CompletableFuture<Result<Map<String, Integer>>> cancelled = RUNNER_CALL.callAsync(
+                client, AUTH, events, cancel).toCompletableFuture();
+        CompletableFuture<Result<List<String>>> closed = WHEEL_CALL.callAsync(
+                client, AUTH, events, new CompletableFuture<>()).toCompletableFuture();
+        assertEquals(2, events.getListenerCount());
+
+        cancel.complete(new GenericError("cancelled"));
+        assertEquals("cancelled", ((GenericError) cancelled.get(1, TimeUnit.SECONDS)
+                .error().get()).getMessage());
+        assertEquals(1, events.getListenerCount());
+
+        events.close();
+        assertEquals("EventStream closed with reason closed", ((GenericError) closed
+                .get(1, TimeUnit.SECONDS).error().get()).getMessage());
+    }
+}
@@ -0,0 +1,141 @@
+package com.suse.salt.netapi.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.AuthModule;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.PasswordAuth;
+import com.suse.salt.netapi.datatypes.Token;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CallCoalescer test class
+ */
+public class CallCoalescerTest {
+
+    private static final TypeToken<String> STRING = new TypeToken<String>() { };
+
+    @Test
+    public void testFlushWhenFull() {
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        CallCoalescer coalescer = new CallCoalescer(CoalescingConfig.custom()
+                .withWindowMillis(60000)
+                .withMaxChunks(2)
+                .build(), (batch, auth) -> sent.add(batch.size()));
+        AuthMethod auth = new AuthMethod(new Token("token"));
+
+        coalescer.submit(Jobs.lookupJid("1"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, auth);
+        assertTrue(sent.isEmpty());
+        coalescer.submit(Jobs.lookupJid("2"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, auth);
+        assertEquals(List.of(2), sent);
+    }
+
+    @Test
+    public void testFlushAfterWindow() throws InterruptedException {
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch flushed = new CountDownLatch(2);
+        CallCoalescer coalescer = new CallCoalescer(CoalescingConfig.custom()
+                .withWindowMillis(10)
+                .build(), (batch, auth) -> {
+                    sent.add(batch.size());
+                    flushed.countDown();
+                });
+
+        // calls with different credentials can not share a request
+        coalescer.submit(Jobs.lookupJid("1"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, new AuthMethod(new Token("token1")));
+        coalescer.submit(Jobs.lookupJid("2"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, new AuthMethod(new Token("token1")));
+        coalescer.submit(Jobs.lookupJid("3"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, new AuthMethod(new Token("token2")));
+
+        assertTrue(flushed.await(10, TimeUnit.SECONDS));
+        assertEquals(3, sent.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void testClients() {
+        CallCoalescer coalescer = new CallCoalescer(CoalescingConfig.custom()
+                .withClients(Client.LOCAL)
+                .build(), (batch, auth) -> { });
+        assertTrue(coalescer.accepts(Client.LOCAL));
+        assertFalse(coalescer.accepts(Client.WHEEL));
+    }
+
+    @Test
+    public void testDefaultClients() {
+        CallCoalescer coalescer = new CallCoalescer(CoalescingConfig.custom().build(),
+                (batch, auth) -> { });
+        assertFalse(coalescer.accepts(Client.LOCAL));
+        assertTrue(coalescer.accepts(Client.RUNNER));
+        assertTrue(coalescer.accepts(Client.WHEEL));
+        assertFalse(coalescer.accepts(Client.LOCAL_ASYNC));
+        assertFalse(coalescer.accepts(Client.LOCAL_BATCH));
+        assertFalse(coalescer.accepts(Client.SSH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchClientRejected() {
+        CoalescingConfig.custom().withClients(Client.LOCAL, Client.LOCAL_BATCH);
+    }
+
+    @Test
+    public void testPasswordAuth() {
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        CallCoalescer coalescer = new CallCoalescer(CoalescingConfig.custom()
+                .withWindowMillis(60000)
+                .withMaxChunks(2)
+                .build(), (batch, auth) -> sent.add(batch.size()));
+
+        // equal credentials share a request, a different password does not
+        coalescer.submit(Jobs.lookupJid("1"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, new AuthMethod(new PasswordAuth("user", "secret", AuthModule.PAM)));
+        coalescer.submit(Jobs.lookupJid("2"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, new AuthMethod(new PasswordAuth("user", "other", AuthModule.PAM)));
+        assertTrue(sent.isEmpty());
+        coalescer.submit(Jobs.lookupJid("3"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, new AuthMethod(new PasswordAuth("user", "secret", AuthModule.PAM)));
+        assertEquals(List.of(2), sent);
+    }
+
+    @Test
+    public void testClose() {
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        CallCoalescer coalescer = new CallCoalescer(CoalescingConfig.custom()
+                .withWindowMillis(60000)
+                .build(), (batch, auth) -> sent.add(batch.size()));
+        AuthMethod auth = new AuthMethod(new Token("token"));
+
+        coalescer.submit(Jobs.lookupJid("1"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, auth);
+        coalescer.submit(Jobs.lookupJid("2"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, auth);
+        assertTrue(sent.isEmpty());
+
+        // pending calls are sent without waiting for the window
+        coalescer.close();
+        assertEquals(List.of(2), sent);
+        assertFalse(coalescer.accepts(Client.RUNNER));
+
+        coalescer.submit(Jobs.lookupJid("3"), Client.RUNNER, Optional.empty(), Map.of(),
+                STRING, auth);
+        assertEquals(List.of(2, 1), sent);
+    }
+}
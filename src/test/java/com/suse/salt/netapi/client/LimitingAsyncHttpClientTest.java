@@ -0,0 +1,137 @@
+package com.suse.salt.netapi.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.exception.RequestRejectedException;
+import com.suse.salt.netapi.exception.SaltResponseException;
+import com.suse.salt.netapi.exception.SaltUserUnauthorizedException;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * LimitingAsyncHttpClient test class
+ */
+public class LimitingAsyncHttpClientTest {
+
+    private static final URI ENDPOINT = URI.create("http://localhost/");
+
+    @Test
+    public void testQueueing() {
+        TestHttpClient http = new TestHttpClient();
+        LimitingAsyncHttpClient client = new LimitingAsyncHttpClient(http,
+                ConcurrencyLimitConfig.custom()
+                        .withInitialLimit(2)
+                        .withQueueCapacity(1)
+                        .build());
+
+        CompletableFuture<Object> first = client.post(ENDPOINT, "", null).toCompletableFuture();
+        client.post(ENDPOINT, "", null);
+        CompletableFuture<Object> third = client.post(ENDPOINT, "", null).toCompletableFuture();
+        CompletableFuture<Object> fourth = client.post(ENDPOINT, "", null).toCompletableFuture();
+
+        assertEquals(2, http.getRequests().size());
+        assertEquals(1, client.getQueued());
+        assertTrue(fourth.isCompletedExceptionally());
+
+        http.getRequests().get(0).respond("done");
+        assertEquals("done", first.join());
+        assertEquals(3, http.getRequests().size());
+        assertEquals(0, client.getQueued());
+        assertFalse(third.isDone());
+        client.shutdown();
+    }
+
+    @Test
+    public void testBackoff() {
+        TestHttpClient http = new TestHttpClient();
+        LimitingAsyncHttpClient client = new LimitingAsyncHttpClient(http,
+                ConcurrencyLimitConfig.custom()
+                        .withInitialLimit(8)
+                        .withBackoffRatio(0.5)
+                        .build());
+
+        CompletableFuture<Object> result = client.post(ENDPOINT, "", null).toCompletableFuture();
+        http.getRequests().get(0).fail(
+                new SaltResponseException(500, "Response code: 500"));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(4, client.getLimit());
+        assertEquals(0, client.getInFlight());
+        client.shutdown();
+    }
+
+    @Test
+    public void testNoBackoffOnClientError() {
+        TestHttpClient http = new TestHttpClient();
+        LimitingAsyncHttpClient client = new LimitingAsyncHttpClient(http,
+                ConcurrencyLimitConfig.custom()
+                        .withInitialLimit(8)
+                        .withBackoffRatio(0.5)
+                        .build());
+
+        client.post(ENDPOINT, "", null);
+        client.post(ENDPOINT, "", null);
+        http.getRequests().get(0).fail(
+                new SaltResponseException(404, "Response code: 404"));
+        http.getRequests().get(1).fail(
+                new SaltUserUnauthorizedException("Salt user does not have sufficient permissions"));
+
+        assertEquals(8, client.getLimit());
+        assertEquals(0, client.getInFlight());
+        client.shutdown();
+    }
+
+    @Test
+    public void testCancel() {
+        TestHttpClient http = new TestHttpClient();
+        LimitingAsyncHttpClient client = new LimitingAsyncHttpClient(http,
+                ConcurrencyLimitConfig.custom()
+                        .withInitialLimit(1)
+                        .withMaxLimit(1)
+                        .build());
+
+        CompletableFuture<Object> sent = client.post(ENDPOINT, "", null).toCompletableFuture();
+        CompletableFuture<Object> queued = client.post(ENDPOINT, "", null).toCompletableFuture();
+        assertEquals(1, client.getQueued());
+
+        // a cancelled queued request is never sent
+        queued.cancel(false);
+        assertEquals(0, client.getQueued());
+
+        // cancelling a sent request cancels the request of the delegate
+        sent.cancel(false);
+        assertTrue(http.getRequests().get(0).getFuture().isCancelled());
+        assertEquals(0, client.getInFlight());
+        assertEquals(1, http.getRequests().size());
+        client.shutdown();
+    }
+
+    @Test
+    public void testQueueTimeout() {
+        TestHttpClient http = new TestHttpClient();
+        LimitingAsyncHttpClient client = new LimitingAsyncHttpClient(http,
+                ConcurrencyLimitConfig.custom()
+                        .withInitialLimit(1)
+                        .withMaxLimit(1)
+                        .withQueueTimeoutMillis(10)
+                        .build());
+
+        client.post(ENDPOINT, "", null);
+        CompletableFuture<Object> queued = client.post(ENDPOINT, "", null).toCompletableFuture();
+        try {
+            queued.join();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof RequestRejectedException);
+        }
+        assertTrue(queued.isCompletedExceptionally());
+        assertEquals(1, http.getRequests().size());
+        client.shutdown();
+    }
+}
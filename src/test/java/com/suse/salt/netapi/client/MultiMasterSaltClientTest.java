@@ -0,0 +1,171 @@
+package com.suse.salt.netapi.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.calls.Client;
+import com.suse.salt.netapi.calls.LocalAsyncResult;
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.datatypes.target.Glob;
+import com.suse.salt.netapi.results.Return;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+/**
+ * MultiMasterSaltClient test class
+ */
+public class MultiMasterSaltClientTest {
+
+    private static final URI MASTER1 = URI.create("http://master1:8000/");
+    private static final URI MASTER2 = URI.create("http://master2:8000/");
+    private static final AuthMethod AUTH = new AuthMethod(new Token("token"));
+    private static final TypeToken<Return<List<Map<String, Object>>>> LOOKUP_TYPE =
+            new TypeToken<Return<List<Map<String, Object>>>>() { };
+
+    /**
+     * Masters answering with a fixed response, except for the unreachable ones failing
+     * all requests and the held ones not answering until released.
+     */
+    private static class Masters {
+
+        private final Set<String> down = new HashSet<>();
+        private final Set<String> held = new HashSet<>();
+        private String response = "{\"return\": [{}]}";
+        private final TestHttpClient http = new TestHttpClient(request -> {
+            String host = request.getUri().getHost();
+            if (down.contains(host)) {
+                request.fail(new ConnectException("Connection refused"));
+            } else if (!held.contains(host)) {
+                request.respond(response);
+            }
+        });
+
+        private List<String> hosts() {
+            return http.getRequests().stream().map(request -> request.getUri().getHost())
+                    .collect(Collectors.toList());
+        }
+
+        private void release(String host) {
+            held.remove(host);
+            http.getPending().stream()
+                    .filter(request -> request.getUri().getHost().equals(host))
+                    .forEach(request -> request.respond(response));
+        }
+    }
+
+    private static CompletionStage<Return<List<Map<String, Object>>>> lookup(
+            SaltClient client, String jid) {
+        return client.call(Jobs.lookupJid(jid), Client.RUNNER, Optional.empty(), Map.of(),
+                LOOKUP_TYPE, AUTH);
+    }
+
+    @Test
+    public void testFailoverIdempotent() {
+        Masters masters = new Masters();
+        masters.down.add("master1");
+        try (MultiMasterSaltClient client =
+                new MultiMasterSaltClient(List.of(MASTER1, MASTER2), masters.http)) {
+            lookup(client, "1").toCompletableFuture().join();
+
+            assertEquals(List.of("master1", "master2"), masters.hosts());
+            assertFalse(client.isHealthy(MASTER1));
+            assertTrue(client.isHealthy(MASTER2));
+        }
+    }
+
+    @Test
+    public void testNoFailoverNonIdempotent() {
+        Masters masters = new Masters();
+        masters.down.add("master1");
+        try (MultiMasterSaltClient client =
+                new MultiMasterSaltClient(List.of(MASTER1, MASTER2), masters.http)) {
+            CompletableFuture<?> result = com.suse.salt.netapi.calls.modules.Test.ping()
+                    .callSync(client, new Glob("*"), AUTH).toCompletableFuture();
+            try {
+                result.join();
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof ConnectException);
+            }
+            assertTrue(result.isCompletedExceptionally());
+            assertEquals(List.of("master1"), masters.hosts());
+
+            // the unreachable master is avoided afterwards
+            lookup(client, "1").toCompletableFuture().join();
+            assertEquals(List.of("master1", "master2"), masters.hosts());
+        }
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        Masters masters = new Masters();
+        masters.held.add("master1");
+        try (MultiMasterSaltClient client =
+                new MultiMasterSaltClient(List.of(MASTER1, MASTER2), masters.http)) {
+            lookup(client, "1");
+            lookup(client, "2");
+            lookup(client, "3");
+
+            assertEquals(List.of("master1", "master2", "master2"), masters.hosts());
+            assertEquals(1, client.getOutstanding(MASTER1));
+            assertEquals(0, client.getOutstanding(MASTER2));
+        }
+    }
+
+    @Test
+    public void testServerSentEvents() {
+        Masters masters = new Masters();
+        masters.held.add("master1");
+        try (MultiMasterSaltClient client =
+                new MultiMasterSaltClient(List.of(MASTER1, MASTER2), masters.http)) {
+            lookup(client, "1");
+            client.serverSentEvents(new Token("token"), 0).close();
+
+            assertEquals(List.of("master1", "master2"), masters.hosts());
+            assertEquals("/events", masters.http.getRequests().get(1).getUri().getPath());
+        }
+    }
+
+    @Test
+    public void testJidPinning() {
+        Masters masters = new Masters();
+        masters.held.add("master1");
+        try (MultiMasterSaltClient client =
+                new MultiMasterSaltClient(List.of(MASTER1, MASTER2), masters.http)) {
+            // keep master1 busy so that the job is published on master2
+            lookup(client, "1");
+            masters.response = "{\"return\": [{\"jid\": \"20240101\", \"minions\": [\"minion1\"]}]}";
+            client.call(com.suse.salt.netapi.calls.modules.Test.ping(), Client.LOCAL_ASYNC,
+                    Optional.of(new Glob("*")), Map.of(),
+                    new TypeToken<Return<List<LocalAsyncResult<Boolean>>>>() { }, AUTH)
+                    .toCompletableFuture().join();
+            masters.response = "{\"return\": [{}]}";
+
+            // make master2 the busier one
+            masters.held.add("master2");
+            lookup(client, "2");
+            masters.release("master1");
+
+            lookup(client, "20240101");
+            lookup(client, "other");
+            assertEquals(List.of("master1", "master2", "master2", "master2", "master1"),
+                    masters.hosts());
+        }
+    }
+}
@@ -20,7 +20,12 @@ import static org.junit.Assert.assertTrue;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.suse.salt.netapi.calls.SaltSSHConfig;
+import com.suse.salt.netapi.calls.WheelResult;
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.calls.wheel.Key;
 import com.suse.salt.netapi.client.impl.HttpAsyncClientImpl;
+import com.suse.salt.netapi.client.impl.JavaHttpClientImpl;
+import com.suse.salt.netapi.datatypes.AuthMethod;
 import com.suse.salt.netapi.datatypes.Token;
 import com.suse.salt.netapi.datatypes.cherrypy.Stats;
 import com.suse.salt.netapi.datatypes.target.Glob;
@@ -28,6 +33,7 @@ import com.suse.salt.netapi.exception.SaltUserUnauthorizedException;
 import com.suse.salt.netapi.results.Result;
 import com.suse.salt.netapi.results.SSHRawResult;
 import com.suse.salt.netapi.utils.ClientUtils;
+import com.suse.salt.netapi.utils.HttpClientUtils;
 import com.suse.salt.netapi.utils.TestUtils;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
@@ -50,6 +56,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Salt API client unit tests.
@@ -74,6 +85,10 @@ public class SaltClientTest {
             SaltClientTest.class.getResourceAsStream("/stats_response.json"));
     static final String JSON_LOGOUT_RESPONSE = ClientUtils.streamToString(
             SaltClientTest.class.getResourceAsStream("/logout_response.json"));
+    static final String JSON_CALL_BATCH_REQUEST = ClientUtils.streamToString(
+            SaltClientTest.class.getResourceAsStream("/call_batch_request.json"));
+    static final String JSON_CALL_BATCH_RESPONSE = ClientUtils.streamToString(
+            SaltClientTest.class.getResourceAsStream("/call_batch_response.json"));
 
     @Rule
     public WireMockRule wireMockRule = new WireMockRule(MOCK_HTTP_PORT);
@@ -132,6 +147,98 @@ public class SaltClientTest {
         client.login("user", "pass", AUTO).toCompletableFuture().join();
     }
 
+    @Test
+    public void testLoginOkStreaming() {
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody(JSON_LOGIN_RESPONSE)));
+
+        ExecutorService parseExecutor = Executors.newSingleThreadExecutor();
+        try {
+            SaltClient streamingClient = new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                    new HttpAsyncClientImpl(closeableHttpAsyncClient, parseExecutor));
+            Token token = streamingClient.login("user", "pass", AUTO).toCompletableFuture().join();
+            verifyLoginToken(token);
+        } finally {
+            parseExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoginFailureStreaming() {
+        exception.expect(CompletionException.class);
+        exception.expectCause(instanceOf(SaltUserUnauthorizedException.class));
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_UNAUTHORIZED)));
+
+        ExecutorService parseExecutor = Executors.newSingleThreadExecutor();
+        try {
+            SaltClient streamingClient = new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                    new HttpAsyncClientImpl(closeableHttpAsyncClient, parseExecutor));
+            streamingClient.login("user", "pass", AUTO).toCompletableFuture().join();
+        } finally {
+            parseExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoginOkParseExecutor() {
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody(JSON_LOGIN_RESPONSE)));
+
+        ExecutorService parseExecutor = Executors.newSingleThreadExecutor(
+                runnable -> new Thread(runnable, "parser"));
+        // record the threads the parsing runs on, a stage chained to the result may run
+        // on the calling thread if the result is already there
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Executor recordingExecutor = runnable -> parseExecutor.execute(() -> {
+            threads.add(Thread.currentThread().getName());
+            runnable.run();
+        });
+        try {
+            SaltClient parsingClient = new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                    new HttpAsyncClientImpl(closeableHttpAsyncClient, recordingExecutor, false));
+            Token token = parsingClient.login("user", "pass", AUTO).toCompletableFuture().join();
+            verifyLoginToken(token);
+            assertEquals(List.of("parser"), threads);
+        } finally {
+            parseExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoginOkJavaClient() {
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody(JSON_LOGIN_RESPONSE)));
+
+        SaltClient javaClient = new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                new JavaHttpClientImpl(HttpClientUtils.defaultJavaClient()));
+        Token token = javaClient.login("user", "pass", AUTO).toCompletableFuture().join();
+        verifyLoginToken(token);
+    }
+
+    @Test
+    public void testLoginFailureJavaClient() {
+        exception.expect(CompletionException.class);
+        exception.expectCause(instanceOf(SaltUserUnauthorizedException.class));
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_UNAUTHORIZED)));
+
+        SaltClient javaClient = new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                new JavaHttpClientImpl(HttpClientUtils.defaultJavaClient()));
+        javaClient.login("user", "pass", AUTO).toCompletableFuture().join();
+    }
+
     @Test
     public void testRunRequest() {
         stubFor(any(urlMatching(".*"))
@@ -271,4 +378,50 @@ public class SaltClientTest {
                 .withHeader("Content-Type", equalTo("application/json; charset=UTF-8"))
                 .withRequestBody(absent()));
     }
+
+    @Test
+    public void testCallBatch() {
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withBody(JSON_CALL_BATCH_RESPONSE)));
+
+        CallBatch batch = new CallBatch();
+        CompletionStage<Map<String, Result<Boolean>>> ping =
+                batch.add(com.suse.salt.netapi.calls.modules.Test.ping(), new Glob("*"));
+        CompletionStage<Result<Map<String, Object>>> lookup =
+                batch.add(Jobs.lookupJid("20160101120000000000"));
+        CompletionStage<WheelResult<Result<Object>>> accept =
+                batch.add(Key.accept("minion1"));
+        client.callBatch(batch, new AuthMethod(new Token("token"))).toCompletableFuture().join();
+
+        verify(1, postRequestedFor(urlEqualTo("/"))
+                .withHeader("X-Auth-Token", equalTo("token"))
+                .withRequestBody(equalToJson(JSON_CALL_BATCH_REQUEST)));
+
+        Map<String, Result<Boolean>> pingResults = ping.toCompletableFuture().join();
+        assertTrue(pingResults.get("minion1").result().get());
+        assertTrue(pingResults.get("minion2").error().isPresent());
+        assertEquals("hello",
+                lookup.toCompletableFuture().join().result().get().get("minion1"));
+        assertTrue(accept.toCompletableFuture().join().getData().isSuccess());
+    }
+
+    @Test
+    public void testCallBatchFailure() {
+        stubFor(any(urlMatching(".*"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_INTERNAL_ERROR)));
+
+        CallBatch batch = new CallBatch();
+        CompletionStage<Map<String, Result<Boolean>>> ping =
+                batch.add(com.suse.salt.netapi.calls.modules.Test.ping(), new Glob("*"));
+        CompletionStage<Result<Map<String, Object>>> lookup =
+                batch.add(Jobs.lookupJid("20160101120000000000"));
+        client.callBatch(batch, new AuthMethod(new Token())).toCompletableFuture().join();
+
+        assertTrue(ping.toCompletableFuture().isCompletedExceptionally());
+        assertTrue(lookup.toCompletableFuture().isCompletedExceptionally());
+    }
 }
@@ -0,0 +1,109 @@
+package com.suse.salt.netapi.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.suse.salt.netapi.AuthModule;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.PasswordAuth;
+import com.suse.salt.netapi.exception.SaltUserUnauthorizedException;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SessionManager test class
+ */
+public class SessionManagerTest {
+
+    private static final PasswordAuth CREDENTIALS =
+            new PasswordAuth("user", "pass", AuthModule.AUTO);
+
+    /**
+     * Answers the pending logins with a new token each, numbered by the order of the
+     * logins.
+     */
+    private static void completeLogins(TestHttpClient http) {
+        List<TestHttpClient.Request> requests = http.getRequests();
+        for (int i = 0; i < requests.size(); i++) {
+            if (!requests.get(i).getFuture().isDone()) {
+                requests.get(i).respond("{\"return\": [{\"token\": \"token" + (i + 1) +
+                        "\", \"expire\": 4102444800.0, \"start\": 1420000000.0}]}");
+            }
+        }
+    }
+
+    @Test
+    public void testSingleFlightLogin() {
+        TestHttpClient http = new TestHttpClient();
+        try (SessionManager session = new SessionManager(
+                new SaltClient(URI.create("http://localhost"), http), CREDENTIALS)) {
+            CompletionStage<AuthMethod> first = session.getAuthMethod();
+            CompletionStage<AuthMethod> second = session.getAuthMethod();
+            completeLogins(http);
+
+            assertEquals(1, http.getRequests().size());
+            assertEquals("token1", first.toCompletableFuture().join()
+                    .getInternal().left().get().getToken());
+            assertEquals("token1", second.toCompletableFuture().join()
+                    .getInternal().left().get().getToken());
+        }
+    }
+
+    @Test
+    public void testRetryUnauthorizedOnce() {
+        TestHttpClient http = new TestHttpClient();
+        try (SessionManager session = new SessionManager(
+                new SaltClient(URI.create("http://localhost"), http), CREDENTIALS)) {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            CompletionStage<String> result = session.call(auth -> {
+                String token = auth.getInternal().left().get().getToken();
+                tokens.add(token);
+                CompletableFuture<String> call = new CompletableFuture<>();
+                if (token.equals("token1")) {
+                    call.completeExceptionally(new SaltUserUnauthorizedException("expired"));
+                } else {
+                    call.complete(token);
+                }
+                return call;
+            });
+            completeLogins(http);
+
+            assertEquals("token2", result.toCompletableFuture().join());
+            assertEquals(List.of("token1", "token2"), tokens);
+            assertEquals(2, http.getRequests().size());
+        }
+    }
+
+    @Test
+    public void testNoRetryForRejectedLogin() {
+        TestHttpClient http = new TestHttpClient(request ->
+                request.fail(new SaltUserUnauthorizedException("bad credentials")));
+        try (SessionManager session = new SessionManager(
+                new SaltClient(URI.create("http://localhost"), http), CREDENTIALS)) {
+            List<AuthMethod> calls = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> result = session.<String>call(auth -> {
+                calls.add(auth);
+                return CompletableFuture.completedFuture("result");
+            }).toCompletableFuture();
+
+            assertTrue(result.isCompletedExceptionally());
+            try {
+                result.join();
+                fail("call should fail");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof SaltUserUnauthorizedException);
+            }
+            assertTrue(calls.isEmpty());
+            assertEquals(1, http.getRequests().size());
+        }
+    }
+}
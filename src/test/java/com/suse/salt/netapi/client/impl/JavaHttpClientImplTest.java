@@ -0,0 +1,140 @@
+package com.suse.salt.netapi.client.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.reflect.TypeToken;
+import com.suse.salt.netapi.parser.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaHttpClientImpl test class
+ */
+public class JavaHttpClientImplTest {
+
+    private static final JsonParser<Map<String, Object>> PARSER =
+            new JsonParser<>(new TypeToken<Map<String, Object>>() { });
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private HttpServer server;
+    private URI uri;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(handlers);
+        // sends the first half of the body and the rest once released
+        server.createContext("/halves", exchange -> respond(exchange, () -> {
+            write(exchange, "{\"first\": 1, ");
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            write(exchange, "\"second\": 2}");
+        }));
+        // keeps sending whitespace until the client goes away
+        server.createContext("/endless", exchange -> respond(exchange, () -> {
+            write(exchange, "{\"values\": [");
+            started.countDown();
+            try {
+                while (true) {
+                    write(exchange, " ");
+                    Thread.sleep(10);
+                }
+            } catch (IOException e) {
+                disconnected.countDown();
+            }
+        }));
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    /**
+     * Body written by a handler of the test server.
+     */
+    private interface Body {
+        void write() throws IOException, InterruptedException;
+    }
+
+    private static void respond(HttpExchange exchange, Body body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try {
+            body.write();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void write(HttpExchange exchange, String chunk) throws IOException {
+        OutputStream out = exchange.getResponseBody();
+        out.write(chunk.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static JavaHttpClientImpl client() {
+        return new JavaHttpClientImpl(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build());
+    }
+
+    @Test
+    public void testStreamedResponse() throws Exception {
+        CompletableFuture<Map<String, Object>> result = client()
+                .get(uri.resolve("/halves"), Collections.emptyMap(), PARSER)
+                .toCompletableFuture();
+
+        // the parse waits for the rest of the body on a thread of its own
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+        CompletableFuture<String> thread = result
+                .thenApply(value -> Thread.currentThread().getName());
+        release.countDown();
+
+        assertTrue(thread.get(5, TimeUnit.SECONDS).startsWith("salt-response-parser-"));
+        assertEquals(Map.of("first", 1.0, "second", 2.0), result.join());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CompletableFuture<Map<String, Object>> result = client()
+                .get(uri.resolve("/endless"), Collections.emptyMap(), PARSER)
+                .toCompletableFuture();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+
+        result.cancel(true);
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+    }
+}
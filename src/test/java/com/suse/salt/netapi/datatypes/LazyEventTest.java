@@ -0,0 +1,71 @@
+package com.suse.salt.netapi.datatypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.suse.salt.netapi.event.JobReturnEvent;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * LazyEvent test class
+ */
+public class LazyEventTest {
+
+    private static final String MESSAGE = "data: {\"tag\": \"salt/job/20150505113307407682/ret/minion1\", " +
+            "\"data\": {\"jid\": \"20150505113307407682\", \"id\": \"minion1\", \"return\": true}}";
+
+    @Test
+    public void testParseWithOffset() {
+        Event event = LazyEvent.parse(MESSAGE, 6);
+        assertEquals("salt/job/20150505113307407682/ret/minion1", event.getTag());
+        assertEquals("minion1", event.getData().get("id"));
+
+        JobReturnEvent jobReturn = JobReturnEvent.parse(event).get();
+        assertEquals("20150505113307407682", jobReturn.getJobId());
+        assertTrue(jobReturn.getData().getResult(Boolean.class));
+    }
+
+    @Test
+    public void testDataNotShared() {
+        Event event = LazyEvent.parse(MESSAGE, 6);
+        event.getData().remove("id");
+        assertEquals("minion1", event.getData().get("id"));
+        event.getData(JsonElement.class).getAsJsonObject().remove("id");
+        assertEquals("minion1",
+                event.getData(JsonElement.class).getAsJsonObject().get("id").getAsString());
+        event.getData(JsonObject.class).addProperty("id", "minion2");
+        assertEquals("minion1", event.getData(JsonObject.class).get("id").getAsString());
+        assertEquals("minion1", event.getData(Map.class).get("id"));
+
+        // specific event types are still decoded once
+        assertSame(JobReturnEvent.parse(event).get(), JobReturnEvent.parse(event).get());
+    }
+
+    @Test
+    public void testTagAfterData() {
+        Event event = LazyEvent.parse("{\"data\": {\"key\": [1, 2, {\"tag\": \"inner\"}]}, \"tag\": \"outer\"}");
+        assertEquals("outer", event.getTag());
+        assertEquals(2, event.getData(JsonElement.class).getAsJsonObject().get("key")
+                .getAsJsonArray().get(1).getAsInt());
+    }
+
+    @Test
+    public void testMissingData() {
+        Event event = LazyEvent.parse("{\"tag\": \"salt/auth\"}");
+        assertNull(event.getData());
+        assertNull(event.getData(JsonElement.class));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testMissingTag() {
+        LazyEvent.parse("{\"data\": {}}");
+    }
+}
@@ -0,0 +1,95 @@
+package com.suse.salt.netapi.datatypes.target;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for MinionSet and MinionIdRegistry
+ */
+public class MinionSetTest {
+
+    @Test
+    public void testRegistry() {
+        MinionIdRegistry registry = new MinionIdRegistry();
+        assertEquals(-1, registry.indexOf("minion1"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, registry.register("minion" + i));
+        }
+        assertEquals(5, registry.register("minion5"));
+        assertEquals(100, registry.size());
+        assertEquals("minion42", registry.get(42));
+
+        String copy = new String("minion7");
+        assertSame(registry.get(7), registry.intern(copy));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRegistryUnknownIndex() {
+        new MinionIdRegistry().get(0);
+    }
+
+    @Test
+    public void testSetAlgebra() {
+        MinionIdRegistry registry = new MinionIdRegistry();
+        MinionSet webs = MinionSet.of(registry, "web1", "web2", "db1");
+        MinionSet dbs = MinionSet.of(registry, Arrays.asList("db1", "db2"));
+
+        assertEquals(3, webs.size());
+        assertTrue(webs.contains("web1"));
+        assertFalse(webs.contains("db2"));
+        assertFalse(webs.contains("never-registered"));
+        assertEquals(Set.of("web1", "web2", "db1", "db2"), webs.union(dbs));
+        assertEquals(Set.of("db1"), webs.intersect(dbs));
+        assertEquals(Set.of("web1", "web2"), webs.minus(dbs));
+        assertTrue(webs.containsAll(webs.intersect(dbs)));
+        assertFalse(webs.containsAll(dbs));
+        assertEquals(MinionSet.empty(registry), webs.minus(webs));
+        assertEquals(new HashSet<>(Arrays.asList("db2", "db1")), dbs);
+        assertEquals(dbs, new HashSet<>(Arrays.asList("db2", "db1")));
+        assertEquals(new HashSet<>(dbs).hashCode(), dbs.hashCode());
+        assertEquals(Map.of("db1", 1), dbs.select(Map.of("db1", 1, "web1", 2)));
+    }
+
+    @Test
+    public void testTarget() {
+        MinionSet minions = MinionSet.of(new MinionIdRegistry(), "target1", "target2");
+        assertEquals(TargetType.LIST, minions.getType());
+        assertEquals(List.of("target1", "target2"), minions.getTarget());
+        assertEquals(List.of("target1", "target2"), minions.getProps().get("tgt"));
+        assertEquals("list", minions.getProps().get("tgt_type"));
+
+        MinionList list = minions.toMinionList();
+        assertEquals(minions.getProps(), list.getProps());
+    }
+
+    @Test
+    public void testRegistries() {
+        MinionIdRegistry first = new MinionIdRegistry();
+        MinionIdRegistry second = new MinionIdRegistry();
+        second.register("other");
+        MinionSet webs = MinionSet.of(first, "web1", "web2");
+        MinionSet copy = MinionSet.of(second, webs);
+
+        assertEquals(webs, copy);
+        assertTrue(copy.containsAll(webs));
+        assertSame(webs, MinionSet.of(first, webs));
+        assertEquals(2, first.size());
+        assertEquals(3, second.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentRegistries() {
+        MinionSet.of(new MinionIdRegistry(), "web1")
+                .union(MinionSet.of(new MinionIdRegistry(), "web1"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventDispatcher test class
+ */
+public class EventDispatcherTest {
+
+    private static Event event(String tag) {
+        return JsonParser.EVENTS.parse("{\"tag\": \"" + tag + "\", \"data\": {}}");
+    }
+
+    /**
+     * Dispatches a first event and waits until the dispatcher thread is stuck
+     * delivering it, so that following events stay in the queue.
+     */
+    private static EventDispatcher blockedDispatcher(EventDispatchConfig config,
+            List<String> delivered, CountDownLatch release) throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        EventDispatcher dispatcher = new EventDispatcher(config, e -> {
+            blocked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.add(e.getTag());
+        });
+        assertTrue(dispatcher.dispatch(event("first")));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        return dispatcher;
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        EventDispatcher dispatcher = blockedDispatcher(EventDispatchConfig.custom()
+                .withQueueCapacity(2)
+                .withOverflowPolicy(OverflowPolicy.DROP_OLDEST)
+                .build(), delivered, release);
+
+        dispatcher.dispatch(event("a"));
+        dispatcher.dispatch(event("b"));
+        dispatcher.dispatch(event("c"));
+        assertEquals(2, dispatcher.getQueueDepth());
+        assertEquals(1, dispatcher.getDroppedCount());
+
+        CountDownLatch drained = new CountDownLatch(1);
+        release.countDown();
+        dispatcher.shutdown(drained::countDown);
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "b", "c"), delivered);
+    }
+
+    @Test
+    public void testDropByTag() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        EventDispatcher dispatcher = blockedDispatcher(EventDispatchConfig.custom()
+                .withQueueCapacity(2)
+                .withOverflowPolicy(OverflowPolicy.DROP_BY_TAG)
+                .withDroppableTags("salt/auth")
+                .build(), delivered, release);
+
+        dispatcher.dispatch(event("salt/job/1/new"));
+        dispatcher.dispatch(event("salt/auth"));
+        dispatcher.dispatch(event("salt/auth"));
+        dispatcher.dispatch(event("salt/job/1/ret/minion1"));
+        assertEquals(2, dispatcher.getDroppedCount());
+
+        CountDownLatch drained = new CountDownLatch(1);
+        release.countDown();
+        dispatcher.shutdown(drained::countDown);
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "salt/job/1/new", "salt/job/1/ret/minion1"), delivered);
+    }
+
+    @Test
+    public void testFailStream() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        EventDispatcher dispatcher = blockedDispatcher(EventDispatchConfig.custom()
+                .withQueueCapacity(1)
+                .withOverflowPolicy(OverflowPolicy.FAIL_STREAM)
+                .build(), delivered, release);
+
+        assertTrue(dispatcher.dispatch(event("a")));
+        assertFalse(dispatcher.dispatch(event("b")));
+        assertEquals(1, dispatcher.getDroppedCount());
+        release.countDown();
+        dispatcher.shutdown(() -> { });
+    }
+
+    @Test
+    public void testInterruptedDispatch() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        EventDispatcher dispatcher = blockedDispatcher(EventDispatchConfig.custom()
+                .withQueueCapacity(1)
+                .build(), delivered, release);
+
+        assertTrue(dispatcher.dispatch(event("a")));
+        Thread.currentThread().interrupt();
+        assertTrue(dispatcher.dispatch(event("b")));
+        // the flag is kept for the caller
+        assertTrue(Thread.interrupted());
+        assertEquals(1, dispatcher.getDroppedCount());
+        release.countDown();
+        dispatcher.shutdown(() -> { });
+    }
+
+    @Test
+    public void testListenerErrorFailsStream() throws InterruptedException {
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        EventDispatcher dispatcher = new EventDispatcher(EventDispatchConfig.custom().build(),
+                e -> {
+                    if (e.getTag().equals("bad")) {
+                        throw new IllegalStateException("listener failed");
+                    }
+                    delivered.add(e.getTag());
+                }, failures::add);
+
+        dispatcher.dispatch(event("bad"));
+        dispatcher.dispatch(event("good"));
+        CountDownLatch drained = new CountDownLatch(1);
+        dispatcher.shutdown(drained::countDown);
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        assertEquals(1, failures.size());
+        assertEquals("listener failed", failures.get(0).getMessage());
+        assertEquals(List.of("good"), delivered);
+    }
+
+    @Test
+    public void testListenerErrorHandler() throws InterruptedException {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        EventDispatcher dispatcher = new EventDispatcher(EventDispatchConfig.custom()
+                .withListenerErrorHandler((event, e) -> handled.add(event.getTag()))
+                .build(), e -> {
+                    throw new IllegalStateException("listener failed");
+                }, failures::add);
+
+        dispatcher.dispatch(event("a"));
+        dispatcher.dispatch(event("b"));
+        CountDownLatch drained = new CountDownLatch(1);
+        dispatcher.shutdown(drained::countDown);
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), handled);
+        assertTrue(failures.isEmpty());
+    }
+}
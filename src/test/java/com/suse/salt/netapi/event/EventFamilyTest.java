@@ -0,0 +1,68 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.JsonElement;
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.datatypes.LazyEvent;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link EventFamily} and the typed views of {@link Event}.
+ */
+public class EventFamilyTest {
+
+    @Test
+    public void testClassification() {
+        assertEquals(EventFamily.JOB_RETURN, EventFamily.of("salt/job/123/ret/minion1"));
+        assertEquals(EventFamily.RUNNER_RETURN, EventFamily.of("salt/run/123/ret"));
+        assertEquals(EventFamily.WHEEL_RETURN, EventFamily.of("salt/wheel/123/ret"));
+        assertEquals(EventFamily.BEACON, EventFamily.of("salt/beacon/minion1/inotify//tmp"));
+        assertEquals(EventFamily.ENGINE, EventFamily.of("salt/engines/libvirt/some/data"));
+        assertEquals(EventFamily.MINION_START, EventFamily.of("salt/minion/minion1/start"));
+        assertEquals(EventFamily.BATCH_STARTED, EventFamily.of("salt/batch/123/start"));
+
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/job/123/new"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/job/123/ret/"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/job/123/ret/minion1/more"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/run/123/new"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/wheel/123/new"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/minion/minion1/starting"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("salt/auth"));
+        assertEquals(EventFamily.OTHER, EventFamily.of("20241018123456789"));
+    }
+
+    @Test
+    public void testViewIsDecodedOnce() {
+        Event event = LazyEvent.parse("{\"tag\": \"salt/job/20241018123456789012/ret/minion1\", \"data\": " +
+                "{\"fun\": \"test.ping\", \"jid\": \"20241018123456789012\", \"id\": \"minion1\", " +
+                "\"success\": true, \"return\": true}}");
+
+        JobReturnEvent first = JobReturnEvent.parse(event).get();
+        assertSame(first, event.as(JobReturnEvent.class).get());
+        assertEquals("minion1", first.getMinionId());
+        assertTrue(event.as(ResultEvent.class).isPresent());
+        assertFalse(event.as(RunnerReturnEvent.class).isPresent());
+        assertFalse(BeaconEvent.parse(event).isPresent());
+    }
+
+    @Test
+    public void testEngineEventKeepsSharedData() {
+        Event event = LazyEvent.parse("{\"tag\": \"salt/engines/libvirt/some/data\", " +
+                "\"data\": {\"_stamp\": \"2015-05-05T18:33:07.408179\", \"key\": \"value\"}}");
+
+        EngineEvent engineEvent = EngineEvent.parse(event).get();
+        assertFalse(engineEvent.getData(JsonElement.class).getAsJsonObject().has("_stamp"));
+        assertTrue(event.getData(JsonElement.class).getAsJsonObject().has("_stamp"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownType() {
+        JsonParser.EVENTS.parse("{\"tag\": \"salt/auth\", \"data\": {}}").as(String.class);
+    }
+}
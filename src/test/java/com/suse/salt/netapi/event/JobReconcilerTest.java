@@ -0,0 +1,154 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.datatypes.AuthMethod;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.utils.TestEventStream;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * JobReconciler test class
+ */
+public class JobReconcilerTest {
+
+    private static final String JID1 = "20240101000000000001";
+    private static final String JID2 = "20240101000000000002";
+    private static final String JID3 = "20240101000000000003";
+    private static final Pattern JID = Pattern.compile("\"jid\":\"(\\d+)\"");
+
+    /**
+     * Returns an http client answering jobs.list_job lookups with an empty result per job.
+     */
+    private static TestHttpClient lookupHttpClient() {
+        return new TestHttpClient(request -> {
+            Matcher matcher = JID.matcher(request.getData());
+            StringBuilder infos = new StringBuilder();
+            while (matcher.find()) {
+                infos.append(infos.length() == 0 ? "" : ", ").append("{\"jid\": \"")
+                        .append(matcher.group(1)).append("\", \"Result\": {}}");
+            }
+            request.respond("{\"return\": [" + infos + "]}");
+        });
+    }
+
+    /**
+     * Job listener counting the lookups of a job.
+     */
+    private static class CountingJobListener implements JobReturnRouter.JobListener {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+        private volatile Set<String> pending = Set.of("minion1");
+
+        @Override
+        public void onJobReturn(JobReturnEvent event) {
+        }
+
+        @Override
+        public void onLookupReturn(RunnerReturnEvent event) {
+            lookups.incrementAndGet();
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+        }
+
+        @Override
+        public Optional<Set<String>> getPendingMinions() {
+            return Optional.of(pending);
+        }
+    }
+
+    @Test
+    public void testLooksUpStragglers() {
+        TestHttpClient http = lookupHttpClient();
+        SaltClient client = new SaltClient(URI.create("http://localhost/"), http);
+        TestEventStream events = new TestEventStream();
+        AtomicLong clock = new AtomicLong();
+        JobReconcilerConfig config = JobReconcilerConfig.custom()
+                .withMinDelayMillis(1000)
+                .withMaxIntervalMillis(3000)
+                .withBatchSize(2)
+                .build();
+        JobReconciler reconciler = new JobReconciler(client, events,
+                new AuthMethod(new Token("token")), config, clock::get);
+
+        CountingJobListener listener1 = new CountingJobListener();
+        CountingJobListener listener2 = new CountingJobListener();
+        CountingJobListener listener3 = new CountingJobListener();
+        JobReturnRouter router = events.getJobReturnRouter();
+        router.addJobListener(JID1, listener1);
+        router.addJobListener(JID2, listener2);
+        router.addJobListener(JID3, listener3);
+
+        assertEquals(0, reconciler.reconcile(0));
+        assertEquals(3, reconciler.getJobCount());
+        assertEquals(0, reconciler.reconcile(999));
+
+        // all jobs are due and looked up with one request per two jobs
+        assertEquals(3, reconciler.reconcile(1000));
+        assertEquals(2, http.getRequests().size());
+        assertEquals(1, listener1.lookups.get());
+        assertEquals(1, listener3.lookups.get());
+
+        // the interval doubles up to the maximum
+        assertEquals(0, reconciler.reconcile(1999));
+        assertEquals(3, reconciler.reconcile(2000));
+        assertEquals(0, reconciler.reconcile(3999));
+        assertEquals(3, reconciler.reconcile(4000));
+        assertEquals(3, reconciler.reconcile(7000));
+
+        // finished jobs are no longer looked up
+        listener1.pending = Set.of();
+        router.removeJobListener(JID2, listener2);
+        assertEquals(1, reconciler.reconcile(10000));
+        assertEquals(2, reconciler.getJobCount());
+        assertEquals(4, listener1.lookups.get());
+        assertEquals(5, listener3.lookups.get());
+        assertEquals(9, http.getRequests().size());
+        assertEquals(List.of(2, 1, 2, 1, 2, 1, 2, 1, 1), http.getBodies().stream()
+                .map(request -> request.split("jobs.list_job", -1).length - 1)
+                .collect(Collectors.toList()));
+        reconciler.close();
+    }
+
+    @Test
+    public void testStragglerDelayFollowsLatencies() {
+        SaltClient client = new SaltClient(URI.create("http://localhost/"), lookupHttpClient());
+        TestEventStream events = new TestEventStream();
+        AtomicLong clock = new AtomicLong();
+        JobReconcilerConfig config = JobReconcilerConfig.custom()
+                .withMinDelayMillis(1000)
+                .withPercentile(0.5)
+                .build();
+        JobReconciler reconciler = new JobReconciler(client, events,
+                new AuthMethod(new Token("token")), config, clock::get);
+        events.getJobReturnRouter().addJobListener(JID1, new CountingJobListener());
+        reconciler.reconcile(0);
+        assertEquals(1000, reconciler.getStragglerDelayMillis());
+
+        for (int i = 1; i <= 3; i++) {
+            clock.set(i * 2000);
+            events.post("{\"tag\": \"salt/job/" + JID1 + "/ret/minion" + i + "\", \"data\": " +
+                    "{\"fun\": \"test.ping\", \"jid\": \"" + JID1 + "\", \"id\": \"minion" + i +
+                    "\", \"success\": true, \"return\": true}}");
+        }
+        assertEquals(4000, reconciler.getStragglerDelayMillis());
+
+        events.close();
+        assertEquals(0, reconciler.getJobCount());
+    }
+}
@@ -0,0 +1,179 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JobReturnRouter test class
+ */
+public class JobReturnRouterTest {
+
+    private static final String JID = "20161115135014396739";
+
+    /**
+     * Listener collecting everything routed to it.
+     */
+    private static class CollectingListener implements JobReturnRouter.JobListener {
+        private final List<JobReturnEvent> returns = new ArrayList<>();
+        private final List<RunnerReturnEvent> lookups = new ArrayList<>();
+        private int closed = 0;
+
+        @Override
+        public void onJobReturn(JobReturnEvent event) {
+            returns.add(event);
+        }
+
+        @Override
+        public void onLookupReturn(RunnerReturnEvent event) {
+            lookups.add(event);
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+            closed++;
+        }
+    }
+
+    /**
+     * Stream implementing only the methods without a default implementation.
+     */
+    private static class PlainStream implements EventStream {
+        private final List<EventListener> listeners = new ArrayList<>();
+
+        @Override
+        public void addEventListener(EventListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeEventListener(EventListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public int getListenerCount() {
+            return listeners.size();
+        }
+
+        @Override
+        public boolean isEventStreamClosed() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            listeners.forEach(listener -> listener.eventStreamClosed(1000, "closed"));
+            listeners.clear();
+        }
+    }
+
+    private static Event jobReturn(String jid, String minionId) {
+        return JsonParser.EVENTS.parse("{\"tag\": \"salt/job/" + jid + "/ret/" + minionId + "\", " +
+                "\"data\": {\"jid\": \"" + jid + "\", \"id\": \"" + minionId + "\", " +
+                "\"fun\": \"test.ping\", \"return\": true}}");
+    }
+
+    @Test
+    public void testRoutesByJid() {
+        JobReturnRouter router = new JobReturnRouter();
+        CollectingListener listener = new CollectingListener();
+        router.addJobListener(JID, listener);
+
+        router.notify(jobReturn(JID, "minion1"));
+        router.notify(jobReturn("20161115135014396740", "minion1"));
+        router.notify(JsonParser.EVENTS.parse("{\"tag\": \"salt/job/" + JID + "/new\", \"data\": {}}"));
+        router.notify(jobReturn(JID, "minion2"));
+
+        assertEquals(2, listener.returns.size());
+        assertEquals("minion1", listener.returns.get(0).getMinionId());
+        assertEquals("minion2", listener.returns.get(1).getMinionId());
+    }
+
+    @Test
+    public void testRoutesListJobReturns() {
+        JobReturnRouter router = new JobReturnRouter();
+        CollectingListener listener = new CollectingListener();
+        router.addJobListener(JID, listener);
+
+        router.notify(JsonParser.EVENTS.parse("{\"tag\": \"salt/run/20161118112030138076/ret\", " +
+                "\"data\": {\"fun\": \"runner.jobs.list_job\", \"jid\": \"20161118112030138076\", " +
+                "\"return\": {\"jid\": \"" + JID + "\", \"Result\": {}}}}"));
+        router.notify(JsonParser.EVENTS.parse("{\"tag\": \"salt/run/20161118112030138077/ret\", " +
+                "\"data\": {\"fun\": \"runner.manage.up\", \"jid\": \"20161118112030138077\", " +
+                "\"return\": []}}"));
+
+        assertEquals(0, listener.returns.size());
+        assertEquals(1, listener.lookups.size());
+    }
+
+    @Test
+    public void testRemoveAndClose() {
+        JobReturnRouter router = new JobReturnRouter();
+        CollectingListener first = new CollectingListener();
+        CollectingListener second = new CollectingListener();
+        router.addJobListener(JID, first);
+        router.addJobListener("20161115135014396740", second);
+        assertEquals(2, router.getJobCount());
+
+        router.removeJobListener(JID, first);
+        router.notify(jobReturn(JID, "minion1"));
+        router.eventStreamClosed(1000, "closed");
+
+        assertEquals(0, first.returns.size());
+        assertEquals(0, first.closed);
+        assertEquals(1, second.closed);
+        assertEquals(0, router.getJobCount());
+    }
+
+    @Test
+    public void testDefaultRouter() {
+        PlainStream stream = new PlainStream();
+        JobReturnRouter router = stream.getJobReturnRouter();
+        assertSame(router, stream.getJobReturnRouter());
+        assertEquals(1, stream.getListenerCount());
+
+        CollectingListener listener = new CollectingListener();
+        router.addJobListener(JID, listener);
+        stream.listeners.forEach(l -> l.notify(jobReturn(JID, "minion1")));
+        stream.close();
+
+        assertEquals(1, listener.returns.size());
+        assertEquals(1, listener.closed);
+        assertNotSame(router, new PlainStream().getJobReturnRouter());
+    }
+
+    @Test
+    public void testDefaultTagPattern() {
+        PlainStream stream = new PlainStream();
+        List<String> minions = new ArrayList<>();
+        int[] closed = {0};
+        stream.addEventListener("salt/job/*/ret/minion1", new EventListener() {
+            @Override
+            public void notify(Event event) {
+                minions.add((String) event.getData().get("id"));
+            }
+
+            @Override
+            public void eventStreamClosed(int code, String phrase) {
+                closed[0]++;
+            }
+        });
+        assertEquals(1, stream.getListenerCount());
+
+        stream.listeners.forEach(l -> l.notify(jobReturn(JID, "minion1")));
+        stream.listeners.forEach(l -> l.notify(jobReturn(JID, "minion2")));
+        stream.close();
+
+        assertEquals(List.of("minion1"), minions);
+        assertEquals(1, closed[0]);
+    }
+}
@@ -0,0 +1,150 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.utils.TestEventStream;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MergedEventStream test class
+ */
+public class MergedEventStreamTest {
+
+    /**
+     * Listener recording the tags of the events and the close code.
+     */
+    private static class RecordingListener implements EventListener {
+
+        private final List<String> tags = new ArrayList<>();
+        private int closeCode = -1;
+
+        @Override
+        public void notify(Event event) {
+            tags.add(event.getTag());
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+            closeCode = code;
+        }
+    }
+
+    @Test
+    public void testDuplicateJobReturns() {
+        TestEventStream master1 = new TestEventStream();
+        TestEventStream master2 = new TestEventStream();
+        MergedEventStream merged = new MergedEventStream(List.of(master1, master2));
+        RecordingListener listener = new RecordingListener();
+        merged.addEventListener(listener);
+
+        master1.post("{\"tag\": \"salt/job/1/ret/minion1\", \"data\": " +
+                "{\"_stamp\": \"2024-01-01T00:00:00.000001\"}}");
+        master2.post("{\"tag\": \"salt/job/1/ret/minion1\", \"data\": " +
+                "{\"_stamp\": \"2024-01-01T00:00:00.000002\"}}");
+        master2.post("{\"tag\": \"salt/job/1/ret/minion2\", \"data\": " +
+                "{\"_stamp\": \"2024-01-01T00:00:00.000003\"}}");
+
+        assertEquals(List.of("salt/job/1/ret/minion1", "salt/job/1/ret/minion2"),
+                listener.tags);
+        assertEquals(1, merged.getDuplicateCount());
+    }
+
+    @Test
+    public void testDuplicateMinionEvents() {
+        TestEventStream master1 = new TestEventStream();
+        TestEventStream master2 = new TestEventStream();
+        MergedEventStream merged = new MergedEventStream(List.of(master1, master2));
+        RecordingListener listener = new RecordingListener();
+        merged.addEventListener(listener);
+
+        // every master stamps the events of a minion on its own
+        master1.post("{\"tag\": \"minion_start\", \"data\": {\"id\": \"minion1\", " +
+                "\"_stamp\": \"2024-01-01T00:00:00.000001\"}}");
+        master2.post("{\"tag\": \"minion_start\", \"data\": {\"id\": \"minion1\", " +
+                "\"_stamp\": \"2024-01-01T00:00:00.000002\"}}");
+        master1.post("{\"tag\": \"salt/job/1/prog/minion1/0\", \"data\": " +
+                "{\"id\": \"minion1\", \"jid\": \"1\", \"len\": 2, " +
+                "\"_stamp\": \"2024-01-01T00:00:01.000001\"}}");
+        master2.post("{\"tag\": \"salt/job/1/prog/minion1/0\", \"data\": " +
+                "{\"id\": \"minion1\", \"jid\": \"1\", \"len\": 2, " +
+                "\"_stamp\": \"2024-01-01T00:00:01.000002\"}}");
+        master2.post("{\"tag\": \"salt/beacon/minion1/load/\", \"data\": " +
+                "{\"id\": \"minion1\", \"1m\": 0.5, " +
+                "\"_stamp\": \"2024-01-01T00:00:02.000002\"}}");
+        master1.post("{\"tag\": \"salt/beacon/minion1/load/\", \"data\": " +
+                "{\"id\": \"minion1\", \"1m\": 0.5, " +
+                "\"_stamp\": \"2024-01-01T00:00:02.000001\"}}");
+
+        // a later beacon event with other data is passed on
+        master1.post("{\"tag\": \"salt/beacon/minion1/load/\", \"data\": " +
+                "{\"id\": \"minion1\", \"1m\": 0.7, " +
+                "\"_stamp\": \"2024-01-01T00:00:12.000001\"}}");
+
+        assertEquals(List.of("minion_start", "salt/job/1/prog/minion1/0",
+                "salt/beacon/minion1/load/", "salt/beacon/minion1/load/"), listener.tags);
+        assertEquals(3, merged.getDuplicateCount());
+    }
+
+    @Test
+    public void testMasterEventsByStamp() {
+        TestEventStream master1 = new TestEventStream();
+        TestEventStream master2 = new TestEventStream();
+        MergedEventStream merged = new MergedEventStream(List.of(master1, master2));
+        RecordingListener listener = new RecordingListener();
+        merged.addEventListener(listener);
+
+        String created = "{\"tag\": \"salt/job/1/new\", \"data\": {\"jid\": \"1\", " +
+                "\"_stamp\": \"2024-01-01T00:00:00.000001\"}}";
+        master1.post(created);
+        master2.post(created);
+        master2.post("{\"tag\": \"salt/job/1/new\", \"data\": {\"jid\": \"1\", " +
+                "\"_stamp\": \"2024-01-01T00:05:00.000001\"}}");
+
+        assertEquals(List.of("salt/job/1/new", "salt/job/1/new"), listener.tags);
+        assertEquals(1, merged.getDuplicateCount());
+    }
+
+    @Test
+    public void testMaxEntries() {
+        TestEventStream master1 = new TestEventStream();
+        MergedEventStream merged = new MergedEventStream(List.of(master1),
+                Duration.ofMinutes(1), 1);
+        RecordingListener listener = new RecordingListener();
+        merged.addEventListener(listener);
+
+        master1.post("{\"tag\": \"salt/job/1/ret/minion1\", \"data\": {}}");
+        master1.post("{\"tag\": \"salt/job/1/ret/minion2\", \"data\": {}}");
+        master1.post("{\"tag\": \"salt/job/1/ret/minion1\", \"data\": {}}");
+
+        assertEquals(3, listener.tags.size());
+        assertEquals(0, merged.getDuplicateCount());
+    }
+
+    @Test
+    public void testClosedWithLastStream() {
+        TestEventStream master1 = new TestEventStream();
+        TestEventStream master2 = new TestEventStream();
+        MergedEventStream merged = new MergedEventStream(List.of(master1, master2));
+        RecordingListener listener = new RecordingListener();
+        merged.addEventListener(listener);
+
+        master1.close();
+        assertFalse(merged.isEventStreamClosed());
+        assertEquals(-1, listener.closeCode);
+        master2.post("{\"tag\": \"salt/job/1/ret/minion1\", \"data\": {}}");
+        assertEquals(1, listener.tags.size());
+
+        master2.close();
+        assertTrue(merged.isEventStreamClosed());
+        assertEquals(1000, listener.closeCode);
+        assertEquals(0, merged.getListenerCount());
+    }
+}
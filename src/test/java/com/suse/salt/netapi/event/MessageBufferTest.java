@@ -0,0 +1,87 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.suse.salt.netapi.exception.MessageTooBigException;
+
+import org.junit.Test;
+
+/**
+ * MessageBuffer test class
+ */
+public class MessageBufferTest {
+
+    private static String repeat(char c, int count) {
+        return String.valueOf(c).repeat(count);
+    }
+
+    @Test
+    public void testAssembleFragments() throws MessageTooBigException {
+        MessageBuffer buffer = new MessageBuffer(Integer.MAX_VALUE);
+        String first = repeat('a', 3000);
+        String second = repeat('b', 70000);
+        buffer.append(first);
+        buffer.append(second);
+        buffer.append("c");
+        assertEquals(first + second + "c", buffer.take());
+        assertTrue(buffer.isEmpty());
+
+        // the buffer is reused for the following message
+        buffer.append("d");
+        buffer.append("e");
+        assertEquals("de", buffer.take());
+    }
+
+    @Test
+    public void testReuseLargeBuffer() throws MessageTooBigException {
+        MessageBuffer buffer = new MessageBuffer(Integer.MAX_VALUE);
+        String first = repeat('a', 200000);
+        buffer.append(first.substring(0, 100000));
+        buffer.append(first.substring(100000));
+        assertEquals(first, buffer.take());
+        int capacity = buffer.capacity();
+        assertTrue(capacity >= 200000);
+
+        // a second large message fits into the retained buffer
+        String second = repeat('b', 150000);
+        buffer.append(second.substring(0, 50000));
+        buffer.append(second.substring(50000));
+        assertEquals(capacity, buffer.capacity());
+        assertEquals(second, buffer.take());
+        assertEquals(capacity, buffer.capacity());
+    }
+
+    @Test
+    public void testRetainedSize() throws MessageTooBigException {
+        MessageBuffer buffer = new MessageBuffer(Integer.MAX_VALUE, 4096);
+        buffer.append(repeat('a', 1500));
+        buffer.take();
+        int capacity = buffer.capacity();
+        assertTrue(capacity >= 1500);
+
+        // a buffer grown beyond the retained size is not kept
+        buffer.append(repeat('b', 5000));
+        buffer.take();
+        assertTrue(buffer.capacity() < capacity);
+    }
+
+    @Test
+    public void testMaxLength() throws MessageTooBigException {
+        MessageBuffer buffer = new MessageBuffer(10);
+        buffer.append("0123");
+        buffer.append("4567");
+        try {
+            buffer.append("890");
+            fail("Expected MessageTooBigException");
+        } catch (MessageTooBigException e) {
+            assertEquals("Message length exceeded the configured maximum (10 characters)",
+                    e.getMessage());
+        }
+        assertTrue(buffer.isEmpty());
+
+        buffer.append("0123456789");
+        assertEquals("0123456789", buffer.take());
+    }
+}
@@ -0,0 +1,126 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.calls.runner.Jobs;
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.exception.SaltException;
+import com.suse.salt.netapi.utils.TestEventStream;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReconnectingEventStream test class
+ */
+public class ReconnectingEventStreamTest {
+
+    private static final String JID = "20240101000000000001";
+
+    /**
+     * Job listener counting down on lookups and closing of the stream.
+     */
+    private static class LatchJobListener implements JobReturnRouter.JobListener {
+
+        private final CountDownLatch lookups = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile RunnerReturnEvent lookup;
+        private volatile int closeCode;
+
+        @Override
+        public void onJobReturn(JobReturnEvent event) {
+        }
+
+        @Override
+        public void onLookupReturn(RunnerReturnEvent event) {
+            lookup = event;
+            lookups.countDown();
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+            closeCode = code;
+            closed.countDown();
+        }
+    }
+
+    private static CompletionStage<Token> token() {
+        return CompletableFuture.completedFuture(new Token("token"));
+    }
+
+    private static ReconnectConfig fastConfig(int maxAttempts) {
+        return ReconnectConfig.custom()
+                .withInitialDelayMillis(1)
+                .withMaxDelayMillis(10)
+                .withMaxAttempts(maxAttempts)
+                .build();
+    }
+
+    @Test
+    public void testReconnectAndReconcile() throws Exception {
+        TestHttpClient http = TestHttpClient.fixed("{\"return\": [{\"jid\": \"" + JID + "\", " +
+                "\"Minions\": [\"minion1\"], \"Result\": {\"minion1\": {\"return\": true}}}]}");
+        SaltClient client = new SaltClient(URI.create("http://localhost/"), http);
+        List<TestEventStream> streams = new CopyOnWriteArrayList<>();
+        ReconnectingEventStream events = new ReconnectingEventStream(client,
+                ReconnectingEventStreamTest::token, token -> {
+                    TestEventStream stream = new TestEventStream();
+                    streams.add(stream);
+                    return stream;
+                }, fastConfig(3));
+
+        LatchJobListener listener = new LatchJobListener();
+        events.getJobReturnRouter().addJobListener(JID, listener);
+        streams.get(0).close(1006, "closed abnormally");
+
+        assertTrue(listener.lookups.await(10, TimeUnit.SECONDS));
+        assertEquals(1, events.getReconnectCount());
+        assertEquals(2, streams.size());
+        assertFalse(events.isEventStreamClosed());
+        assertEquals(1, listener.closed.getCount());
+        assertEquals(1, http.getRequests().size());
+        assertTrue(http.getBodies().get(0).contains("jobs.list_job"));
+        Jobs.Info info = listener.lookup.getData().getResult(Jobs.Info.class);
+        assertEquals(JID, info.getJid());
+
+        events.close();
+        assertTrue(listener.closed.await(10, TimeUnit.SECONDS));
+        assertTrue(events.isEventStreamClosed());
+    }
+
+    @Test
+    public void testGiveUpAfterMaxAttempts() throws Exception {
+        SaltClient client = new SaltClient(URI.create("http://localhost/"),
+                TestHttpClient.fixed("{\"return\": []}"));
+        AtomicInteger connects = new AtomicInteger();
+        TestEventStream first = new TestEventStream();
+        ReconnectingEventStream events = new ReconnectingEventStream(client,
+                ReconnectingEventStreamTest::token, token -> {
+                    if (connects.getAndIncrement() > 0) {
+                        throw new SaltException("Connection refused");
+                    }
+                    return first;
+                }, fastConfig(2));
+
+        LatchJobListener listener = new LatchJobListener();
+        events.getJobReturnRouter().addJobListener(JID, listener);
+        first.close(1006, "closed abnormally");
+
+        assertTrue(listener.closed.await(10, TimeUnit.SECONDS));
+        assertEquals(1006, listener.closeCode);
+        assertEquals(3, connects.get());
+        assertTrue(events.isEventStreamClosed());
+    }
+}
@@ -0,0 +1,115 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.datatypes.Token;
+import com.suse.salt.netapi.utils.TestHttpClient;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SseEventStream test class
+ */
+public class SseEventStreamTest {
+
+    private static final URI URL = URI.create("http://localhost:8000/");
+
+    /**
+     * Returns an http client parsing the given body, delivered in small chunks, on the
+     * calling thread.
+     */
+    private static TestHttpClient streamHttpClient(String body) {
+        return new TestHttpClient(request -> request.respondInChunks(body, 7));
+    }
+
+    /**
+     * Listener recording the events and the close code.
+     */
+    private static class RecordingListener implements EventListener {
+
+        private final List<Event> events = new ArrayList<>();
+        private int closeCode = -1;
+
+        @Override
+        public void notify(Event event) {
+            events.add(event);
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+            closeCode = code;
+        }
+    }
+
+    @Test
+    public void testParseFrames() {
+        TestHttpClient http = streamHttpClient("retry: 400\n\n" +
+                "tag: salt/job/1/new\r\n" +
+                "data: {\"tag\": \"salt/job/1/new\", \"data\": {\"jid\": \"1\"}}\r\n\r\n" +
+                ": comment\n" +
+                "data: {\"tag\": \"salt/job/1/ret/minion1\",\n" +
+                "data:  \"data\": {\"id\": \"minion1\"}}\n\n" +
+                "data: {\"tag\": \"incomplete\"");
+        RecordingListener listener = new RecordingListener();
+        SseEventStream stream = new SseEventStream(URL, new Token("a token"), http, 0,
+                listener);
+
+        assertEquals("/events", http.getRequests().get(0).getUri().getPath());
+        assertEquals("token=a+token", http.getRequests().get(0).getUri().getRawQuery());
+        assertEquals(2, listener.events.size());
+        assertEquals("salt/job/1/new", listener.events.get(0).getTag());
+        assertEquals("1", listener.events.get(0).getData().get("jid"));
+        assertEquals("salt/job/1/ret/minion1", listener.events.get(1).getTag());
+        assertEquals("minion1", listener.events.get(1).getData().get("id"));
+        assertEquals(1000, listener.closeCode);
+        assertTrue(stream.isEventStreamClosed());
+    }
+
+    @Test
+    public void testLargeEvent() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            value.append("0123456789");
+        }
+        TestHttpClient http = new TestHttpClient(request -> request.respondInChunks(
+                "data: {\"tag\": \"big\", \"data\": {\"x\": \"" + value + "\"}}\n\n" +
+                "data: {\"tag\": \"small\", \"data\": {}}\n\n", 1000));
+        RecordingListener listener = new RecordingListener();
+        new SseEventStream(URL, new Token("token"), http, 0, listener);
+
+        assertEquals(2, listener.events.size());
+        assertEquals(value.toString(), listener.events.get(0).getData().get("x"));
+        assertEquals("small", listener.events.get(1).getTag());
+        assertEquals(1000, listener.closeCode);
+    }
+
+    @Test
+    public void testMessageTooBig() {
+        TestHttpClient http = streamHttpClient(
+                "data: {\"tag\": \"small\", \"data\": {}}\n\n" +
+                "data: {\"tag\": \"big\", \"data\": {\"x\": \"0123456789\"}}\n\n");
+        RecordingListener listener = new RecordingListener();
+        new SseEventStream(URL, new Token("token"), http, 40, listener);
+
+        assertEquals(1, listener.events.size());
+        assertEquals(1009, listener.closeCode);
+    }
+
+    @Test
+    public void testClose() {
+        RecordingListener listener = new RecordingListener();
+        SseEventStream stream = new SseEventStream(URL, new Token("token"),
+                new TestHttpClient(), 0, listener);
+
+        assertEquals(-1, listener.closeCode);
+        stream.close();
+        assertEquals(1001, listener.closeCode);
+        assertTrue(stream.isEventStreamClosed());
+    }
+}
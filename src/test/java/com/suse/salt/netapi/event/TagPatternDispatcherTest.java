@@ -0,0 +1,139 @@
+package com.suse.salt.netapi.event;
+
+import static org.junit.Assert.assertEquals;
+
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.utils.TestEventStream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tag pattern subscriptions test class
+ */
+public class TagPatternDispatcherTest {
+
+    /**
+     * Listener recording the tags of the events and the number of close events.
+     */
+    private static class RecordingListener implements EventListener {
+
+        private final List<String> tags = new ArrayList<>();
+        private int closed = 0;
+
+        @Override
+        public void notify(Event event) {
+            tags.add(event.getTag());
+        }
+
+        @Override
+        public void eventStreamClosed(int code, String phrase) {
+            closed++;
+        }
+    }
+
+    private static final String[] TAGS = {
+            "salt/job/20241018123456789012/new",
+            "salt/job/20241018123456789012/ret/minion1",
+            "salt/job/20241018123456789012/ret/minion2",
+            "salt/jobs/other",
+            "salt/beacon/minion1/inotify//tmp/file",
+            "salt/beacon/minion1/diskusage/",
+            "salt/run/20241018123456789012/ret",
+            "salt/auth"
+    };
+
+    private List<String> matching(String pattern) {
+        TestEventStream stream = new TestEventStream();
+        RecordingListener listener = new RecordingListener();
+        stream.addEventListener(pattern, listener);
+        stream.postTags(TAGS);
+        return listener.tags;
+    }
+
+    @Test
+    public void testPrefix() {
+        assertEquals(Arrays.asList(TAGS[0], TAGS[1], TAGS[2]), matching("salt/job"));
+        assertEquals(Collections.singletonList(TAGS[7]), matching("salt/auth"));
+        assertEquals(Collections.emptyList(), matching("salt/au"));
+    }
+
+    @Test
+    public void testWildcards() {
+        assertEquals(Arrays.asList(TAGS[1], TAGS[2]), matching("salt/job/*/ret/*"));
+        assertEquals(Collections.singletonList(TAGS[4]), matching("salt/beacon/*/inotify/*"));
+        assertEquals(Collections.singletonList(TAGS[5]), matching("salt/beacon/*/diskusage/*"));
+        assertEquals(Collections.singletonList(TAGS[6]), matching("salt/run/*/ret"));
+        assertEquals(Collections.singletonList(TAGS[2]), matching("salt/job/*/ret/*2"));
+        assertEquals(Arrays.asList(TAGS[1], TAGS[2]), matching("salt/job/2024*/ret/minion[0-9]"));
+        assertEquals(Collections.singletonList(TAGS[3]), matching("salt/job?/*"));
+        assertEquals(Collections.singletonList(TAGS[0]), matching("salt/*/*/new"));
+    }
+
+    @Test
+    public void testSubscriptions() {
+        TestEventStream stream = new TestEventStream();
+        RecordingListener returns = new RecordingListener();
+        RecordingListener all = new RecordingListener();
+        stream.addEventListener("salt/job/*/ret/*", returns);
+        stream.addEventListener("salt/job/*/new", returns);
+        stream.addEventListener(all);
+        stream.addEventListener("salt/beacon", all);
+        assertEquals(4, stream.getListenerCount());
+
+        stream.postTags(TAGS[0], TAGS[1], TAGS[4]);
+        assertEquals(Arrays.asList(TAGS[0], TAGS[1]), returns.tags);
+        assertEquals(Arrays.asList(TAGS[0], TAGS[1], TAGS[4], TAGS[4]), all.tags);
+
+        stream.removeEventListener(returns);
+        assertEquals(2, stream.getListenerCount());
+        stream.postTags(TAGS[2]);
+        assertEquals(2, returns.tags.size());
+
+        stream.close();
+        assertEquals(0, returns.closed);
+        assertEquals(1, all.closed);
+        assertEquals(0, stream.getListenerCount());
+    }
+
+    @Test
+    public void testTrailingSlash() {
+        assertEquals(Arrays.asList(TAGS[0], TAGS[1], TAGS[2]), matching("salt/job/"));
+        assertEquals(Collections.singletonList(TAGS[5]), matching("salt/beacon/minion1/diskusage/"));
+        assertEquals(Collections.singletonList(TAGS[5]), matching("salt/beacon/*/diskusage/"));
+    }
+
+    @Test
+    public void testRemovePrunes() {
+        TagPatternDispatcher dispatcher = new TagPatternDispatcher();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        dispatcher.add("salt/job/*/ret/minion[0-9]", first);
+        dispatcher.add("salt/job/*/ret/*", first);
+        dispatcher.add("salt/beacon/*/inotify/*.log", first);
+        dispatcher.add("salt/job/2024*/new", first);
+        dispatcher.add("salt/auth/", first);
+        dispatcher.add("salt/job", second);
+        assertEquals(11, dispatcher.nodeCount());
+
+        dispatcher.remove(first);
+        assertEquals(3, dispatcher.nodeCount());
+        dispatcher.remove(second);
+        assertEquals(1, dispatcher.nodeCount());
+        assertEquals(0, dispatcher.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPattern() {
+        new TestEventStream().addEventListener("", new RecordingListener());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSlashPattern() {
+        new TestEventStream().addEventListener("/", new RecordingListener());
+    }
+}
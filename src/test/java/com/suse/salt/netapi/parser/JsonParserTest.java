@@ -7,10 +7,13 @@ import com.suse.salt.netapi.datatypes.cherrypy.Request;
 import com.suse.salt.netapi.datatypes.cherrypy.ServerThread;
 import com.suse.salt.netapi.datatypes.cherrypy.Stats;
 import com.suse.salt.netapi.errors.FunctionNotAvailable;
+import com.suse.salt.netapi.errors.JsonParsingError;
 import com.suse.salt.netapi.results.Result;
 import com.suse.salt.netapi.results.Return;
 
+import com.google.gson.JsonNull;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.IOException;
@@ -20,10 +23,12 @@ import java.util.Optional;
 import java.util.LinkedList;
 
 import com.suse.salt.netapi.results.SSHResult;
+import com.suse.salt.netapi.utils.Xor;
 import org.junit.Test;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -247,4 +252,48 @@ public class JsonParserTest {
         assertEquals(Arrays.asList("sh", "-c", "false"), sshResult.getFunArgs());
     }
 
+    @Test
+    public void testResultErrors() {
+        JsonParser<Map<String, Result<List<String>>>> parser =
+                new JsonParser<>(new TypeToken<Map<String, Result<List<String>>>>() {});
+        Map<String, Result<List<String>>> results = parser.parse("{" +
+                "\"minion1\": \"'pkg.list' is not available.\", " +
+                "\"minion2\": \"Minion did not return\", " +
+                "\"minion3\": [\"a\", {\"b\": [1, 2]}, \"c\"], " +
+                "\"minion4\": [\"a\", \"b\"]}");
+
+        assertEquals(new FunctionNotAvailable("pkg.list"), results.get("minion1").error().get());
+        assertEquals(new JsonPrimitive("Minion did not return"),
+                ((JsonParsingError) results.get("minion2").error().get()).getJson());
+        // a value failing halfway is skipped instead of being kept
+        assertEquals(JsonNull.INSTANCE,
+                ((JsonParsingError) results.get("minion3").error().get()).getJson());
+        assertEquals(Arrays.asList("a", "b"), results.get("minion4").result().get());
+    }
+
+    @Test
+    public void testResultScalarErrors() {
+        JsonParser<Map<String, Result<Boolean>>> parser =
+                new JsonParser<>(new TypeToken<Map<String, Result<Boolean>>>() {});
+        Map<String, Result<Boolean>> results = parser.parse(
+                "{\"minion1\": \"true\", \"minion2\": null, \"minion3\": true}");
+
+        assertEquals(new JsonPrimitive("true"),
+                ((JsonParsingError) results.get("minion1").error().get()).getJson());
+        assertEquals(JsonNull.INSTANCE,
+                ((JsonParsingError) results.get("minion2").error().get()).getJson());
+        assertTrue(results.get("minion3").result().get());
+    }
+
+    @Test
+    public void testXorStructured() {
+        JsonParser<List<Xor<Map<String, Integer>, Object>>> parser = new JsonParser<>(
+                new TypeToken<List<Xor<Map<String, Integer>, Object>>>() {});
+        List<Xor<Map<String, Integer>, Object>> values = parser.parse("[{\"a\": 1}, [1]]");
+
+        // a right side accepting any value is parsed from the stream
+        assertEquals(Optional.of(Map.of("a", 1.0)), values.get(0).right());
+        assertEquals(Optional.of(List.of(1.0)), values.get(1).right());
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.suse.salt.netapi.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.suse.salt.netapi.results.Result;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MinionResultsParser unit tests.
+ */
+public class MinionResultsParserTest {
+
+    @Test
+    public void testParseMinionResults() {
+        Map<String, Result<Boolean>> results = new LinkedHashMap<>();
+        MinionResultsParser<Boolean> parser = new MinionResultsParser<>(
+                new TypeToken<Result<Boolean>>() { }, results::put);
+
+        int count = parser.parse("{\"return\": [{\"minion1\": true, " +
+                "\"minion2\": \"'test.ping' is not available.\"}, {\"ignored\": false}]}");
+
+        assertEquals(2, count);
+        assertEquals(2, results.size());
+        assertEquals(Boolean.TRUE, results.get("minion1").result().get());
+        assertTrue(results.get("minion2").error().isPresent());
+    }
+
+    @Test
+    public void testParseEmptyReturn() {
+        MinionResultsParser<Boolean> parser = new MinionResultsParser<>(
+                new TypeToken<Result<Boolean>>() { }, (minion, result) -> { });
+        assertEquals(0, (int) parser.parse("{\"return\": [{}]}"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.suse.salt.netapi.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashedWheelTimer test class
+ */
+public class HashedWheelTimerTest {
+
+    @Test
+    public void testExpiresInOrder() throws InterruptedException {
+        // a small wheel so that deadlines wrap around it
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 4);
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        timer.schedule(() -> { expired.add(3); done.countDown(); }, 150, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> { expired.add(1); done.countDown(); }, 0, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> { expired.add(2); done.countDown(); }, 60, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), expired);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+        List<String> expired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        HashedWheelTimer.Timeout cancelled = timer.schedule(() -> expired.add("cancelled"), 50,
+                TimeUnit.MILLISECONDS);
+        HashedWheelTimer.Timeout kept = timer.schedule(() -> {
+            expired.add("kept");
+            done.countDown();
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(kept.cancel());
+        assertEquals(List.of("kept"), expired);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTick() {
+        new HashedWheelTimer("test-timer", 0, TimeUnit.MILLISECONDS, 8);
+    }
+}
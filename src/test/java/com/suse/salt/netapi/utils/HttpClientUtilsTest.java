@@ -0,0 +1,168 @@
+package com.suse.salt.netapi.utils;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.suse.salt.netapi.client.SaltClient;
+import com.suse.salt.netapi.client.SaltClientTest;
+import com.suse.salt.netapi.client.impl.HttpAsyncClientImpl;
+import com.suse.salt.netapi.datatypes.cherrypy.Stats;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * HttpClientUtils and PooledHttpClient test class
+ */
+public class HttpClientUtilsTest {
+
+    private static final int MOCK_HTTP_PORT = 8888;
+
+    static final String JSON_STATS_RESPONSE = ClientUtils.streamToString(
+            SaltClientTest.class.getResourceAsStream("/stats_response.json"));
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(MOCK_HTTP_PORT);
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private static SaltClient saltClient(PooledHttpClient pooled) {
+        return new SaltClient(URI.create("http://localhost:" + MOCK_HTTP_PORT),
+                new HttpAsyncClientImpl(pooled.getClient()));
+    }
+
+    private static void stubStats(int delay) {
+        stubFor(any(urlMatching("/stats"))
+                .willReturn(aResponse()
+                .withStatus(HttpURLConnection.HTTP_OK)
+                .withHeader("Content-Type", "application/json")
+                .withFixedDelay(delay)
+                .withBody(JSON_STATS_RESPONSE)));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxTotal() {
+        HttpClientUtils.custom().withMaxTotal(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxPerRoute() {
+        HttpClientUtils.custom().withMaxPerRoute(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIoThreads() {
+        HttpClientUtils.custom().withIoThreads(0);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        stubStats(0);
+
+        try (PooledHttpClient pooled = HttpClientUtils.custom().build()) {
+            Stats stats = saltClient(pooled).stats().toCompletableFuture().join();
+
+            assertNotNull(stats);
+            verify(1, getRequestedFor(urlEqualTo("/stats")));
+            // the connection is kept for the next request
+            waitFor(() -> pooled.getTotalStats().getAvailable() == 1);
+            assertEquals(0, pooled.getTotalStats().getLeased());
+        }
+    }
+
+    @Test
+    public void testPoolLimits() throws Exception {
+        stubStats(500);
+
+        try (PooledHttpClient pooled = HttpClientUtils.custom()
+                .withMaxTotal(5)
+                .withMaxPerRoute(1)
+                .build()) {
+            assertEquals(5, pooled.getTotalStats().getMax());
+
+            SaltClient client = saltClient(pooled);
+            CompletableFuture<Stats> first = client.stats().toCompletableFuture();
+            CompletableFuture<Stats> second = client.stats().toCompletableFuture();
+
+            // the second request waits for the only connection of the route
+            waitFor(() -> pooled.getTotalStats().getLeased() == 1 &&
+                    pooled.getTotalStats().getPending() == 1);
+            assertNotNull(first.join());
+            assertNotNull(second.join());
+            verify(2, getRequestedFor(urlEqualTo("/stats")));
+        }
+    }
+
+    @Test
+    public void testSocketTimeout() throws Exception {
+        exception.expect(CompletionException.class);
+        exception.expectCause(instanceOf(SocketTimeoutException.class));
+        stubStats(2000);
+
+        try (PooledHttpClient pooled = HttpClientUtils.custom()
+                .withSocketTimeout(500)
+                .build()) {
+            saltClient(pooled).stats().toCompletableFuture().join();
+        }
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        stubStats(0);
+
+        try (PooledHttpClient pooled = HttpClientUtils.custom()
+                .withMaxIdleTime(200)
+                .build()) {
+            saltClient(pooled).stats().toCompletableFuture().join();
+
+            // the connection is closed once idle for longer than the maximum
+            waitFor(() -> pooled.getTotalStats().getLeased() == 0 &&
+                    pooled.getTotalStats().getAvailable() == 0);
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        PooledHttpClient pooled = HttpClientUtils.custom()
+                .withMaxIdleTime(200)
+                .build();
+        assertTrue(pooled.getClient().isRunning());
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("salt-connection-evictor")));
+
+        pooled.close();
+        assertFalse(pooled.getClient().isRunning());
+        waitFor(() -> Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().equals("salt-connection-evictor")));
+    }
+}
@@ -0,0 +1,59 @@
+package com.suse.salt.netapi.utils;
+
+import com.suse.salt.netapi.event.AbstractEventStream;
+import com.suse.salt.netapi.parser.JsonParser;
+
+/**
+ * Event stream whose events are posted and which is closed by the test.
+ */
+public class TestEventStream extends AbstractEventStream {
+
+    private volatile boolean closed = false;
+
+    /**
+     * Notifies the listeners of the given event.
+     *
+     * @param json the event as sent by the Salt API
+     */
+    public void post(String json) {
+        notifyListeners(JsonParser.EVENTS.parse(json));
+    }
+
+    /**
+     * Notifies the listeners of events with the given tags and empty data.
+     *
+     * @param tags the tags of the events
+     */
+    public void postTags(String... tags) {
+        for (String tag : tags) {
+            post("{\"tag\": \"" + tag + "\", \"data\": {}}");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEventStreamClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the stream normally.
+     */
+    @Override
+    public void close() {
+        close(1000, "closed");
+    }
+
+    /**
+     * Closes the stream with the given code.
+     *
+     * @param code the close code
+     * @param phrase the reason
+     */
+    public void close(int code, String phrase) {
+        closed = true;
+        clearListeners(code, phrase);
+    }
+}
@@ -0,0 +1,189 @@
+package com.suse.salt.netapi.utils;
+
+import com.suse.salt.netapi.client.AsyncHttpClient;
+import com.suse.salt.netapi.parser.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * AsyncHttpClient recording its requests and leaving their responses to the test. Every
+ * request is passed to a responder on the calling thread, which may answer it right
+ * away or leave it pending for the test to answer later.
+ */
+public class TestHttpClient implements AsyncHttpClient {
+
+    /**
+     * A request sent through the client.
+     */
+    public static final class Request {
+
+        private final URI uri;
+        private final String data;
+        private final JsonParser<?> parser;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Request(URI uri, String data, JsonParser<?> parser) {
+            this.uri = uri;
+            this.data = data;
+            this.parser = parser;
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        /**
+         * Returns the body of the request.
+         *
+         * @return the body, null for GET requests
+         */
+        public String getData() {
+            return data;
+        }
+
+        /**
+         * Returns the future returned to the caller of the client.
+         *
+         * @return the future
+         */
+        public CompletableFuture<?> getFuture() {
+            return future;
+        }
+
+        /**
+         * Answers the request with the given JSON, which is parsed by the parser of the
+         * request. Without a parser the JSON itself is the result.
+         *
+         * @param json the response body
+         */
+        public void respond(String json) {
+            try {
+                future.complete(parser == null ? json : parser.parse(json));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Answers the request with the given body, which is read by the parser in chunks
+         * of the given size like a body arriving over the network.
+         *
+         * @param body the response body
+         * @param chunkSize the maximum number of bytes read at once
+         */
+        public void respondInChunks(String body, int chunkSize) {
+            InputStream chunks = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, chunkSize));
+                }
+            };
+            try {
+                future.complete(parser.parse(chunks));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Fails the request with the given error.
+         *
+         * @param error the error
+         */
+        public void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private final Consumer<Request> responder;
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a client leaving all requests pending.
+     */
+    public TestHttpClient() {
+        this(request -> { });
+    }
+
+    /**
+     * Creates a client passing every request to the given responder.
+     *
+     * @param responder answers the requests or leaves them pending
+     */
+    public TestHttpClient(Consumer<Request> responder) {
+        this.responder = responder;
+    }
+
+    /**
+     * Creates a client answering every request with the given JSON.
+     *
+     * @param json the response body
+     * @return the client
+     */
+    public static TestHttpClient fixed(String json) {
+        return new TestHttpClient(request -> request.respond(json));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<T> get(URI uri, Map<String, String> headers,
+            JsonParser<T> parser) {
+        return send(new Request(uri, null, parser));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletionStage<T> post(URI uri, Map<String, String> headers, String data,
+            JsonParser<T> parser) {
+        return send(new Request(uri, data, parser));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletionStage<T> send(Request request) {
+        requests.add(request);
+        responder.accept(request);
+        return (CompletionStage<T>) request.future;
+    }
+
+    /**
+     * Returns the requests sent so far.
+     *
+     * @return the requests in the order they were sent
+     */
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the bodies of the requests sent so far.
+     *
+     * @return the bodies in the order the requests were sent
+     */
+    public List<String> getBodies() {
+        return requests.stream().map(Request::getData).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the requests that were not answered yet.
+     *
+     * @return the pending requests in the order they were sent
+     */
+    public List<Request> getPending() {
+        return requests.stream().filter(request -> !request.future.isDone())
+                .collect(Collectors.toList());
+    }
+}